@@ -46,19 +46,75 @@
   line, then this program runs as a console application without a graphical
   interface.  A generated report is written on standard output, and may be
   redirected with the ">" or "1>" operators.  (Standard error may be redirected
-  with the "2>" operator.)  An example command line is:
+  with the "2>" operator.)  The report may also be written as JSON Lines, a
+  SARIF log, or JUnit XML for other programs; see the -o option.  An example
+  command line is:
 
       java  CheckPlainTrim2  -s  d:\temp  >report.txt
 
   The console application will return an exit status of 1 for success, -1 for
-  failure, and 0 for unknown.  The graphical interface can be very slow when
-  the output text area gets too big, which will happen if thousands of files
-  are reported.
+  failure, and 0 for unknown.  The graphical interface shows the report in a
+  list that only draws visible lines, and adds new lines in batches, so it
+  stays responsive even when thousands of files are reported.  Changing which
+  files are shown ("show all files", etc) applies to the existing report.
+
+  The code that checks file contents is in CheckPlainTrim2Scan.java, with its
+  settings in CheckPlainTrim2Options.java and its results in
+  CheckPlainTrim2Result.java.  These public classes have no graphical interface
+  and may be used by other Java programs.  The graphical interface is only in
+  the CheckPlainTrim2Window class, so console runs never load Java's GUI
+  classes.  Compile all four files together:
+
+      javac  CheckPlainTrim2.java  CheckPlainTrim2Options.java
+        CheckPlainTrim2Result.java  CheckPlainTrim2Scan.java
+
+  Faster Startup for Console Use
+  ------------------------------
+  When a few files are checked, for example, before each commit, most of the
+  time is spent starting Java.  After compiling the four files above (not the
+  test programs), a JAR file with the native-image options is made with:
+
+      jar  cfm  CheckPlainTrim2.jar  CheckPlainTrim2.manifest  *.class  META-INF
+
+  Java 13 or later can save the loaded classes in a shared archive (AppCDS) at
+  the end of one run, and use that archive for later runs:
+
+      java  -XX:ArchiveClassesAtExit=cpt2.jsa  -jar CheckPlainTrim2.jar  -s .
+      java  -XX:SharedArchiveFile=cpt2.jsa  -jar CheckPlainTrim2.jar  -s .
+
+  GraalVM can compile the JAR file into a native executable for the console
+  application only (no graphical interface), with the options in the file
+  META-INF/native-image/CheckPlainTrim2/native-image.properties:
+
+      native-image  -jar CheckPlainTrim2.jar
+      checkplaintrim2  -s .
+
+  See "CheckPlainTrim2Speed -start" to compare the startup time of each.
+
+  Another way is to leave one copy of the program running as a server (-a
+  option) on a port of this computer, and to send each command line to that
+  server with the -t option.  The client only passes the command line along
+  and shows the report, while the server already has its compiled code,
+  buffers, and results for files that haven't changed:
+
+      java  CheckPlainTrim2  -a7301  -s
+      java  CheckPlainTrim2  -t7301  -v  src  docs
+
+  Options given to the server are defaults for every request.  Each request is
+  checked on its own thread, with its own copy of the options and totals, by
+  the same code as the console application, so requests don't wait for each
+  other and the report is the same as for a direct run.  Any program on this
+  computer can connect to the server, so don't run it where other users
+  shouldn't see which files exist.
 */
 
 import java.awt.*;                // older Java GUI support
 import java.awt.event.*;          // older Java GUI event support
 import java.io.*;                 // standard I/O
+import java.net.*;                // local sockets for server and client
+import java.nio.*;                // byte buffers for bulk reading
+import java.nio.channels.*;       // file channels and memory-mapped files
+import java.nio.charset.*;        // character set decoders
 import java.text.*;               // number formatting
 import java.util.*;               // calendars, dates, lists, maps, vectors
 import java.util.regex.*;         // regular expressions
@@ -70,80 +126,197 @@ public class CheckPlainTrim2
 {
   /* constants */
 
+  static final int CACHE_MAGIC = 0x43505432; // "CPT2" at start of cache file
+  static final int CACHE_VERSION = 2; // format of cache file
+  static final int CONSOLE_BUFFER = 0x10000; // buffer for standard output
+  static final int CONSOLE_LIMIT = 10000; // most lines waiting for writer
   static final String COPYRIGHT_NOTICE =
     "Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL.";
+  static final int DEDUPE_DEFAULT = 64; // default memory for duplicates (MB)
+  static final int DEDUPE_ENTRY = 160; // estimated bytes for each entry
   static final int DEFAULT_HEIGHT = -1; // default window height in pixels
   static final int DEFAULT_LEFT = 50; // default window left position ("x")
   static final int DEFAULT_TOP = 50; // default window top position ("y")
   static final int DEFAULT_WIDTH = -1; // default window width in pixels
+  static final int DETAIL_DEFAULT = 100; // default findings per file for -v
+  static final int DETAIL_MAXIMUM = 99999; // most findings per file for -v
   static final String EMPTY_STATUS = ""; // message when no status to display
+  static final int ENGINE_BYTE = CheckPlainTrim2Scan.ENGINE_BYTE;
+  static final int ENGINE_WORD = CheckPlainTrim2Scan.ENGINE_WORD;
   static final int EXIT_FAILURE = -1; // incorrect request or errors found
   static final int EXIT_SUCCESS = 1; // request completed successfully
   static final int EXIT_UNKNOWN = 0; // don't know or nothing really done
-  static final String[] FONT_SIZES = {"10", "12", "14", "16", "18", "20", "24",
-    "30"};                        // point sizes for text in output text area
+  static final int GIT_CHANGED = 2; // only tracked files changed since staged
+  static final int GIT_NONE = 0;  // search folders, don't read git index
+  static final int GIT_TRACKED = 1; // only files tracked by git
+  static final long FLIGHT_STACK = 0x10000; // stack size for per-file threads
+  static final int FORMAT_JSON = 1; // console report as JSON Lines
+  static final int FORMAT_JUNIT = 3; // console report as JUnit XML
+  static final int FORMAT_SARIF = 2; // console report as SARIF log (JSON)
+  static final int FORMAT_TEXT = 0; // console report as lines of text
   static final String LOCAL_ENCODING = "(local default)";
                                   // our special name for local character set
-  static final int MIN_FRAME = 200; // minimum window height or width in pixels
+  static final int PENDING_LIMIT = 1000; // most files and messages waiting
+                                  // ... before folder search waits for workers
   static final String PROGRAM_TITLE =
     "Check Files for Plain Trimmed Text - by: Keith Fenske";
   static final String RAW_ENCODING = "(raw data bytes)";
                                   // our special name for no data encoding
-  static final String[] SHOW_CHOICES = {"show all files", "show correct only",
-    "show errors only"};
+  static final int ROW_DELAY = 200; // 0.200 seconds between new report lines
+  static final int SERVE_CACHE = 100000; // most results kept by server
+                                  // ... least recently used are dropped
+  static final String SERVE_EXIT = "#exit "; // last line of server's reply
+  static final String SERVE_HOST = "127.0.0.1"; // server is local only
+  static final String SERVE_PROTOCOL = "CheckPlainTrim2 request 1";
+                                  // first line of each request to server
+  static final int SERVE_SAVE = 60000; // time between cache saves (millis)
+  static final int SERVE_TIMEOUT = 30000; // most wait for request (millis)
+  static final int SIZE_MAXIMUM = 999999; // largest size limit for -l (MB)
   static final String SUFFIX_DEFAULT = " .java  .html  .txt  .xml ";
                                   // initial list of file types (extensions)
-  static final String SYSTEM_FONT = "Dialog"; // this font is always available
   static final String TEXT_BOTH = "plain trimmed text"; // descriptions
   static final String TEXT_PLAIN = "plain text"; // plain, ignore trim
   static final String TEXT_TRIM = "trimmed text"; // trimmed, ignore plain
   static final int TIMER_DELAY = 1000; // 1.000 seconds between status updates
+  static final int WATCH_DEFAULT = 2; // default seconds between polls
 
   /* class variables */
 
-  static JButton cancelButton;    // graphical button for <cancelFlag>
-  static boolean cancelFlag;      // our signal from user to stop processing
-  static JRadioButton checkBothButton, checkPlainButton, checkTrimButton;
-                                  // graphical buttons for text types
-  static JCheckBox encodeCheckbox; // graphical option for <encodeFlag>
-  static JComboBox encodeDialog;  // graphical option for <encodeName>
-  static String encodeName;       // name of assumed character set encoding
-  static JButton exitButton;      // "Exit" button for ending this application
-  static JFileChooser fileChooser; // asks for input and output file names
+  static int buttonSize;          // point size for buttons, or zero for default
+  static volatile boolean cacheChanged; // true if cache has unsaved results
+  static File cacheFile;          // saved results from previous runs, or null
+  static Map cacheTable;          // results by file path, or null if no cache
+  static boolean consoleBusy;     // true while writer thread has lines
+  static LinkedList consoleQueue; // lines for writer thread, or null if none
+  static BufferedWriter consoleWriter; // buffered standard output
+  static CheckPlainTrim2 defaults; // options for each run, changed by GUI
+  static boolean encodeFlag;      // true if user selects a character set
   static String fontName;         // font name for text in output text area
-  static JComboBox fontNameDialog; // graphical option for <fontName>
   static int fontSize;            // point size for text in output text area
-  static JComboBox fontSizeDialog; // graphical option for <fontSize>
-  static NumberFormat formatComma; // formats with commas (digit grouping)
   static boolean hiddenFlag;      // true if we process hidden files or folders
-  static JFrame mainFrame;        // this application's GUI window
+  static boolean maximizeFlag;    // true if we maximize our main window
   static boolean mswinFlag;       // true if running on Microsoft Windows
-  static JButton openButton;      // "Open" button for files or folders
-  static File[] openFileList;     // list of files selected by user
-  static Thread openFilesThread;  // separate thread for doOpenButton() method
-  static JTextArea outputText;    // generated report while opening files
-  static boolean plainFlag;       // true if we are looking for plain text
-  static JCheckBox recurseCheckbox; // graphical option for <recurseFlag>
-  static boolean recurseFlag;     // true if we search folders and subfolders
-  static JButton saveButton;      // "Save" button for writing output text
-  static JComboBox showDialog;    // graphical choice for <show...Flag>
+  static int servePort;           // localhost port for server, or zero
+  static Vector scannerPool;      // idle scanner objects for all runs
   static boolean showFailureFlag; // true if we show files with errors
   static boolean showOtherFlag;   // true if we show various other results
   static boolean showSuccessFlag; // true if we show files that are correct
-  static JLabel statusDialog;     // status message during extended processing
-  static String statusPending;    // will become <statusDialog> after delay
-  static javax.swing.Timer statusTimer; // timer for updating status message
-  static JCheckBox suffixCheckbox; // graphical option for <suffixFlag>
-  static JTextField suffixDialog; // list of file types (file name extensions)
+  static int suffixCount;         // number of entries in list of file types
+  static Pattern suffixExclude;   // file names not wanted, or null
   static boolean suffixFlag;      // true if there is a list of file types
-  static String[] suffixList;     // lowercase array or list of file types
+  static Pattern suffixFolders;   // subfolder names to skip, or null
+  static Pattern suffixGlobs;     // file names with wildcards, or null
+  static boolean suffixIncludes;  // true if list has any wanted file types
+  static String[] suffixList;     // lowercase suffixes that aren't in table
+  static Hashtable suffixTable;   // lowercase extensions like ".txt"
   static String suffixText;       // unparsed text for list of file types
-  static String textType;         // description of plain or trimmed text
-  static long totalCorrect;       // number of files that are correct
-  static long totalError;         // number of files with some type of error
-  static long totalFiles;         // total number of files, select file types
-  static long totalFolders;       // total number of folders or subfolders
-  static boolean trimFlag;        // true if we are looking for trimmed text
+  static boolean windowFlag;      // true if report lines go into GUI window
+  static int windowHeight, windowLeft, windowTop, windowWidth;
+                                  // position and size for GUI window
+
+  /* instance variables */
+
+  volatile boolean cancelFlag;    // our signal from user to stop processing
+  BufferedWriter clientWriter;    // report for server's client, or null
+  int dedupeCount;                // number of entries in duplicate tables
+  Hashtable dedupeHashes;         // checked files by size and sample hash
+  int dedupeLimit;                // most entries in duplicate tables, or zero
+  Hashtable dedupeSizes;          // first file found for each size
+  int detailLimit;                // most findings reported per file, or zero
+  Charset encodeCharset;          // resolved <encodeName>, or null if raw
+  String encodeName;              // name of assumed character set encoding
+  int flightCount;                // number of per-file threads now running
+  int flightLimit;                // most files in flight, or zero for none
+  Object flightLock;              // synchronizes <flightCount> between threads
+  CheckPlainTrim2Scan fileScanner; // borrowed buffers for file contents
+  Hashtable gitIndexes;           // git index files read, by working tree
+  int gitMode;                    // which files in git working trees we check
+  NumberFormat formatComma;       // formats with commas (digit grouping)
+  Hashtable ignoreDates;          // ignore file dates by folder, when watching
+  int ignoreDepth;                // number of folders now being searched
+  boolean ignoreFlag;             // true if we obey ".gitignore" files
+  Hashtable ignoreFolders;        // rules by folder path, only when watching
+  CheckPlainTrim2Ignore ignoreRules; // rules for current folder
+  int outputFormat;               // console report format, see FORMAT_*
+  LinkedList pendingList;         // files and messages in order to be shown
+  boolean plainFlag;              // true if we are looking for plain text
+  long recordCount;               // results written in <outputFormat>
+  boolean recurseFlag;            // true if we search folders and subfolders
+  int scanEngine;                 // which loops check raw data bytes
+  CheckPlainTrim2Options scanOptions; // settings for this run's scanners
+  boolean sortFlag;               // true if names in folders are sorted
+  long sizeLimit;                 // largest file checked (bytes), or zero
+  boolean sniffFlag;              // true if we skip files that look binary
+  String textType;                // description of plain or trimmed text
+  int threadCount;                // number of threads for checking files
+  long totalBinary;               // number of binary files not checked
+  long totalCorrect;              // number of files that are correct
+  long totalDuplicate;            // number of duplicate files not checked
+  long totalError;                // number of files with some type of error
+  long totalFiles;                // total number of files, select file types
+  long totalFolders;              // total number of folders or subfolders
+  long totalLarge;                // number of files too big to check
+  long totalSaved;                // bytes not checked in duplicate files
+  boolean trimFlag;               // true if we are looking for trimmed text
+  int watchDelay;                 // seconds between polls, or zero if none
+  Hashtable watchFolders;         // folder dates (long[1]) by path, or null
+  Hashtable watchTable;           // reported files by path, or null if none
+  Thread[] workerThreads;         // threads that check files, if started
+  LinkedList workList;            // files waiting for a worker thread
+  boolean workStopFlag;           // tells idle worker threads to end
+
+  /* constructors */
+
+  public CheckPlainTrim2()
+  {
+    cancelFlag = false;           // don't cancel unless user complains
+    dedupeCount = dedupeLimit = 0; // by default, don't look for duplicates
+    detailLimit = 0;              // by default, only the first of each finding
+    dedupeHashes = new Hashtable(); // no files have been checked yet
+    dedupeSizes = new Hashtable();
+    encodeName = LOCAL_ENCODING;  // default name for character set encoding
+    encodeCharset = findCharset(encodeName); // local system's character set
+    scanOptions = new CheckPlainTrim2Options(); // copied from our options
+    fileScanner = null;           // scanners are borrowed as needed
+    flightCount = 0;              // no per-file threads running
+    flightLimit = 0;              // by default, don't start per-file threads
+    flightLock = new Object();    // any object will do for synchronizing
+    formatComma = NumberFormat.getInstance(); // current locale
+    formatComma.setGroupingUsed(true); // use commas or digit groups
+    gitIndexes = new Hashtable(); // no git index files read yet
+    gitMode = GIT_NONE;           // by default, search folders for all files
+    ignoreDates = new Hashtable(); // no ignore files watched yet
+    ignoreDepth = 0;              // not searching any folders yet
+    ignoreFlag = false;           // by default, ignore files are just files
+    ignoreFolders = new Hashtable(); // no rules found yet
+    ignoreRules = null;
+    outputFormat = FORMAT_TEXT;   // by default, report is lines of text
+    pendingList = new LinkedList(); // nothing waiting to be shown
+    plainFlag = true;             // by default, look for plain text
+    recordCount = 0;              // no results written yet
+    recurseFlag = false;          // by default, don't search subfolders
+    scanEngine = ENGINE_WORD;     // by default, use our fastest scanning loops
+    sortFlag = true;              // by default, sort names in each folder
+    sizeLimit = 0;                // by default, check files of any size
+    sniffFlag = false;            // by default, check all files as text
+    textType = TEXT_BOTH;         // description of plain or trimmed text
+    threadCount = 1;              // by default, check files on one thread
+    watchDelay = 0;               // by default, don't watch for changes
+    watchFolders = watchTable = null; // nothing to watch yet
+    totalCorrect = totalError = totalFiles = totalFolders = 0;
+                                  // no files found yet
+    totalDuplicate = totalSaved = 0; // no duplicate files found yet
+    totalBinary = totalLarge = 0; // no files skipped yet
+    trimFlag = true;              // by default, look for trimmed text
+    workerThreads = null;         // worker threads are started when needed
+    workList = new LinkedList();  // no files waiting for workers
+  }
+
+  public CheckPlainTrim2(CheckPlainTrim2 source)
+  {
+    this();                       // no files found, empty tables
+    setOptions(source);           // same options as <source>
+  }
 
 /*
   main() method
@@ -153,60 +326,68 @@ public class CheckPlainTrim2
 */
   public static void main(String[] args)
   {
-    ActionListener action;        // our shared action listener
-    Font buttonFont;              // font for buttons, labels, status, etc
     boolean consoleFlag;          // true if running as a console application
-    Border emptyBorder;           // remove borders around text areas
-    boolean encodeFlag;           // true if user selects a character set
     int i;                        // index variable
-    boolean maximizeFlag;         // true if we maximize our main window
-    int windowHeight, windowLeft, windowTop, windowWidth;
-                                  // position and size for <mainFrame>
+    int lastName;                 // index of previous file or folder name
+    CheckPlainTrim2 run;          // files named on command line, if any
     String word;                  // one parameter from command line
 
-    /* Initialize variables used by both console and GUI applications. */
+    /* A thin client (-t option) sends the whole command line to a server that
+    was started earlier with the -a option, and copies the server's report.
+    Nothing else is set up, so the client starts and ends quickly. */
 
-    buttonFont = null;            // by default, don't use customized font
-    cancelFlag = false;           // don't cancel unless user complains
+    for (i = 0; i < args.length; i ++)
+    {
+      word = args[i].toLowerCase(); // first client option wins
+      if (word.startsWith("-t") || (word.startsWith("/t")
+        && System.getProperty("os.name").startsWith("Windows")))
+      {
+        System.exit(runClient(args, i)); // exit with server's status
+      }
+    }
+
+    /* Initialize variables used by both console and GUI applications.  The
+    options for each run start as <defaults>, from the command line. */
+
+    buttonSize = 0;               // by default, don't use customized font
+    cacheChanged = false;         // nothing to save yet
+    cacheFile = null;             // by default, don't save results
+    cacheTable = null;            // no cache of previous results
+    consoleBusy = false;          // writer thread has nothing to write
     consoleFlag = false;          // assume no files or folders on command line
+    consoleQueue = null;          // by default, no separate writer thread
+    consoleWriter = new BufferedWriter(new OutputStreamWriter(System.out),
+      CONSOLE_BUFFER);            // same character set as System.out
+    defaults = new CheckPlainTrim2(); // default options for each run
     encodeFlag = false;           // by default, use local character set
-    encodeName = LOCAL_ENCODING;  // default name for character set encoding
     fontName = "Verdana";         // preferred font name for output text area
     fontSize = 16;                // default point size for output text area
     hiddenFlag = false;           // by default, don't process hidden files
-    mainFrame = null;             // during setup, there is no GUI window
     maximizeFlag = false;         // by default, don't maximize our main window
     mswinFlag = System.getProperty("os.name").startsWith("Windows");
-    plainFlag = true;             // by default, look for plain text
-    recurseFlag = false;          // by default, don't search subfolders
+    scannerPool = new Vector();   // scanners are created as needed
+    servePort = 0;                // by default, don't run as a server
     showFailureFlag = true;       // by default, show files with errors
     showOtherFlag = true;         // by default, show various other results
     showSuccessFlag = true;       // by default, show files that are correct
-    statusPending = EMPTY_STATUS; // begin with no text for <statusDialog>
     suffixFlag = false;           // by default, don't use list of file types
 //  suffixList =                  // see call to parseSuffixList() below
     suffixText = SUFFIX_DEFAULT;  // default unparsed list of file types
-    textType = TEXT_BOTH;         // description of plain or trimmed text
-    totalCorrect = totalError = totalFiles = totalFolders = 0;
-                                  // no files found yet
-    trimFlag = true;              // by default, look for trimmed text
+    windowFlag = false;           // during setup, there is no GUI window
     windowHeight = DEFAULT_HEIGHT; // default window position and size
     windowLeft = DEFAULT_LEFT;
     windowTop = DEFAULT_TOP;
     windowWidth = DEFAULT_WIDTH;
 
-    /* Initialize number formatting styles. */
-
-    formatComma = NumberFormat.getInstance(); // current locale
-    formatComma.setGroupingUsed(true); // use commas or digit groups
-
     /* Initialize our list of file types (file name extensions).  This sets the
-    <suffixList> global variable.  It does not set <suffixFlag>. */
+    <suffixList> and related global variables.  It does not set <suffixFlag>. */
 
     parseSuffixList(suffixText);  // set initial list of file types
 
     /* Check command-line parameters for options. */
 
+    lastName = -1;                // no file or folder names seen yet
+    run = null;                   // no files checked yet
     for (i = 0; i < args.length; i ++)
     {
       word = args[i].toLowerCase(); // easier to process if consistent case
@@ -224,45 +405,313 @@ public class CheckPlainTrim2
         System.exit(EXIT_UNKNOWN); // exit application after printing help
       }
 
+      else if (word.startsWith("-a") || (mswinFlag && word.startsWith("/a")))
+      {
+        /* This option is followed by a port number on this computer.  We
+        become a server that checks files for clients (-t option), and keep
+        running until stopped.  Other options are defaults for each request. */
+
+        int port = -1;            // default value for port number
+        try                       // try to parse remainder as unsigned integer
+        {
+          port = Integer.parseInt(word.substring(2));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          port = -1;              // set result to an illegal value
+        }
+        if ((port < 1) || (port > 65535))
+        {
+          System.err.println("Server port number must be from 1 to 65535: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        if (consoleFlag)          // have we already checked some files?
+        {
+          System.err.println("Server option must be before file or folder names: "
+            + args[i]);           // notify user of our requirement
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        servePort = port;         // start server after all options
+      }
+
+      else if (word.equals("-b0") || (mswinFlag && word.equals("/b0")))
+        defaults.sniffFlag = false; // check every file as text
+      else if (word.equals("-b1") || (mswinFlag && word.equals("/b1")))
+        defaults.sniffFlag = true; // skip files that look like binary data
+
+      else if (word.startsWith("-c") || (mswinFlag && word.startsWith("/c")))
+      {
+        /* This option is followed by a file name for saving results between
+        runs.  Files that haven't changed since the last run, and are checked
+        with the same options, are not read again. */
+
+        if (word.length() < 3)    // was there a file name?
+        {
+          System.err.println("Missing file name for cache option: "
+            + args[i]);           // notify user of our requirement
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        cacheFile = new File(args[i].substring(2)); // accept any file name
+        loadCache();              // previous results, if any
+      }
+
+      else if (word.startsWith("-d") || (mswinFlag && word.startsWith("/d")))
+      {
+        /* This option may be followed by the most memory (in megabytes) to be
+        used for finding files with identical contents.  Duplicates are only
+        checked once. */
+
+        int size = -1;            // default value for memory size
+        if (word.length() < 3)    // was there a number after the option?
+          size = DEDUPE_DEFAULT;  // no, use our default memory size
+        else try                  // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(2));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 0) || (size > 9999))
+        {
+          System.err.println("Memory for duplicate files must be from 0 to 9999 MB: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        defaults.dedupeLimit = (int) (((long) size << 20) / DEDUPE_ENTRY);
+                                  // zero means don't look for duplicates
+      }
+
       else if (word.startsWith("-e") || (mswinFlag && word.startsWith("/e")))
       {
         encodeFlag = true;        // user has chosen a character set
-        encodeName = args[i].substring(2); // accept any string from user
+        defaults.encodeName = args[i].substring(2); // accept any string
+        defaults.encodeCharset = findCharset(defaults.encodeName);
+                                  // look up name only once
+        if ((defaults.encodeCharset == null)
+          && (defaults.encodeName.equals(RAW_ENCODING) == false))
+                                  // is this a name that Java doesn't know?
+        {
+          System.err.println("Invalid character set name: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
       }
 
       else if (word.startsWith("-f") || (mswinFlag && word.startsWith("/f")))
       {
         suffixText = args[i].substring(2); // accept any string from user
         parseSuffixList(suffixText); // set initial list of file types
-        suffixFlag = (suffixList.length > 0); // were there any file types?
+        suffixFlag = (suffixCount > 0); // were there any file types?
+      }
+
+      else if (word.equals("-g0") || (mswinFlag && word.equals("/g0")))
+        defaults.gitMode = GIT_NONE; // search folders for all files
+      else if (word.equals("-g1") || (mswinFlag && word.equals("/g1")))
+        defaults.gitMode = GIT_TRACKED; // only files tracked by git
+      else if (word.equals("-g2") || (mswinFlag && word.equals("/g2")))
+        defaults.gitMode = GIT_CHANGED; // tracked files changed since staged
+
+      else if (word.startsWith("-i") || (mswinFlag && word.startsWith("/i")))
+      {
+        /* This option is followed by the most files that may be opened and
+        read at the same time, each on its own short-lived thread.  This helps
+        on network and other slow file systems, where the cost is waiting for
+        each file, not checking the contents. */
+
+        int count = -1;           // default value for number of files
+        try                       // try to parse remainder as unsigned integer
+        {
+          count = Integer.parseInt(word.substring(2));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          count = -1;             // set result to an illegal value
+        }
+        if ((count < 0) || (count > 9999))
+        {
+          System.err.println("Number of files in flight must be from 0 to 9999: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        defaults.flightLimit = count; // zero means don't use per-file threads
+      }
+
+      else if (word.equals("-k0") || (mswinFlag && word.equals("/k0")))
+        defaults.scanEngine = ENGINE_WORD; // default, same as -k2
+      else if (word.equals("-k1") || (mswinFlag && word.equals("/k1")))
+        defaults.scanEngine = ENGINE_BYTE; // one byte at a time (to compare)
+      else if (word.equals("-k2") || (mswinFlag && word.equals("/k2")))
+        defaults.scanEngine = ENGINE_WORD; // check eight bytes at a time
+
+      else if (word.startsWith("-l") || (mswinFlag && word.startsWith("/l")))
+      {
+        /* This option is followed by the size of the largest file to check,
+        in megabytes.  Bigger files are counted, but never opened. */
+
+        int size = -1;            // default value for size limit
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(2));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 0) || (size > SIZE_MAXIMUM))
+        {
+          System.err.println("Largest file size must be from 0 to "
+            + SIZE_MAXIMUM + " MB: " + args[i]); // notify user of our limits
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        defaults.sizeLimit = (long) size << 20; // zero means no limit
       }
 
       else if (word.equals("-m1") || (mswinFlag && word.equals("/m1")))
       {
-        plainFlag = true;         // look for plain text
-        textType = TEXT_PLAIN;    // description
-        trimFlag = false;         // ignore trimmed text
+        defaults.plainFlag = true; // look for plain text
+        defaults.textType = TEXT_PLAIN; // description
+        defaults.trimFlag = false; // ignore trimmed text
       }
       else if (word.equals("-m2") || (mswinFlag && word.equals("/m2")))
       {
-        plainFlag = false;        // ignore plain text
-        textType = TEXT_TRIM;     // description
-        trimFlag = true;          // look for trimmed text
+        defaults.plainFlag = false; // ignore plain text
+        defaults.textType = TEXT_TRIM; // description
+        defaults.trimFlag = true; // look for trimmed text
       }
       else if (word.equals("-m3") || (mswinFlag && word.equals("/m3")))
       {
-        plainFlag = true;         // look for plain text
-        textType = TEXT_BOTH;     // description
-        trimFlag = true;          // look for trimmed text
+        defaults.plainFlag = true; // look for plain text
+        defaults.textType = TEXT_BOTH; // description
+        defaults.trimFlag = true; // look for trimmed text
+      }
+
+      else if (word.equals("-n0") || (mswinFlag && word.equals("/n0")))
+        defaults.ignoreFlag = false; // check everything that we find
+      else if (word.equals("-n1") || (mswinFlag && word.equals("/n1")))
+        defaults.ignoreFlag = true; // skip what ".gitignore" files say
+
+      else if (word.equals("-o0") || (mswinFlag && word.equals("/o0"))
+        || word.equals("-o1") || (mswinFlag && word.equals("/o1"))
+        || word.equals("-o2") || (mswinFlag && word.equals("/o2"))
+        || word.equals("-o3") || (mswinFlag && word.equals("/o3")))
+      {
+        /* The console report may be written in a format for other programs.
+        Each format is written as files are reported, never saved in memory,
+        so it can't change after the report has started.  SARIF and JUnit are
+        complete documents, and don't allow more results after the summary,
+        as when watching for changes. */
+
+        int format = word.charAt(2) - '0'; // one of our FORMAT_* constants
+        if (consoleFlag && (format != defaults.outputFormat)) // report started?
+        {
+          System.err.println("Output format must be before file or folder names: "
+            + args[i]);           // notify user of our requirement
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        if ((format >= FORMAT_SARIF) && (defaults.watchDelay > 0))
+        {
+          System.err.println("Can't watch for changes with SARIF or JUnit output: "
+            + args[i]);           // notify user of our requirement
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        defaults.outputFormat = format; // text, JSON Lines, SARIF, JUnit XML
+      }
+
+      else if (word.startsWith("-p") || (mswinFlag && word.startsWith("/p")))
+      {
+        /* This option is followed by the number of threads for checking files.
+        Zero means one thread for each processor. */
+
+        int count = -1;           // default value for number of threads
+        try                       // try to parse remainder as unsigned integer
+        {
+          count = Integer.parseInt(word.substring(2));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          count = -1;             // set result to an illegal value
+        }
+        if ((count < 0) || (count > 999))
+        {
+          System.err.println("Number of threads must be from 0 to 999: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        else if (count == 0)      // one thread for each processor
+          defaults.threadCount = Runtime.getRuntime().availableProcessors();
+        else                      // user has given us an exact number
+          defaults.threadCount = count;
+      }
+
+      else if (word.equals("-q0") || (mswinFlag && word.equals("/q0")))
+      {
+        /* Write the console report on this thread.  There is no way to stop
+        a writer thread once started, so it keeps running if already there. */
+      }
+      else if (word.equals("-q1") || (mswinFlag && word.equals("/q1")))
+      {
+        if (consoleQueue == null) // start writer thread only once
+        {
+          consoleQueue = new LinkedList(); // no lines waiting yet
+          Thread writer = new Thread(new CheckPlainTrim2Work(true),
+            "doWriterRunner");    // writes report lines in order
+          writer.setDaemon(true); // don't keep program running after exit
+          writer.start();
+        }
+      }
+
+      else if (word.startsWith("-r") || (mswinFlag && word.startsWith("/r")))
+      {
+        /* This option may be followed by the number of seconds between polls
+        for changed files, after the first search.  The program keeps running
+        and checks files again as they are saved. */
+
+        int delay = -1;           // default value for seconds between polls
+        if (word.length() < 3)    // was there a number after the option?
+          delay = WATCH_DEFAULT;  // no, use our default delay
+        else try                  // try to parse remainder as unsigned integer
+        {
+          delay = Integer.parseInt(word.substring(2));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          delay = -1;             // set result to an illegal value
+        }
+        if ((delay < 0) || (delay > 3600))
+        {
+          System.err.println("Seconds between polls for changes must be from 0 to 3600: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        if ((delay > 0) && (defaults.outputFormat >= FORMAT_SARIF))
+        {
+          System.err.println("Can't watch for changes with SARIF or JUnit output: "
+            + args[i]);           // notify user of our requirement
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        defaults.watchDelay = delay; // zero means don't watch for changes
       }
 
       else if (word.equals("-s") || (mswinFlag && word.equals("/s"))
         || word.equals("-s1") || (mswinFlag && word.equals("/s1")))
       {
-        recurseFlag = true;       // start doing subfolders
+        defaults.recurseFlag = true; // start doing subfolders
       }
       else if (word.equals("-s0") || (mswinFlag && word.equals("/s0")))
-        recurseFlag = false;      // stop doing subfolders
+        defaults.recurseFlag = false; // stop doing subfolders
 
       else if (word.startsWith("-u") || (mswinFlag && word.startsWith("/u")))
       {
@@ -285,75 +734,4611 @@ public class CheckPlainTrim2
           showHelp();             // show help summary
           System.exit(EXIT_FAILURE); // exit application after printing help
         }
-        buttonFont = new Font(SYSTEM_FONT, Font.PLAIN, size); // for big sizes
-//      buttonFont = new Font(SYSTEM_FONT, Font.BOLD, size); // for small sizes
+        buttonSize = size;        // point size for buttons, labels, etc
         fontSize = size;          // use same point size for output text font
       }
-
-      else if (word.startsWith("-w") || (mswinFlag && word.startsWith("/w")))
+
+      else if (word.startsWith("-v") || (mswinFlag && word.startsWith("/v")))
+      {
+        /* This option may be followed by the most findings to report for each
+        file, by line and column.  Files are read until the end, or until this
+        many findings, instead of stopping at the first of each kind. */
+
+        int limit = -1;           // default value for findings per file
+        if (word.length() < 3)    // was there a number after the option?
+          limit = DETAIL_DEFAULT; // no, use our default limit
+        else try                  // try to parse remainder as unsigned integer
+        {
+          limit = Integer.parseInt(word.substring(2));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          limit = -1;             // set result to an illegal value
+        }
+        if ((limit < 0) || (limit > DETAIL_MAXIMUM))
+        {
+          System.err.println("Findings per file must be from 0 to "
+            + DETAIL_MAXIMUM + ": " + args[i]); // notify user of our limits
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        defaults.detailLimit = limit; // zero means verdict only
+      }
+
+      else if (word.startsWith("-w") || (mswinFlag && word.startsWith("/w")))
+      {
+        /* This option is followed by a list of four numbers for the initial
+        window position and size.  All values are accepted, but small heights
+        or widths will later force the minimum packed size for the layout. */
+
+        Pattern pattern = Pattern.compile(
+          "\\s*\\(\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*\\)\\s*");
+        Matcher matcher = pattern.matcher(word.substring(2)); // parse option
+        if (matcher.matches())    // if option has proper syntax
+        {
+          windowLeft = Integer.parseInt(matcher.group(1));
+          windowTop = Integer.parseInt(matcher.group(2));
+          windowWidth = Integer.parseInt(matcher.group(3));
+          windowHeight = Integer.parseInt(matcher.group(4));
+        }
+        else                      // bad syntax or too many digits
+        {
+          System.err.println("Invalid window position or size: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+      }
+
+      else if (word.equals("-x") || (mswinFlag && word.equals("/x")))
+        maximizeFlag = true;      // true if we maximize our main window
+
+      else if (word.equals("-z0") || (mswinFlag && word.equals("/z0")))
+        defaults.sortFlag = false; // names in order given by file system
+      else if (word.equals("-z1") || (mswinFlag && word.equals("/z1")))
+        defaults.sortFlag = true; // sort names in each folder
+
+      else if (word.startsWith("-") || (mswinFlag && word.startsWith("/")))
+      {
+        System.err.println("Option not recognized: " + args[i]);
+        showHelp();               // show help summary
+        System.exit(EXIT_FAILURE); // exit application after printing help
+      }
+
+      else
+      {
+        /* Parameter does not look like an option.  Assume this is a file or
+        folder name. */
+
+        if (servePort > 0)        // file names come from clients, not here
+        {
+          System.err.println("Server can't be given file or folder names: "
+            + args[i]);           // notify user of our requirement
+          showHelp();             // show help summary
+          System.exit(EXIT_FAILURE); // exit application after printing help
+        }
+        if (consoleFlag == false) // is this the first file or folder?
+        {
+          run = new CheckPlainTrim2(defaults); // options so far
+          run.putFormatStart();   // start SARIF or JUnit document
+        }
+        else if (lastName < (i - 1)) // options since the previous name?
+        {
+          run.stopWorkers();      // yes, finish files checked with old options
+          run.setOptions(defaults); // then use the new options
+        }
+        consoleFlag = true;       // don't allow GUI methods to be called
+        lastName = i;             // later options apply to later names
+        run.setScanOptions();     // scanners only read these while checking
+        run.processFileOrFolder(new File(args[i]));
+        if (run.cancelFlag) break; // exit <for> loop if cancel or fatal error
+      }
+    }
+
+    /* If running as a server, wait for requests from clients, until we are
+    stopped.  This never returns. */
+
+    if (servePort > 0)            // was the -a option given?
+      runServer();
+
+    /* If running as a console application, print a summary of what we found
+    and/or changed.  Exit to the system with an integer status. */
+
+    if (consoleFlag)              // was at least one file/folder given?
+    {
+      run.stopWorkers();          // report pending files, stop worker threads
+      run.printSummary();         // what we found and what was changed
+      run.saveCache();            // save results for next time, if wanted
+      if (run.watchDelay > 0)     // keep running and watch for changes?
+        run.watchFiles();         // yes, until the program is stopped
+      System.exit(run.getExitStatus()); // same status as server's clients
+    }
+
+    /* A native executable from GraalVM is built for the console application
+    only.  The graphical interface needs native libraries and configuration
+    that the executable doesn't have. */
+
+    if (System.getProperty("org.graalvm.nativeimage.imagecode") != null)
+    {
+      System.err.println("This native executable needs file or folder names."
+        + "  Use the JAR file for the graphical interface.");
+      System.exit(EXIT_FAILURE);
+    }
+
+    /* There were no file or folder names on the command line.  Open the
+    graphical user interface (GUI).  We don't need to be inside an if-then-else
+    construct here because the console application called System.exit() above.
+    The window is in another class, so that only the GUI loads its classes. */
+
+    CheckPlainTrim2Window.createWindow(); // let the GUI run the application
+
+  } // end of main() method
+
+// ------------------------------------------------------------------------- //
+
+/*
+  addSuffixPattern() method
+
+  Add one regular expression to a combined expression, as an alternative.
+*/
+  static void addSuffixPattern(StringBuffer buffer, String regex)
+  {
+    if (buffer.length() > 0)      // is this not the first alternative?
+      buffer.append('|');
+    buffer.append("(?:");         // group without capturing
+    buffer.append(regex);
+    buffer.append(')');
+  }
+
+
+/*
+  checkDuplicate() method
+
+  Return true if a file has the same contents as a file already checked, in
+  which case we copy the previous result.  Only the first file of each size is
+  remembered without a content hash, because nothing can be a duplicate until
+  a second file with the same size is found.  Then both files are hashed (the
+  first file only once), using only a sample from each end of big files, so
+  that files with different contents are rarely read more than once.  When the
+  samples match, see sameContents().  Hashes that are already known from the
+  cache of previous results aren't computed again.  The tables stop growing
+  after <dedupeLimit> entries, which limits memory, but existing entries are
+  still used.
+*/
+  boolean checkDuplicate(CheckPlainTrim2File job,
+    CheckPlainTrim2Scan scanner) throws IOException
+  {
+    CheckPlainTrim2File first;    // first file found with the same size
+    CheckPlainTrim2File match;    // checked file with the same sample
+    String sizeKey;               // file size as text for hash tables
+
+    sizeKey = String.valueOf(job.fileSize);
+    synchronized (dedupeSizes)    // look up and add in one step
+    {
+      first = (CheckPlainTrim2File) dedupeSizes.get(sizeKey);
+      if (first == null)          // is this the first file with this size?
+      {
+        if (dedupeCount < dedupeLimit) // is there room for another entry?
+        {
+          dedupeSizes.put(sizeKey, job); // remember for later duplicates
+          dedupeCount ++;
+        }
+        return(false);            // nothing to compare, check this file
+      }
+    }
+
+    if (job.contentHash == null)  // not known from cache of previous results?
+    {
+      job.contentHash = scanner.hashFile(job.file, job.fileSize, true);
+      cacheChanged = true;        // save new hash, if file is in cache
+    }
+    match = (CheckPlainTrim2File) dedupeHashes.get(getHashKey(job));
+    if (match == null)            // if no match, maybe first file isn't hashed
+    {
+      synchronized (first)        // hash first file only once, on one thread
+      {
+        if (first.checkedFlag && (first.contentHash == null)
+          && (cancelFlag == false))
+        {
+          first.contentHash = scanner.hashFile(first.file, first.fileSize,
+            true);                // sample from first file
+          cacheChanged = true;    // save new hash, if file is in cache
+          dedupeHashes.put(getHashKey(first), first);
+                                  // already counted as an entry
+        }
+      }
+      match = (CheckPlainTrim2File) dedupeHashes.get(getHashKey(job));
+                                  // try again after hashing first file
+    }
+    if ((match == null) || (sameContents(job, match, scanner) == false))
+      return(false);              // no checked file with same contents
+
+    synchronized (match)          // get complete result from other thread
+    {
+      job.binaryFlag = match.binaryFlag; // same contents, same options
+      job.detailChars = match.detailChars; // arrays are never changed
+      job.detailColumns = match.detailColumns;
+      job.detailLines = match.detailLines;
+      job.foundChar = match.foundChar;
+      job.foundSpace = match.foundSpace; // so same result as before
+      job.moreFlag = match.moreFlag;
+    }
+    job.duplicateFlag = true;     // reported in summary as bytes not checked
+    return(true);
+
+  } // end of checkDuplicate() method
+
+
+/*
+  checkFile() method
+
+  Read and check the contents of one file, using the caller's scanner object
+  for buffers.  This may run on any thread.  The result goes back into the job
+  object, which is later given to reportFile() in the same order as the files
+  were found.  Don't change any of the run's counters here.
+
+  If there is a cache of previous results, and this file has the same size,
+  date, and check options as before, then the previous result is used without
+  reading the file.  The size and date are taken before reading, so a file that
+  changes while we read will be read again next time.  If we are looking for
+  duplicate files, then a file with the same contents as another file is also
+  not checked again.  Duplicates are found before using the cache, so that the
+  summary counts the same duplicates with or without a cache.  The cache keeps
+  content hashes too, so an unchanged file isn't read to find duplicates.
+*/
+  void checkFile(CheckPlainTrim2File job, CheckPlainTrim2Scan scanner)
+  {
+    CheckPlainTrim2File cached;   // previous result for this file, if any
+    String path;                  // name of file, including path
+    CheckPlainTrim2Result result; // what the scanner found in this file
+
+    path = job.file.getPath();    // key for cache of previous results
+    if ((cacheTable != null) || (dedupeLimit > 0) || (sizeLimit > 0)
+      || (watchTable != null))
+    {
+      job.fileSize = job.file.length(); // size before reading
+    }
+    if ((sizeLimit > 0) && (job.fileSize > sizeLimit)) // too big to check?
+    {
+      job.largeFlag = true;       // yes, don't open this file
+      if (watchTable != null)     // compare date later, if watching
+        job.fileTime = job.file.lastModified();
+      return;
+    }
+    if ((cacheTable != null) || (watchTable != null)) // need date of file?
+      job.fileTime = job.file.lastModified(); // date before reading
+    if (cacheTable != null)       // is there a cache of previous results?
+      job.settings = getSettings(); // options that change the result
+    cached = null;                // assume no previous result
+    if ((cacheTable != null) && (detailLimit == 0)) // cache has no positions
+    {
+      cached = (CheckPlainTrim2File) cacheTable.get(path);
+      if ((cached != null) && ((cached.fileSize != job.fileSize)
+        || (cached.fileTime != job.fileTime)
+        || (cached.settings.equals(job.settings) == false)))
+      {
+        cached = null;            // file or options have changed
+      }
+      else if (cached != null)    // same file, so same contents as before
+      {
+        job.contentHash = cached.contentHash; // null if never hashed
+        job.fullHash = cached.fullHash;
+      }
+    }
+
+    try                           // catch I/O errors (file not found, etc)
+    {
+      if ((dedupeLimit > 0) && checkDuplicate(job, scanner))
+      {
+        /* Same contents as a file already checked.  Result has been copied. */
+      }
+      else if (cached != null)    // same file, same options as before?
+      {
+        synchronized (job)        // result may be copied by other threads
+        {
+          job.checkedFlag = (cancelFlag == false); // same as a complete check
+          job.foundChar = cached.foundChar; // so same result as before
+          job.foundSpace = cached.foundSpace;
+        }
+        if (job.checkedFlag && (job.contentHash != null)) // for duplicates?
+          rememberContent(job);   // yes, add to table of content hashes
+      }
+      else                        // we must read and check this file
+      {
+        result = scanner.scanFile(job.file, encodeCharset); // null for bytes
+        synchronized (job)        // result may be copied by other threads
+        {
+          job.binaryFlag = result.binaryFlag; // true if not checked as text
+          job.checkedFlag = (cancelFlag == false); // result is complete
+          job.foundChar = result.foundChar; // first bad character, if any
+          job.foundSpace = result.foundSpace; // true if trailing white space
+          job.detailChars = result.detailChars; // arrays are never changed
+          job.detailColumns = result.detailColumns;
+          job.detailLines = result.detailLines;
+          job.moreFlag = result.moreFlag; // true if findings were dropped
+        }
+        if (job.checkedFlag && (job.contentHash != null)) // for duplicates?
+          rememberContent(job);   // yes, add to table of content hashes
+      }
+      job.abortFlag = cancelFlag; // no result if user cancel or fatal error
+      if ((cacheTable != null) && (job.abortFlag == false)
+        && (job.binaryFlag == false) && (detailLimit == 0))
+      {                           // cache file only has verdicts for text
+        cacheTable.put(path, job); // remember result for next time
+        if (cached == null)       // is this a new result?
+          cacheChanged = true;    // yes, save it later
+      }
+    }
+    catch (IOException ioe)       // file may be locked, invalid, etc
+    {
+      job.errorText = ioe.getMessage(); // report message, keep going
+    }
+  } // end of checkFile() method
+
+
+/*
+  compareNames() method
+
+  Compare two names as if they were the strings <lower + " " + name>, which
+  are the sort keys from sortFileList(), but without creating those strings.
+  Return a negative number, zero, or a positive number, like compareTo().
+*/
+  static int compareNames(String lowerA, String nameA, String lowerB,
+    String nameB)
+  {
+    int a, b;                     // one character from each sort key
+    int i;                        // index variable
+    int lengthA, lengthB;         // length of each sort key
+    int limit;                    // length of shorter sort key
+
+    lengthA = lowerA.length() + 1 + nameA.length();
+    lengthB = lowerB.length() + 1 + nameB.length();
+    limit = Math.min(lengthA, lengthB);
+    for (i = 0; i < limit; i ++)
+    {
+      a = (i < lowerA.length()) ? lowerA.charAt(i) : ((i == lowerA.length())
+        ? ' ' : nameA.charAt(i - lowerA.length() - 1));
+      b = (i < lowerB.length()) ? lowerB.charAt(i) : ((i == lowerB.length())
+        ? ' ' : nameB.charAt(i - lowerB.length() - 1));
+      if (a != b)                 // first difference decides the order
+        return(a - b);
+    }
+    return(lengthA - lengthB);    // shorter key goes first
+  }
+
+
+/*
+  doFlightRunner() method
+
+  This method is called inside a short-lived thread to check exactly one file,
+  when the <flightLimit> option is used.  The scanner is borrowed from the
+  pool, so that buffers are reused even though threads are not.
+*/
+  void doFlightRunner(CheckPlainTrim2File job)
+  {
+    CheckPlainTrim2Scan scanner;  // reusable buffers, one thread at a time
+
+    scanner = getScanner();       // borrow idle scanner from pool
+    if (cancelFlag)               // stop if user cancel or fatal error
+      job.abortFlag = true;       // don't even try to read this file
+    else
+      checkFile(job, scanner);    // read the file and get the result
+
+    scannerPool.add(scanner);     // give scanner back to the pool
+    synchronized (pendingList)    // wake up thread waiting for results
+    {
+      job.doneFlag = true;        // this file is finished
+      pendingList.notifyAll();
+    }
+    synchronized (flightLock)     // release our place for another file
+    {
+      flightCount --;             // one less file in flight
+      flightLock.notifyAll();
+    }
+  } // end of doFlightRunner() method
+
+
+/*
+  doSaverRunner() method
+
+  This method is called inside the server's saver thread, with the -c option,
+  to write the cache file every <delay> milliseconds if results have changed.
+  With a delay of zero, save once and return: this is the shutdown hook that
+  runs when the server is stopped.  The saver thread is a daemon and never ends
+  by itself.
+*/
+  static void doSaverRunner(int delay)
+  {
+    do
+    {
+      if (delay > 0)              // wait before saving?
+      {
+        try { Thread.sleep(delay); }
+        catch (InterruptedException ie) { /* ignore errors */ }
+      }
+      defaults.saveCache();       // only writes if something has changed
+    } while (delay > 0);          // shutdown hook saves only once
+  }
+
+
+/*
+  doWriterRunner() method
+
+  This method is called inside the writer thread, with the -q1 option.  Take
+  all waiting lines from the console queue at once, and write them into the
+  buffer for standard output.  The buffer is only flushed when full, or when
+  flushStandard() asks.  This thread is a daemon and never ends by itself.
+*/
+  static void doWriterRunner()
+  {
+    int i;                        // index variable
+    Object[] lines;               // lines taken from the queue
+
+    while (true)
+    {
+      synchronized (consoleQueue) // only one thread may change the queue
+      {
+        consoleBusy = false;      // previous lines have been written
+        consoleQueue.notifyAll(); // wake up flushStandard(), putStandard()
+        while (consoleQueue.isEmpty())
+        {
+          try { consoleQueue.wait(); } // sleep until there are more lines
+          catch (InterruptedException ie) { /* do nothing */ }
+        }
+        lines = consoleQueue.toArray(); // take all lines, in order
+        consoleQueue.clear();
+        consoleBusy = true;       // flushStandard() must wait for these
+      }
+
+      synchronized (consoleWriter) // same lock as putStandard() and flush
+      {
+        try
+        {
+          for (i = 0; i < lines.length; i ++)
+          {
+            consoleWriter.write((String) lines[i]);
+            consoleWriter.newLine(); // same line separator as println()
+          }
+        }
+        catch (IOException ioe) { /* ignore errors, as System.out does */ }
+      }
+    }
+  } // end of doWriterRunner() method
+
+
+/*
+  doWorkerRunner() method
+
+  This method is called inside each worker thread, which borrows a scanner
+  object from the pool until the thread ends.  Take files from the work list
+  and check them, until stopWorkers() tells us that there is no more work.
+  Files that haven't been started when the user cancels are marked as aborted
+  and not checked.
+*/
+  void doWorkerRunner()
+  {
+    CheckPlainTrim2File job;      // one file taken from the work list
+    CheckPlainTrim2Scan scanner;  // reusable buffers for this thread only
+
+    scanner = getScanner();       // borrow idle scanner from pool
+    while (true)
+    {
+      synchronized (workList)     // only one thread may change the list
+      {
+        while (workList.isEmpty() && (workStopFlag == false))
+        {
+          try { workList.wait(); } // sleep until there is more work
+          catch (InterruptedException ie) { /* do nothing */ }
+        }
+        if (workList.isEmpty())   // stopping and nothing left to do?
+          break;                  // yes, exit <while> loop, end this thread
+        job = (CheckPlainTrim2File) workList.removeFirst();
+      }
+
+      if (cancelFlag)             // stop if user cancel or fatal error
+        job.abortFlag = true;     // don't even try to read this file
+      else
+        checkFile(job, scanner);  // read the file and get the result
+
+      synchronized (pendingList)  // wake up thread waiting for results
+      {
+        job.doneFlag = true;      // this file is finished
+        pendingList.notifyAll();
+      }
+    }
+    scannerPool.add(scanner);     // give scanner back to the pool
+  } // end of doWorkerRunner() method
+
+
+/*
+  findCharset() method
+
+  Look up a character set (text encoding) by name, once before we start
+  checking files, so that a bad name fails early instead of once per file.
+  Return null for our special name <RAW_ENCODING> or for names that Java
+  doesn't know.  The local default is whatever a FileReader would use.
+*/
+  static Charset findCharset(String name)
+  {
+    String realName;              // name that Java will recognize
+
+    if (name.equals(RAW_ENCODING)) // use raw bytes as characters?
+      return(null);               // yes, there is no character set
+    else if (name.equals(LOCAL_ENCODING)) // use local system's encoding?
+      realName = (new InputStreamReader(new ByteArrayInputStream(new byte[0])))
+        .getEncoding();           // same as FileReader, even in Java 1.4
+    else                          // must be some named character set encoding
+      realName = name;
+
+    try { return(Charset.forName(realName)); } // may throw exceptions
+    catch (IllegalArgumentException iae) { return(null); } // bad or unknown
+  }
+
+
+/*
+  findFolders() method
+
+  Return an array with true for each name in a folder that is a subfolder, and
+  false for files and anything else.  This is the only isDirectory() call for
+  each name (a separate system call, or "stat").
+*/
+  static boolean[] findFolders(File folder, String[] names)
+  {
+    int i;                        // index variable
+    boolean[] result;             // true for each subfolder
+
+    result = new boolean[names.length];
+    for (i = 0; i < names.length; i ++)
+      result[i] = new File(folder, names[i]).isDirectory();
+    return(result);
+  }
+
+
+/*
+  findIgnoreParent() method
+
+  Return the ignore rules that apply to a folder from the folders above it.
+  For a new subfolder found while watching, these are the rules already found
+  for its parent.  Otherwise, we read the ".gitignore" files in each folder
+  from the top of the git working tree down to the given folder.  Outside of a
+  working tree, only the given folder and its subfolders have rules.
+*/
+  CheckPlainTrim2Ignore findIgnoreParent(File folder)
+  {
+    Vector above;                 // folders from given folder up to top
+    int i;                        // index variable
+    Object known;                 // rules already found for parent folder
+    File parent;                  // folder that contains the given folder
+    File[] roots;                 // working tree and git folder, or null
+    CheckPlainTrim2Ignore rules;  // rules from folders above given folder
+
+    parent = folder.getParentFile();
+    if (parent == null)           // nothing above the top of a file system
+      return(null);
+    known = ignoreFolders.get(parent.getPath());
+    if (known != null)            // have we searched the parent folder?
+      return((known instanceof CheckPlainTrim2Ignore)
+        ? (CheckPlainTrim2Ignore) known : null);
+    roots = CheckPlainTrim2Index.findRoot(folder);
+    if ((roots == null) || folder.equals(roots[0])) // top of working tree?
+      return(null);               // yes, no rules from above
+    above = new Vector();         // folders between top and given folder
+    while ((parent != null) && (parent.equals(roots[0]) == false))
+    {
+      above.add(parent);
+      parent = parent.getParentFile();
+    }
+    above.add(roots[0]);          // top of working tree has rules too
+    rules = null;                 // no rules found yet
+    for (i = above.size() - 1; i >= 0; i --) // from top down to parent
+      rules = loadIgnore((File) above.get(i), null, rules);
+    return(rules);
+  }
+
+
+/*
+  flushConsole() method
+
+  Write all buffered lines of the console report for this run: to the client
+  for a request to the server, or else to standard output; see flushStandard().
+*/
+  void flushConsole()
+  {
+    if (clientWriter == null)     // is this report for standard output?
+    {
+      flushStandard();            // yes, shared by all runs
+      return;
+    }
+    try { clientWriter.flush(); }
+    catch (IOException ioe)       // client has gone away
+    {
+      cancelFlag = true;          // tell other threads that all work stops now
+      scanOptions.cancelFlag = true; // including scanners inside a file
+    }
+  }
+
+
+/*
+  flushOrdered() method
+
+  Report finished files and queued messages from the front of the pending
+  list, in the same order as they were found.  Return when the list has no
+  more than <limit> items and the next file is still being checked.  A limit
+  of zero waits for all files.  This is only called by the thread that
+  searches folders, which is also the only thread that changes the run's
+  counters, so the counters need no locks and can't be slowed by contention.
+*/
+  void flushOrdered(int limit)
+  {
+    Object head;                  // first item in pending list
+    CheckPlainTrim2File job;      // <head> if a file to be reported
+
+    while (true)
+    {
+      if (cancelFlag)             // stop if user cancel or fatal error
+      {
+        /* Files that no worker has started will never be finished.  Mark
+        them as aborted, so that we don't wait for them below. */
+
+        synchronized (workList)
+        {
+          while (workList.isEmpty() == false)
+          {
+            job = (CheckPlainTrim2File) workList.removeFirst();
+            job.abortFlag = job.doneFlag = true;
+          }
+        }
+      }
+
+      synchronized (pendingList)  // only one thread may change the list
+      {
+        if (pendingList.isEmpty()) // is there anything waiting to be shown?
+          return;                 // no, then we are done
+        head = pendingList.getFirst(); // look at first item, don't remove yet
+        if ((head instanceof CheckPlainTrim2File)
+          && (((CheckPlainTrim2File) head).doneFlag == false))
+        {
+          if (pendingList.size() <= limit) // can we continue searching?
+            return;               // yes, look at this file later
+          try { pendingList.wait(TIMER_DELAY); } // wait for workers
+          catch (InterruptedException ie) { /* do nothing */ }
+          continue;               // check cancel flag and first item again
+        }
+        pendingList.removeFirst(); // remove item that we are about to show
+      }
+
+      if (head instanceof CheckPlainTrim2File) // is this a checked file?
+      {
+        job = (CheckPlainTrim2File) head;
+        if (job.abortFlag)        // was this file cancelled before finishing?
+        {
+          synchronized (pendingList) { pendingList.clear(); }
+          return;                 // show nothing after a cancel
+        }
+        reportFile(job);          // say what we found about this file
+      }
+      else if (head instanceof String[]) // message for <showOtherFlag>
+        putOther(((String[]) head)[0]);
+      else                        // must be a message string
+        putOutput((String) head);
+    }
+  } // end of flushOrdered() method
+
+
+/*
+  flushStandard() method
+
+  Write all buffered lines of the console report to standard output.  This is
+  called after the summary, before help text, and after a cancel, so that
+  the report is complete before the program exits or waits.  If there is a
+  writer thread, first wait until it has written all lines given to it.
+*/
+  static void flushStandard()
+  {
+    if (consoleQueue != null)     // is there a writer thread?
+    {
+      synchronized (consoleQueue) // wait for writer to empty the queue
+      {
+        while (consoleBusy || (consoleQueue.isEmpty() == false))
+        {
+          try { consoleQueue.wait(); }
+          catch (InterruptedException ie) { /* do nothing */ }
+        }
+      }
+    }
+    synchronized (consoleWriter)  // writer thread may be using the buffer
+    {
+      try { consoleWriter.flush(); }
+      catch (IOException ioe) { /* ignore errors, as System.out does */ }
+    }
+  }
+
+
+/*
+  forgetFile() method
+
+  Subtract a file's previous result from the running totals, before the file
+  is checked again or after it has been deleted.  This undoes what reportFile()
+  added to the totals for the same result.
+*/
+  void forgetFile(CheckPlainTrim2File job)
+  {
+    synchronized (job)            // contents may no longer match the result
+    {
+      job.checkedFlag = false;    // so don't hash this file for duplicates
+    }
+    totalFiles --;                // file will be counted again, if it exists
+    if (job.errorText != null)    // was there an I/O error?
+      totalError --;
+    else if (job.largeFlag)       // previous file was too big to check
+      totalLarge --;
+    else if (job.binaryFlag)      // previous file was binary data
+      totalBinary --;
+    else if ((job.foundChar >= 0) || job.foundSpace)
+      totalError --;              // previous result was an error
+    else
+      totalCorrect --;            // previous result was correct
+    if (job.duplicateFlag)        // was the result copied from another file?
+    {
+      totalDuplicate --;          // not a duplicate anymore
+      totalSaved -= job.fileSize;
+    }
+  }
+
+
+/*
+  forgetFolder() method
+
+  Stop watching a folder that has been deleted, or that is now ignored, and
+  subtract it from the running totals, the same as forgetFile() does for files.
+  If the folder is found again later, it is searched as a new subfolder and
+  counted again.
+*/
+  void forgetFolder(String folderPath)
+  {
+    watchFolders.remove(folderPath); // don't list this folder again
+    ignoreDates.remove(folderPath);
+    ignoreFolders.remove(folderPath);
+    totalFolders --;              // was counted when first searched
+  }
+
+
+/*
+  formatJson() method
+
+  Return a string as a quoted JSON string.  Characters outside printable
+  US-ASCII are written as escapes, so the report is plain text no matter what
+  character set is used for standard output.
+*/
+  static String formatJson(String text)
+  {
+    StringBuffer buffer;          // faster than String for multiple appends
+    char ch;                      // one character from caller's string
+    int i;                        // index variable
+    String hex;                   // hexadecimal digits for one character
+
+    buffer = new StringBuffer(text.length() + 2);
+    buffer.append('"');
+    for (i = 0; i < text.length(); i ++)
+    {
+      ch = text.charAt(i);
+      if ((ch == '"') || (ch == '\\')) // quote and backslash need escapes
+      {
+        buffer.append('\\');
+        buffer.append(ch);
+      }
+      else if ((ch >= 0x20) && (ch <= 0x7E)) // printable US-ASCII text?
+        buffer.append(ch);
+      else                        // everything else as Unicode escape
+      {
+        hex = Integer.toHexString(ch);
+        buffer.append("\\u0000".substring(0, (6 - hex.length())));
+        buffer.append(hex);
+      }
+    }
+    buffer.append('"');
+    return(buffer.toString());
+  }
+
+
+/*
+  formatResult() method
+
+  Return the report line for a file with errors: the file name, followed by
+  the first bad character and/or a note about trailing white space.
+*/
+  static String formatResult(String name, int foundChar, boolean foundSpace)
+  {
+    return(name
+      + ((foundChar >= 0) ? (" - invalid character, 0x"
+        + Integer.toHexString(foundChar).toUpperCase()) : "")
+      + (foundSpace ? " - trailing spaces or tabs" : ""));
+  }
+
+
+/*
+  formatSummary() method
+
+  Return the summary of what we found, as lines of text.  See printSummary().
+*/
+  String[] formatSummary()
+  {
+    Vector lines;                 // summary lines, in order
+
+    lines = new Vector();
+    lines.add("Found " + formatComma.format(totalFiles)
+      + ((totalFiles == 1) ? " file" : " files") + " in "
+      + formatComma.format(totalFolders)
+      + ((totalFolders == 1) ? " folder" : " folders") + ": "
+      + formatComma.format(totalCorrect)
+      + ((totalCorrect == 1) ? " was" : " were") + " correct and "
+      + formatComma.format(totalError) + " had errors.");
+    if (dedupeLimit > 0)          // were we looking for duplicate files?
+      lines.add("Found " + formatComma.format(totalDuplicate)
+        + ((totalDuplicate == 1) ? " duplicate file" : " duplicate files")
+        + ", not checking " + formatComma.format(totalSaved) + " bytes.");
+    if (sniffFlag || (sizeLimit > 0)) // were we skipping some files?
+      lines.add("Skipped "
+        + (sniffFlag ? (formatComma.format(totalBinary)
+          + ((totalBinary == 1) ? " binary file" : " binary files")) : "")
+        + ((sniffFlag && (sizeLimit > 0)) ? " and " : "")
+        + ((sizeLimit > 0) ? (formatComma.format(totalLarge)
+          + ((totalLarge == 1) ? " file" : " files") + " larger than "
+          + formatComma.format(sizeLimit >> 20) + " MB") : "") + ".");
+    return((String[]) lines.toArray(new String[0]));
+  }
+
+
+/*
+  formatXml() method
+
+  Return a string as XML text, which is also safe inside attribute values.
+  Characters outside printable US-ASCII are written as numeric references.
+  Control characters aren't allowed in XML 1.0, even as references, and are
+  replaced with question marks.
+*/
+  static String formatXml(String text)
+  {
+    StringBuffer buffer;          // faster than String for multiple appends
+    char ch;                      // one character from caller's string
+    int i;                        // index variable
+
+    buffer = new StringBuffer(text.length());
+    for (i = 0; i < text.length(); i ++)
+    {
+      ch = text.charAt(i);
+      if (ch == '&') buffer.append("&amp;");
+      else if (ch == '<') buffer.append("&lt;");
+      else if (ch == '>') buffer.append("&gt;");
+      else if (ch == '"') buffer.append("&quot;");
+      else if ((ch >= 0x20) && (ch <= 0x7E)) // printable US-ASCII text?
+        buffer.append(ch);
+      else if ((ch < 0x20) || ((ch >= 0x7F) && (ch <= 0x9F))
+        || (ch == 0xFFFE) || (ch == 0xFFFF))
+      {
+        buffer.append('?');       // not allowed in XML 1.0
+      }
+      else if ((ch >= 0xD800) && (ch <= 0xDBFF) && ((i + 1) < text.length())
+        && (text.charAt(i + 1) >= 0xDC00) && (text.charAt(i + 1) <= 0xDFFF))
+      {
+        buffer.append("&#" + ((((ch - 0xD800) << 10) | (text.charAt(i + 1)
+          - 0xDC00)) + 0x10000) + ";"); // one reference for both halves
+        i ++;
+      }
+      else if ((ch >= 0xD800) && (ch <= 0xDFFF)) // unpaired surrogate?
+        buffer.append('?');
+      else
+        buffer.append("&#" + ((int) ch) + ";");
+    }
+    return(buffer.toString());
+  }
+
+
+/*
+  getExitStatus() method
+
+  Return the exit status for the console application, or for a request to the
+  server, from the totals: failure if there were any errors, success if there
+  were any good files, and unknown if there were no files at all.
+*/
+  int getExitStatus()
+  {
+    if (totalError > 0)           // were there any errors?
+      return(EXIT_FAILURE);
+    else if (totalCorrect > 0)    // were there any good files?
+      return(EXIT_SUCCESS);
+    else                          // if there were no files at all
+      return(EXIT_UNKNOWN);
+  }
+
+
+/*
+  getGitKey() method
+
+  Return a sort key for the relative path of a file from a git index, in the
+  same order as sortNames() when searching: in each folder, files come before
+  subfolders, then names in lowercase, then in the original form.  A null
+  character ends each part, since it sorts before any character in a name.
+*/
+  static String getGitKey(String path)
+  {
+    StringBuffer buffer;          // faster than String for multiple appends
+    int end;                      // index of "/" after one folder name
+    String name;                  // one folder or file name
+    int start;                    // index of first character in name
+
+    buffer = new StringBuffer();
+    start = 0;
+    while ((end = path.indexOf('/', start)) >= 0) // for each folder name
+    {
+      name = path.substring(start, end);
+      buffer.append('1');         // subfolders after files
+      buffer.append(name.toLowerCase());
+      buffer.append('\0');
+      buffer.append(name);
+      buffer.append('\0');
+      start = end + 1;
+    }
+    name = path.substring(start); // file name
+    buffer.append('0');           // files before subfolders
+    buffer.append(name.toLowerCase());
+    buffer.append('\0');
+    buffer.append(name);
+    return(buffer.toString());
+  }
+
+
+/*
+  getIgnoreState() method
+
+  Return the size and date of each ignore file in a folder, as text, so that
+  watchIgnore() can tell when an ignore file is created, changed, or deleted.
+  Missing files have zero for both.
+*/
+  static String getIgnoreState(File folder)
+  {
+    StringBuffer buffer;          // faster than String for multiple appends
+    File file;                    // one ignore file in folder
+    int which;                    // index into list of ignore file names
+
+    buffer = new StringBuffer();
+    for (which = 0; which < CheckPlainTrim2Ignore.IGNORE_NAMES.length;
+      which ++)
+    {
+      file = new File(folder, CheckPlainTrim2Ignore.IGNORE_NAMES[which]);
+      buffer.append(file.length());
+      buffer.append(' ');
+      buffer.append(file.lastModified());
+      buffer.append(' ');
+    }
+    return(buffer.toString());
+  }
+
+
+/*
+  getHashKey() method
+
+  Return the key for a file in the table of content hashes: the size and the
+  first half of the sample hash, as text.  Text keys avoid creating a Long
+  object for each lookup, which Java 1.4 can't share.
+*/
+  static String getHashKey(CheckPlainTrim2File job)
+  {
+    return(job.fileSize + ":" + Long.toHexString(job.contentHash[0]));
+  }
+
+
+/*
+  getScanner() method
+
+  Borrow an idle scanner object (and its buffers) from the pool, or create a
+  new one, and give it this run's settings.  The pool is shared by all runs,
+  so that buffers and decoders stay warm between runs, as in the server.  The
+  caller gives the scanner back to <scannerPool> when done.
+*/
+  CheckPlainTrim2Scan getScanner()
+  {
+    CheckPlainTrim2Scan scanner;  // reusable buffers, one thread at a time
+
+    synchronized (scannerPool)    // only one thread may change the pool
+    {
+      if (scannerPool.isEmpty())  // are there any idle scanners?
+        return(new CheckPlainTrim2Scan(scanOptions)); // no, allocate one
+      scanner = (CheckPlainTrim2Scan) scannerPool.remove(scannerPool.size()
+        - 1);                     // take most recently used scanner
+    }
+    scanner.options = scanOptions; // settings for this run
+    return(scanner);
+  }
+
+
+/*
+  getSettings() method
+
+  Return a short description of the options that change the result when a file
+  is checked: the character set, and whether we look for plain and/or trimmed
+  text.  Results in the cache are only used with the same settings.
+*/
+  String getSettings()
+  {
+    return(((encodeCharset == null) ? RAW_ENCODING : encodeCharset.name())
+      + (plainFlag ? " plain" : "") + (sniffFlag ? " sniff" : "")
+      + (trimFlag ? " trim" : ""));
+  }
+
+
+/*
+  globToRegex() method
+
+  Convert a file name with wild cards into a regular expression.  "*" is any
+  number of characters, "?" is one character, and "[...]" is a set of
+  characters, with "[!...]" for characters not in the set.  All other
+  characters are quoted, so that they match only themselves.
+
+  For a relative path (<pathFlag> is true), as in ".gitignore" files, "*" and
+  "?" don't match "/", "**" matches any number of subfolders, and a backslash
+  quotes the next character.
+*/
+  static String globToRegex(String glob, boolean pathFlag)
+  {
+    StringBuffer buffer;          // faster than String for multiple appends
+    char ch;                      // one character from input string
+    int end;                      // index of "]" at end of set, if any
+    int i;                        // index variable
+
+    buffer = new StringBuffer();  // allocate empty string buffer for result
+    for (i = 0; i < glob.length(); i ++)
+    {
+      ch = glob.charAt(i);
+      if (pathFlag && glob.startsWith("**/", i)) // zero or more subfolders
+      {
+        buffer.append("(?:.*/)?");
+        i += 2;                   // skip over "*/" too
+      }
+      else if (pathFlag && glob.startsWith("**", i)) // anything at all
+      {
+        buffer.append(".*");
+        i ++;                     // skip over second "*" too
+      }
+      else if (ch == '*')         // any number of characters
+        buffer.append(pathFlag ? "[^/]*" : ".*");
+      else if (ch == '?')         // exactly one character
+        buffer.append(pathFlag ? "[^/]" : ".");
+      else if (pathFlag && (ch == '\\') && ((i + 1) < glob.length()))
+      {
+        buffer.append('\\');     // quote next character, whatever it is
+        buffer.append(glob.charAt(++ i));
+      }
+      else if ((ch == '[') && ((end = glob.indexOf(']', (i + 2))) > i))
+      {
+        buffer.append('[');       // set of characters, copied as is
+        i ++;                     // first character inside set
+        if (glob.charAt(i) == '!') // negated set?
+        {
+          buffer.append('^');
+          i ++;
+        }
+        for ( ; i < end; i ++)    // quote backslashes, keep ranges
+        {
+          if ((glob.charAt(i) == '\\') || (glob.charAt(i) == '['))
+            buffer.append('\\');
+          buffer.append(glob.charAt(i));
+        }
+        buffer.append(']');       // <i> is now at end of set
+      }
+      else if (Character.isLetterOrDigit(ch)) // ordinary characters
+        buffer.append(ch);
+      else                        // quote everything else to be safe
+      {
+        buffer.append('\\');
+        buffer.append(ch);
+      }
+    }
+    return(buffer.toString());
+  }
+
+
+/*
+  hasCorrectSuffix() method
+
+  Return true if a given string (file name) has an acceptable suffix (file type
+  or file name extension), and false otherwise.  Excluded names are never
+  accepted.  If the list has only excluded names, then all other names are
+  accepted.  The usual file types (".java", ".txt") are found with one lookup
+  in a hash table, no matter how long the list is.
+*/
+  static boolean hasCorrectSuffix(String input)
+  {
+    int dot;                      // index of last period in file name
+    int i;                        // index variable
+    String lower;                 // caller's input converted to lowercase
+
+    if ((suffixFlag == false) || (suffixCount == 0)) // is there a list?
+      return(true);               // no, then all file types are allowed
+    lower = input.toLowerCase();  // compare file types in lowercase
+    if ((suffixExclude != null) && suffixExclude.matcher(lower).matches())
+      return(false);              // excluded, no matter what else matches
+    if (suffixIncludes == false)  // are there only excluded names?
+      return(true);               // yes, then accept everything else
+    dot = lower.lastIndexOf('.'); // find file name extension, if any
+    if ((dot >= 0) && suffixTable.containsKey(lower.substring(dot)))
+      return(true);               // common case, found by extension
+    for (i = 0; i < suffixList.length; i ++) // for each other file type
+      if (lower.endsWith(suffixList[i])) // does input match this file type?
+        return(true);             // yes, then accept this file name
+    if ((suffixGlobs != null) && suffixGlobs.matcher(lower).matches())
+      return(true);               // matches a name with wildcards
+    return(false);                // no, did not match any file type
+  }
+
+
+/*
+  isExcludedFolder() method
+
+  Return true if a subfolder name is in the list of file types as a folder to
+  skip (ending with "/"), and false otherwise.  We don't search such folders,
+  so nothing inside them is ever listed.
+*/
+  static boolean isExcludedFolder(String name)
+  {
+    return(suffixFlag && (suffixFolders != null)
+      && suffixFolders.matcher(name.toLowerCase()).matches());
+  }
+
+
+/*
+  isExcludedPath() method
+
+  Return true if any subfolder name in a relative path (with "/" between
+  names) is a folder to skip.  Used for files found in a git index, where we
+  don't search folder by folder.
+*/
+  static boolean isExcludedPath(String path)
+  {
+    int end;                      // index of "/" after one name, or length
+    int start;                    // index of first character in one name
+
+    if ((suffixFlag == false) || (suffixFolders == null)
+      || (path.length() == 0))
+    {
+      return(false);              // nothing to skip, or caller's folder
+    }
+    start = 0;                    // start with first name in path
+    while (start <= path.length())
+    {
+      end = path.indexOf('/', start); // find end of this name
+      if (end < 0) end = path.length();
+      if (isExcludedFolder(path.substring(start, end)))
+        return(true);             // this folder and everything below it
+      start = end + 1;            // skip over "/" to next name
+    }
+    return(false);                // no folder in path should be skipped
+  }
+
+
+/*
+  isGlob() method
+
+  Return true if an entry in the list of file types has wild cards.
+*/
+  static boolean isGlob(String word)
+  {
+    return((word.indexOf('*') >= 0) || (word.indexOf('?') >= 0)
+      || (word.indexOf('[') >= 0));
+  }
+
+
+/*
+  isIgnored() method
+
+  Return true if a file or subfolder in a folder is matched by the ignore
+  rules for that folder, and false otherwise.  The ".git" folder is always
+  ignored, as git does, even when hidden files are shown.
+*/
+  static boolean isIgnored(CheckPlainTrim2Ignore rules, String folderPath,
+    String name, boolean folderFlag)
+  {
+    if (folderFlag && name.equals(".git")) // git's own folder?
+      return(true);
+    return((rules != null) && rules.isIgnored(folderPath, name, folderFlag));
+  }
+
+
+/*
+  isParallel() method
+
+  Return true if files are checked on other threads, either worker threads or
+  per-file threads, and false if files are checked by the calling thread.
+*/
+  boolean isParallel()
+  {
+    return((flightLimit > 0) || (threadCount > 1));
+  }
+
+
+/*
+  isSuffixDelimiter() method
+
+  Return true if a given character is a delimiter for the parseSuffixList()
+  method, and false otherwise.
+*/
+  static boolean isSuffixDelimiter(char ch)
+  {
+    return((ch == ' ') || (ch == '+') || (ch == ',') || (ch == ':')
+      || (ch == ';') || (ch == '|'));
+  }
+
+
+/*
+  listFolder() method
+
+  Return the names in a folder, in whatever order the file system gives them.
+  File.list() returns only strings, and uses much less memory than listFiles()
+  for folders with millions of names, because no File objects are created.
+  Return an empty array for a protected folder, where File.list() gives null.
+*/
+  static String[] listFolder(File folder)
+  {
+    String[] result;              // names from file system
+
+    result = folder.list();       // no filter, no File objects
+    if (result == null)           // protected or deleted folder?
+      result = new String[0];     // yes, replace with an empty array
+    return(result);
+  }
+
+
+/*
+  loadCache() method
+
+  Read previous results from the cache file, if the file exists.  The format is
+  binary and compact: a header, a table of check settings, then one entry for
+  each file in sorted order.  Each file path is stored as the number of leading
+  characters shared with the previous path, plus the remaining characters.
+  Content hashes for duplicate files are stored after the result, if known.  A
+  missing file is not an error.  A damaged file is ignored with a warning, and
+  will be replaced when we save.  The table is kept in order of use, so that
+  the server can drop the least recently used results; see
+  CheckPlainTrim2Cache.
+*/
+  static void loadCache()
+  {
+    int count;                    // number of entries in cache file
+    CheckPlainTrim2File entry;    // one previous result from cache file
+    int i;                        // index variable
+    DataInputStream input;        // input stream for cache file
+    int k;                        // number of content hashes for entry
+    String path;                  // file path for current entry
+    String previous;              // file path from previous entry
+    String[] settingList;         // table of check settings, by index
+
+    cacheTable = Collections.synchronizedMap(new CheckPlainTrim2Cache());
+                                  // start with an empty cache
+    if (cacheFile.exists() == false) // is there a cache from a previous run?
+      return;                     // no, first run with this cache file
+
+    try                           // catch I/O errors and damaged files
+    {
+      input = new DataInputStream(new BufferedInputStream(new
+        FileInputStream(cacheFile)));
+      try                         // always close file, even after errors
+      {
+        if ((input.readInt() != CACHE_MAGIC)
+          || (input.readInt() != CACHE_VERSION))
+        {
+          throw new IOException("not a cache file or wrong version");
+        }
+        settingList = new String[input.readInt()]; // check settings
+        for (i = 0; i < settingList.length; i ++)
+          settingList[i] = input.readUTF();
+
+        count = input.readInt();  // number of files in cache
+        previous = "";            // first path shares nothing
+        for (i = 0; i < count; i ++)
+        {
+          path = previous.substring(0, input.readUnsignedShort())
+            + input.readUTF();    // shared prefix plus remaining characters
+          entry = new CheckPlainTrim2File(new File(path));
+          entry.fileSize = input.readLong();
+          entry.fileTime = input.readLong();
+          entry.settings = settingList[input.readUnsignedShort()];
+          entry.foundChar = input.readInt();
+          entry.foundSpace = input.readBoolean();
+          k = input.readUnsignedByte(); // number of content hashes
+          if (k > 0)              // was a sample from the file hashed?
+            entry.contentHash = new long[] {input.readLong(),
+              input.readLong()};
+          if (k > 1)              // were all contents hashed?
+            entry.fullHash = new long[] {input.readLong(), input.readLong()};
+          cacheTable.put(path, entry);
+          previous = path;        // next path is compared to this one
+        }
+      }
+      finally
+      {
+        input.close();            // close cache file
+      }
+    }
+    catch (EOFException eofe)     // file is truncated
+    {
+      System.err.println("Ignoring cache file " + cacheFile.getPath()
+        + ": unexpected end-of-file");
+      cacheTable.clear();         // don't trust anything from this file
+      cacheChanged = true;        // replace damaged file when we save
+    }
+    catch (IOException ioe)       // file may be locked, invalid, etc
+    {
+      System.err.println("Ignoring cache file " + cacheFile.getPath() + ": "
+        + ioe.getMessage());
+      cacheTable.clear();         // don't trust anything from this file
+      cacheChanged = true;        // replace damaged file when we save
+    }
+    catch (RuntimeException re)   // bad indexes in a damaged file
+    {
+      System.err.println("Ignoring cache file " + cacheFile.getPath() + ": "
+        + re);
+      cacheTable.clear();         // don't trust anything from this file
+      cacheChanged = true;        // replace damaged file when we save
+    }
+  } // end of loadCache() method
+
+
+/*
+  loadIgnore() method
+
+  Read the ignore files (".gitignore" and ".ignore") in one folder, and return
+  the rules for that folder, which include the rules from <parent> for folders
+  above.  If the folder has no ignore files, <parent> is returned, so folders
+  without ignore files cost nothing.  The caller's list of names in the folder
+  is used to find ignore files without asking the file system, or is null to
+  look for each ignore file by name.
+*/
+  CheckPlainTrim2Ignore loadIgnore(File folder, String[] contents,
+    CheckPlainTrim2Ignore parent)
+  {
+    File file;                    // one ignore file in folder
+    int i;                        // index variable
+    CheckPlainTrim2Ignore rules;  // new rules for this folder, or null
+    int which;                    // index into list of ignore file names
+
+    rules = null;                 // no ignore files found yet
+    for (which = 0; which < CheckPlainTrim2Ignore.IGNORE_NAMES.length;
+      which ++)                   // in order, later files win
+    {
+      file = null;                // assume that this ignore file is missing
+      if (contents == null)       // ask file system for each name?
+      {
+        file = new File(folder, CheckPlainTrim2Ignore.IGNORE_NAMES[which]);
+        if (file.isFile() == false)
+          file = null;
+      }
+      else                        // look in caller's list of names
+      {
+        for (i = 0; i < contents.length; i ++)
+          if (CheckPlainTrim2Ignore.IGNORE_NAMES[which].equals(contents[i]))
+          {
+            file = new File(folder, contents[i]);
+            break;
+          }
+      }
+      if (file == null)           // no such ignore file in this folder
+        continue;
+      if (rules == null)          // first ignore file in this folder?
+        rules = new CheckPlainTrim2Ignore(folder.getPath(), parent);
+      try { rules.readFile(file); }
+      catch (IOException ioe)     // ignore file can't be read, keep going
+      {
+        putOrderedOther(file.getName() + " - can't read ignore file: "
+          + ioe.getMessage());
+      }
+    }
+    return(((rules == null) || (rules.count == 0)) ? parent : rules);
+  }
+
+
+/*
+  parseSuffixList() method
+
+  Given a string with a list of file types (file name extensions) separated by
+  delimiters (i.e., spaces), parse this into lowercase tables for matching.
+  Each entry is one of the following:
+
+    .txt        file type: names ending with this suffix (most common)
+    *.min.js    wild cards: "*" any characters, "?" one character, and
+                "[abc]" or "[!abc]" for a set of characters, whole name
+    !*.bak      exclude: don't check names that match (suffix or wild cards)
+    target/     folder to skip: don't search subfolders with this name
+
+  Simple extensions go into a hash table.  Other suffixes are kept in a short
+  array.  Entries with wild cards, excludes, and folders are each combined into
+  one regular expression, so that a name is compared once, not once for each
+  entry.
+*/
+  static void parseSuffixList(String input)
+  {
+    StringBuffer buffer;          // faster than String for multiple appends
+    char ch;                      // one character from input string
+    StringBuffer excludes;        // regular expression for excluded names
+    StringBuffer folders;         // regular expression for skipped folders
+    StringBuffer globs;           // regular expression for wild cards
+    int i;                        // index variable
+    int length;                   // size of input string in characters
+    Vector list;                  // temporary vector of file types
+    String lower;                 // caller's input converted to lowercase
+    String word;                  // one entry from list
+
+    lower = input.toLowerCase();  // we want all file types in lowercase
+    length = lower.length();      // get size of input string in characters
+
+    buffer = new StringBuffer();  // allocate empty string buffer for result
+    excludes = new StringBuffer(); // no excluded names yet
+    folders = new StringBuffer(); // no skipped folders yet
+    globs = new StringBuffer();   // no wild cards yet
+    i = 0;                        // start with first input character
+    list = new Vector();          // start with an empty vector of file types
+    suffixCount = 0;              // no entries found yet
+    suffixTable = new Hashtable(); // no simple extensions yet
+    while (i < length)            // while there are more characters to do
+    {
+      while ((i < length) && isSuffixDelimiter(ch = lower.charAt(i)))
+        i ++;                     // ignore leading spaces (delimiters)
+      buffer.setLength(0);        // empty any previous contents of buffer
+      while ((i < length) && ! isSuffixDelimiter(ch = lower.charAt(i)))
+      {
+        buffer.append(ch);        // copy one character to buffer
+        i ++;                     // this character has been consumed
+      }
+      if (buffer.length() == 0)   // did we find anything between spaces?
+        continue;                 // no, must be the end of the input
+      word = buffer.toString();   // one entry from list
+      suffixCount ++;             // count all kinds of entries
+
+      if (word.endsWith("/") && (word.length() > 1)) // folder to skip?
+      {
+        word = word.substring((word.startsWith("!") ? 1 : 0),
+          (word.length() - 1));   // "!target/" means the same as "target/"
+        addSuffixPattern(folders, globToRegex(word, false));
+      }
+      else if (word.startsWith("!") && (word.length() > 1)) // exclude?
+      {
+        word = word.substring(1); // remove "!" for matching
+        if (isGlob(word))         // whole name with wild cards?
+          addSuffixPattern(excludes, globToRegex(word, false));
+        else                      // names ending with this suffix
+          addSuffixPattern(excludes, (".*" + globToRegex(word, false)));
+      }
+      else if (isGlob(word))      // wanted names with wild cards?
+        addSuffixPattern(globs, globToRegex(word, false));
+      else if (word.startsWith(".") && (word.indexOf('.', 1) < 0))
+        suffixTable.put(word, word); // simple extension like ".txt"
+      else                        // any other suffix, compared as before
+        list.add(word);
+    }
+    suffixList = (String[]) list.toArray(new String[0]); // vector to array
+    suffixExclude = (excludes.length() > 0) ? Pattern.compile(
+      excludes.toString(), Pattern.DOTALL) : null;
+    suffixFolders = (folders.length() > 0) ? Pattern.compile(
+      folders.toString(), Pattern.DOTALL) : null;
+    suffixGlobs = (globs.length() > 0) ? Pattern.compile(globs.toString(),
+      Pattern.DOTALL) : null;
+    suffixIncludes = (suffixList.length > 0) || (suffixTable.size() > 0)
+      || (suffixGlobs != null);   // is anything wanted, not just excluded?
+
+  } // end of parseSuffixList() method
+
+
+/*
+  printSummary() method
+
+  Tell the user what we found and what was changed.  Other output formats end
+  with the same totals, written for other programs to read.
+*/
+  void printSummary()
+  {
+    int i;                        // index variable
+    String[] lines;               // summary as lines of text
+
+    lines = formatSummary();      // same totals for all formats
+    if (outputFormat == FORMAT_TEXT) // plain text report?
+    {
+      for (i = 0; i < lines.length; i ++)
+        putOutput(lines[i]);
+    }
+    else                          // JSON Lines, SARIF, or JUnit XML
+      putFormatEnd(lines);
+    flushConsole();               // summary is the end of a report
+  }
+
+
+/*
+  processFile() method
+
+  Check one file that is known to exist, with a name that needs no further
+  resolution.  Accept all files here, because the caller removed those we
+  shouldn't see.
+*/
+  void processFile(File file)
+  {
+    CheckPlainTrim2File job;      // file to be checked, and later the result
+
+    setStatusMessage(file.getPath()); // use name with path for status text
+    totalFiles ++;                // one more file found
+    job = new CheckPlainTrim2File(file); // one file to be checked
+    if (isParallel())             // are there worker threads?
+      queueFile(job);             // yes, let them check the file
+    else                          // no, check the file on this thread
+    {
+      if (fileScanner == null)    // first file checked on this thread?
+        fileScanner = getScanner(); // borrow until workers are stopped
+      checkFile(job, fileScanner); // read the file and get the result
+      reportFile(job);            // say what we found about this file
+    }
+  }
+
+
+/*
+  processFileOrFolder() method
+
+  The caller gives us a Java File object that may be a file, a folder, or just
+  random garbage.  Search all files.  Get folder contents and process each file
+  found, doing subfolders only if the <recurseFlag> is true.
+
+  Folders are always searched by the calling thread, in sorted order.  Files
+  are checked here when there is only one thread, or are given to the worker
+  threads otherwise.  See the queueFile() method.
+*/
+  void processFileOrFolder(File givenFile)
+  {
+    File canon;                   // full directory resolution of <givenFile>
+    String[] contents;            // names in folder, if <givenFile> is a folder
+    boolean[] folderFlags;        // true for each subfolder in <contents>
+    String givenName;             // caller's file name only, without path
+    String givenPath;             // name of caller's file, including path
+    int i;                        // index variable
+    File next;                    // next File object from <contents>
+    CheckPlainTrim2Ignore outerRules; // ignore rules for parent folder
+
+    if (cancelFlag) return;       // stop if user cancel or fatal error
+
+    /* Decide what kind of File object this is, if it's even real!  We process
+    all files/folders given to us, no matter whether they are hidden or not.
+    It's only when we look at subfolders that we pay attention to <hiddenFlag>
+    and <recurseFlag>. */
+
+    try { canon = givenFile.getCanonicalFile(); } // full directory search
+    catch (IOException ioe) { canon = givenFile; } // accept abstract file
+    givenName = canon.getName();  // get the file name only
+    givenPath = canon.getPath();  // get file name with path
+    setStatusMessage(givenPath);  // use name with path for status text
+
+    /* Most of the work is done later in this method.  Search through folders
+    and subfolders here, eliminate File objects that don't exist, and leave
+    only real files for later. */
+
+    if (canon.isDirectory())      // is this a folder?
+    {
+      if (gitMode != GIT_NONE)    // take list of files from git index?
+      {
+        processGitFolder(canon);  // yes, no need to search this folder
+        return;
+      }
+      totalFolders ++;            // one more folder or subfolder found
+      putOrdered("Searching folder " + givenPath);
+      if (watchFolders != null)   // are we watching for changes?
+        watchFolders.put(givenPath, new long[] { canon.lastModified() });
+      contents = listFolder(canon); // names only, maybe sorted
+      folderFlags = findFolders(canon, contents); // one call per name
+      if (sortFlag)               // do we want sorted names?
+        sortNames(contents, folderFlags); // files first, then subfolders
+      outerRules = ignoreRules;   // restore when this folder is done
+      if (ignoreFlag)             // do we obey ".gitignore" files?
+      {
+        if (ignoreDepth == 0)     // given folder, not found by searching?
+          ignoreRules = findIgnoreParent(canon);
+        ignoreRules = loadIgnore(canon, contents, ignoreRules);
+        if (watchFolders != null) // needed again when folder changes
+        {
+          ignoreDates.put(givenPath, getIgnoreState(canon));
+          ignoreFolders.put(givenPath, ((ignoreRules != null) ? ignoreRules
+            : (Object) Boolean.FALSE));
+        }
+      }
+      ignoreDepth ++;             // any subfolders inherit these rules
+      for (i = 0; i < contents.length; i ++) // for each file in order
+      {
+        if (cancelFlag) break;    // stop if user cancel or fatal error
+        next = new File(canon, contents[i]); // only one File at a time
+        contents[i] = null;       // release name for garbage collector
+        if (next.isHidden() && (hiddenFlag == false))
+        {
+          putOrderedOther(next.getName()
+            + " - ignoring hidden file or subfolder");
+        }
+        else if (ignoreFlag && isIgnored(ignoreRules, givenPath,
+          next.getName(), folderFlags[i])) // listed in ".gitignore" file?
+        {
+          if (folderFlags[i])     // files are skipped without comment
+            putOrderedOther(next.getName()
+              + " - ignoring subfolder in ignore file");
+        }
+        else if (folderFlags[i])  // is this a subfolder (in the folder)?
+        {
+          if (recurseFlag == false) // should we look at subfolders?
+            putOrderedOther(next.getName() + " - ignoring subfolder");
+          else if (isExcludedFolder(next.getName())) // skip this subfolder?
+            putOrderedOther(next.getName() + " - ignoring excluded subfolder");
+          else
+            processFileOrFolder(next); // yes, search this subfolder
+        }
+        else if (hasCorrectSuffix(next.getName())) // correct file type?
+        {
+          /* The name comes from a folder that has already been resolved, so
+          there is no need to call getCanonicalFile() and isDirectory() again,
+          only isFile() to skip devices, pipes, and deleted files.  The file
+          type is checked first, because it doesn't need a system call. */
+
+          if (next.isFile())      // is this a file (in the folder)?
+            processFile(next);    // yes, check this file
+          else
+          {
+            /* File or folder does not exist.  Ignore without comment. */
+          }
+        }
+//      else if (showOtherFlag)
+//        putOrdered(next.getName() + " - ignoring file");
+      }
+      ignoreDepth --;             // back to parent folder
+      ignoreRules = outerRules;
+      return;                     // folder is complete
+    }
+    else if (canon.isFile() == false) // most likely does not exist
+    {
+      putOrdered(givenName + " - not a file or folder");
+//    cancelFlag = true;          // don't do anything more
+      totalError ++;              // count as error, even if don't know reason
+      return;
+    }
+    processFile(canon);           // we have a file to check
+  } // end of processFileOrFolder() method
+
+
+/*
+  processGitFolder() method
+
+  Check files in a folder using the list of tracked files in a git working
+  tree's index, instead of searching the folder.  This never looks inside the
+  ".git" folder or at files that git ignores.  The index is read once for each
+  working tree.  In <GIT_CHANGED> mode, we skip files with the same size and
+  date as when they were staged.  Files are checked with the same code as files
+  found by searching, and deleted files are silently ignored, as are hidden
+  files and subfolders unless <hiddenFlag>.
+
+  The index is sorted byte by byte on the whole path, so a folder's files and
+  its subfolders are mixed together ("a/b.txt", "a/b/c.txt", "a/c.txt").  The
+  wanted files are sorted again by getGitKey(), so that each folder's files
+  come together, before its subfolders, as when searching.  Then each folder
+  is shown and counted only once.
+*/
+  void processGitFolder(File folder)
+  {
+    File file;                    // one tracked file in working tree
+    String folderPath;            // name of caller's folder, including path
+    int i;                        // index variable
+    CheckPlainTrim2Index index;   // tracked files in this working tree
+    int k;                        // index variable
+    String key;                   // sort key and index of one wanted file
+    String[] keyList;             // wanted files, sorted by folder
+    Vector keys;                  // wanted files, before sorting
+    String lastChecked;           // relative path of last subfolder compared
+    boolean lastExcluded;         // true if <lastChecked> is a folder to skip
+    String lastFolder;            // relative path of last subfolder shown
+    String path;                  // relative path of one tracked file
+    String prefix;                // relative path of caller's folder
+    String rest;                  // relative path below caller's folder
+    File[] roots;                 // working tree and git folder, or null
+    String subfolder;             // relative path of file's subfolder
+
+    folderPath = folder.getPath(); // canonical path from caller
+    roots = CheckPlainTrim2Index.findRoot(folder);
+    if (roots == null)            // is this folder in a git working tree?
+    {
+      putOrdered(folderPath + " - not in a git working tree");
+      totalError ++;              // count as error, nothing can be checked
+      return;
+    }
+    index = (CheckPlainTrim2Index) gitIndexes.get(roots[0].getPath());
+    if (index == null)            // have we already read this index?
+    {
+      try { index = new CheckPlainTrim2Index(roots[0], roots[1]); }
+      catch (IOException ioe)     // missing, locked, or unknown format
+      {
+        putOrdered(folderPath + " - can't read git index: "
+          + ioe.getMessage());
+        totalError ++;            // count as error, nothing can be checked
+        return;
+      }
+      gitIndexes.put(roots[0].getPath(), index); // read only once per run
+    }
+
+    totalFolders ++;              // count the folder, not its subfolders
+    putOrdered("Searching git index for folder " + folderPath);
+    if (folder.equals(roots[0]))  // all tracked files are below this folder
+      prefix = "";
+    else                          // relative path with "/" between names
+      prefix = folderPath.substring(roots[0].getPath().length() + 1).replace(
+        File.separatorChar, '/') + "/";
+    keys = new Vector();          // no wanted files yet
+    lastChecked = "";             // caller's folder is never skipped
+    lastExcluded = false;
+
+    for (i = 0; i < index.count; i ++) // for each tracked file in order
+    {
+      if (cancelFlag) return;     // stop if user cancel or fatal error
+      path = index.paths[i];      // relative path of tracked file
+      if (path.startsWith(prefix) == false) // is file below caller's folder?
+        continue;                 // no, ignore this file
+      rest = path.substring(prefix.length()); // path below caller's folder
+      if ((recurseFlag == false) && (rest.indexOf('/') >= 0))
+        continue;                 // file is in a subfolder
+      if ((hiddenFlag == false) && (rest.startsWith(".")
+        || (rest.indexOf("/.") >= 0))) // file or subfolder name is hidden?
+      {
+        continue;                 // as when searching, but without comment
+      }
+      if (hasCorrectSuffix(rest.substring(rest.lastIndexOf('/') + 1)) == false)
+        continue;                 // not one of the file types we want
+      subfolder = rest.substring(0, Math.max(rest.lastIndexOf('/'), 0));
+      if (subfolder.equals(lastChecked) == false) // not same as last file?
+      {
+        lastChecked = subfolder;
+        lastExcluded = isExcludedPath(subfolder);
+      }
+      if (lastExcluded)           // inside a folder we were told to skip?
+        continue;
+      keys.add(getGitKey(rest) + "\0" + i); // index number after sort key
+    }
+
+    keyList = (String[]) keys.toArray(new String[keys.size()]);
+    keys = null;                  // sort the wanted files by folder
+    Arrays.sort(keyList);
+    lastFolder = "";              // caller's folder has already been shown
+    for (k = 0; k < keyList.length; k ++) // for each wanted file by folder
+    {
+      if (cancelFlag) return;     // stop if user cancel or fatal error
+      key = keyList[k];
+      i = Integer.parseInt(key.substring(key.lastIndexOf('\0') + 1));
+      path = index.paths[i];      // relative path of tracked file
+      rest = path.substring(prefix.length()); // path below caller's folder
+      subfolder = rest.substring(0, Math.max(rest.lastIndexOf('/'), 0));
+      file = new File(roots[0], path.replace('/', File.separatorChar));
+      if ((gitMode == GIT_CHANGED) && index.isClean(i, file))
+        continue;                 // same size and date as when staged
+      if (file.isFile() == false) // tracked file may have been deleted
+        continue;
+      if (subfolder.equals(lastFolder) == false) // file in a new subfolder?
+      {
+        totalFolders ++;          // one more subfolder, with files to check
+        putOrdered("Searching folder " + new File(folder,
+          subfolder.replace('/', File.separatorChar)).getPath());
+        lastFolder = subfolder;
+      }
+      processFile(file);          // check like any other file
+    }
+  } // end of processGitFolder() method
+
+
+/*
+  putConsole() method
+
+  Write one line of the console report, for this run.  The report goes to the
+  client for a request to the server, or else to standard output; see
+  putStandard().  When the client has gone away, checking files for that
+  request stops.
+*/
+  void putConsole(String text)
+  {
+    if (clientWriter == null)     // is this report for standard output?
+    {
+      putStandard(text);          // yes, shared by all runs
+      return;
+    }
+    try
+    {
+      clientWriter.write(text);   // each request has its own thread
+      clientWriter.newLine();     // same line separator as println()
+    }
+    catch (IOException ioe)       // client has gone away
+    {
+      cancelFlag = true;          // tell other threads that all work stops now
+      scanOptions.cancelFlag = true; // including scanners inside a file
+    }
+  }
+
+
+/*
+  putFormatEnd() method
+
+  Finish the console report in JSON Lines, SARIF, or JUnit XML, with the same
+  totals as the summary for plain text.  JSON Lines may have more results after
+  the summary, when watching for changes, and then another summary.
+*/
+  void putFormatEnd(String[] lines)
+  {
+    int i;                        // index variable
+    String totals;                // summary totals as JSON members
+
+    totals = "\"files\":" + totalFiles + ",\"folders\":" + totalFolders
+      + ",\"correct\":" + totalCorrect + ",\"errors\":" + totalError
+      + ((dedupeLimit > 0) ? (",\"duplicates\":" + totalDuplicate
+        + ",\"uncheckedBytes\":" + totalSaved) : "")
+      + (sniffFlag ? (",\"binary\":" + totalBinary) : "")
+      + ((sizeLimit > 0) ? (",\"large\":" + totalLarge) : "");
+
+    if (outputFormat == FORMAT_JSON) // one summary line for JSON Lines
+      putConsole("{\"type\":\"summary\"," + totals + "}");
+
+    else if (outputFormat == FORMAT_SARIF) // end results array and run
+    {
+      putConsole("],\"invocations\":[{\"executionSuccessful\":"
+        + (cancelFlag == false) + "}],\"properties\":{" + totals + "}}]}");
+    }
+
+    else if (outputFormat == FORMAT_JUNIT) // summary text, then end of suite
+    {
+      putConsole("<system-out>");
+      for (i = 0; i < lines.length; i ++)
+        putConsole(formatXml(lines[i]));
+      putConsole("</system-out>");
+      putConsole("</testsuite>");
+    }
+  }
+
+
+/*
+  putFormatStart() method
+
+  Start the console report in SARIF or JUnit XML, before the first result.
+  These formats are complete documents, with results inside.  JSON Lines and
+  plain text have nothing before the first result.
+*/
+  void putFormatStart()
+  {
+    recordCount = 0;              // no results written yet
+    if (outputFormat == FORMAT_SARIF) // tool, rules, and start of results
+    {
+      putConsole("{\"version\":\"2.1.0\",\"$schema\":"
+        + "\"https://json.schemastore.org/sarif-2.1.0.json\",\"runs\":[{");
+      putConsole("\"tool\":{\"driver\":{\"name\":\"CheckPlainTrim2\","
+        + "\"informationUri\":\"https://kwfenske.github.io/\",\"rules\":[");
+      putConsole("{\"id\":\"plain-text\",\"shortDescription\":{\"text\":"
+        + "\"Character is not plain text\"}},");
+      putConsole("{\"id\":\"trailing-space\",\"shortDescription\":{\"text\":"
+        + "\"Trailing spaces or tabs at end of line\"}},");
+      putConsole("{\"id\":\"read-error\",\"shortDescription\":{\"text\":"
+        + "\"File could not be read\"}}]}},");
+      putConsole("\"results\":[");
+    }
+    else if (outputFormat == FORMAT_JUNIT) // one test suite for all files
+    {
+      putConsole("<?xml version=\"1.0\" encoding=\"US-ASCII\"?>");
+      putConsole("<testsuite name=\"CheckPlainTrim2\">");
+    }
+  }
+
+
+/*
+  putMessage() method
+
+  Write a message line (not a file result) in the console report for JSON
+  Lines or JUnit XML.  SARIF has no place for messages among the results, so
+  they are dropped; the results and totals are complete without them.
+*/
+  void putMessage(String text)
+  {
+    if (outputFormat == FORMAT_JSON) // message as one JSON object
+      putConsole("{\"type\":\"message\",\"text\":" + formatJson(text) + "}");
+    else if (outputFormat == FORMAT_JUNIT) // message as XML comment
+      putConsole("<!-- " + formatXml(text).replaceAll("--", "- -") + " -->");
+  }
+
+
+/*
+  putOrdered() method
+
+  Show a message line from the thread that searches folders.  If there are
+  worker threads, then files found before this message may not be finished,
+  so the message waits in the pending list until flushOrdered() gets to it.
+*/
+  void putOrdered(String text)
+  {
+    if (isParallel())             // are there worker threads?
+    {
+      synchronized (pendingList) { pendingList.add(text); }
+      flushOrdered(PENDING_LIMIT); // show what we can, without waiting
+    }
+    else                          // single thread, no pending list
+      putOutput(text);            // show message now
+  }
+
+
+/*
+  putOrderedOther() method
+
+  Same as putOrdered(), for a message that is shown only with <showOtherFlag>.
+  In the pending list, such a message is wrapped in a one-element String array,
+  so that flushOrdered() can tell it apart from other messages.
+*/
+  void putOrderedOther(String text)
+  {
+    if (isParallel())             // are there worker threads?
+    {
+      synchronized (pendingList) { pendingList.add(new String[] {text}); }
+      flushOrdered(PENDING_LIMIT); // show what we can, without waiting
+    }
+    else                          // single thread, no pending list
+      putOther(text);             // show message now
+  }
+
+
+/*
+  putOther() method
+
+  Show a message that is one of the "various other results".  The console only
+  prints the message with <showOtherFlag>.  The graphical interface always
+  keeps the message, and shows it if the user later picks "show all files".
+*/
+  void putOther(String text)
+  {
+    if (windowFlag == false)      // during setup, there is no GUI window
+    {
+      if (showOtherFlag)          // does the user want these messages?
+        putOutput(text);          // console output, in the chosen format
+    }
+    else                          // graphical output goes into list
+      CheckPlainTrim2Window.outputRows.add(text, CheckPlainTrim2Rows.ROW_OTHER,
+        -1, false);
+  }
+
+
+/*
+  putOutput() method
+
+  Append a complete line of text to the end of the output list.  We add a
+  newline character at the end of the line, not the caller.  By forcing all
+  output to go through this same method, one complete line at a time, the
+  generated output is cleaner and can be redirected.
+
+  In the graphical interface, any thread may call us.  The line is stored in
+  the list model, and the timer for showRows() later adds all new lines to the
+  list at once, and scrolls to the end.
+*/
+  void putOutput(String text)
+  {
+    if (windowFlag)               // graphical output goes into list
+      CheckPlainTrim2Window.outputRows.add(text, CheckPlainTrim2Rows.ROW_TEXT,
+        -1, false);
+    else if (outputFormat != FORMAT_TEXT) // report for other programs?
+      putMessage(text);           // yes, as JSON or XML
+    else                          // during setup, there is no GUI window
+      putConsole(text);           // standard output, or server's client
+  }
+
+
+/*
+  putRecord() method
+
+  Write the result for one file in the console report for JSON Lines, SARIF,
+  or JUnit XML.  This is called by reportFile() instead of the plain text
+  methods, with the same choices for which files are shown.  Each result is
+  written as soon as the file is reported.
+*/
+  void putRecord(CheckPlainTrim2File job)
+  {
+    StringBuffer buffer;          // faster than String for multiple appends
+    boolean correct;              // true if nothing bad was found
+    String folder;                // name of folder, or empty string if none
+    int i;                        // index variable
+    String name;                  // file name only, without path
+    String path;                  // file name with path
+    String status;                // one word for what we found
+    String uri;                   // file name as URI for SARIF
+
+    correct = (job.errorText == null) && (job.largeFlag == false)
+      && (job.binaryFlag == false) && (job.foundChar < 0)
+      && (job.foundSpace == false);
+    if (job.errorText != null) status = "failed";
+    else if (job.largeFlag) status = "large";
+    else if (job.binaryFlag) status = "binary";
+    else if (correct) status = "correct";
+    else status = "error";
+    if ((job.errorText != null) ? false // always show I/O errors
+      : (job.largeFlag || job.binaryFlag) ? (showOtherFlag == false)
+      : correct ? (showSuccessFlag == false) : (showFailureFlag == false))
+    {
+      return;                     // user doesn't want to see this file
+    }
+    buffer = new StringBuffer();
+    name = job.file.getName();    // same name as plain text report
+    path = job.file.getPath();    // other programs want the full path
+
+    if (outputFormat == FORMAT_JSON) // one JSON object per line
+    {
+      buffer.append("{\"type\":\"file\",\"path\":" + formatJson(path)
+        + ",\"status\":\"" + status + "\"");
+      if (job.errorText != null)
+        buffer.append(",\"message\":" + formatJson(job.errorText));
+      else if (status.equals("correct") || status.equals("error"))
+      {
+        buffer.append(",\"char\":" + ((job.foundChar < 0) ? "null"
+          : String.valueOf(job.foundChar)) + ",\"space\":" + job.foundSpace);
+        if (job.duplicateFlag)
+          buffer.append(",\"duplicate\":true");
+      }
+      if (job.detailLines != null) // line and column of each finding
+      {
+        buffer.append(",\"findings\":[");
+        for (i = 0; i < job.detailLines.length; i ++)
+        {
+          buffer.append(((i > 0) ? "," : "") + "{\"line\":"
+            + job.detailLines[i] + ",\"column\":" + job.detailColumns[i]
+            + ",\"char\":" + ((job.detailChars[i] < 0) ? "null"
+            : String.valueOf(job.detailChars[i])) + "}");
+        }
+        buffer.append("]" + (job.moreFlag ? ",\"truncated\":true" : ""));
+      }
+      buffer.append("}");
+      putConsole(buffer.toString());
+    }
+
+    else if (outputFormat == FORMAT_SARIF) // only problems are results
+    {
+      uri = job.file.toURI().toString(); // absolute "file:" URI
+      if (job.errorText != null)
+        putSarif("read-error", job.errorText, uri, -1, -1);
+      else                        // first of each finding, without position
+      {
+        /* Each kind of finding has a result for the whole file, even if all
+        positions for that kind were after the most findings kept (-v#). */
+
+        if (job.foundChar >= 0)
+          putSarif("plain-text", ("invalid character, 0x" + Integer
+            .toHexString(job.foundChar).toUpperCase()), uri, -1, -1);
+        if (job.foundSpace)
+          putSarif("trailing-space", "trailing spaces or tabs", uri, -1, -1);
+        if (job.detailLines != null) // plus one result per finding kept
+        {
+          for (i = 0; i < job.detailLines.length; i ++)
+          {
+            if (job.detailChars[i] < 0) // trailing spaces or tabs
+              putSarif("trailing-space", "trailing spaces or tabs", uri,
+                job.detailLines[i], job.detailColumns[i]);
+            else
+              putSarif("plain-text", ("invalid character, 0x" + Integer
+                .toHexString(job.detailChars[i]).toUpperCase()), uri,
+                job.detailLines[i], job.detailColumns[i]);
+          }
+        }
+      }
+    }
+
+    else if (outputFormat == FORMAT_JUNIT) // one test case per file
+    {
+      folder = job.file.getParent();
+      buffer.append("<testcase classname=\""
+        + formatXml((folder == null) ? "" : folder) + "\" name=\""
+        + formatXml(name) + "\"");
+      if (correct)                // correct files have nothing inside
+        buffer.append("/>");
+      else if (job.errorText != null)
+        buffer.append("><error message=\"" + formatXml(job.errorText)
+          + "\"/></testcase>");
+      else if (job.largeFlag || job.binaryFlag)
+        buffer.append("><skipped message=\"" + (job.largeFlag
+          ? "file larger than limit" : "binary file") + "\"/></testcase>");
+      else
+      {
+        buffer.append("><failure message=\"" + formatXml(formatResult("",
+          job.foundChar, job.foundSpace).substring(3)) + "\">");
+        if (job.detailLines != null) // one line per finding in the body
+        {
+          for (i = 0; i < job.detailLines.length; i ++)
+            buffer.append(formatXml(formatResult((name + ":"
+              + job.detailLines[i] + ":" + job.detailColumns[i]),
+              job.detailChars[i], (job.detailChars[i] < 0))) + "\n");
+          if (job.moreFlag)       // were some findings dropped?
+            buffer.append(formatXml(name + " - showing first "
+              + job.detailLines.length + " findings") + "\n");
+        }
+        buffer.append("</failure></testcase>");
+      }
+      putConsole(buffer.toString());
+    }
+  }
+
+
+/*
+  putResult() method
+
+  Show the result for a file that was read without errors.  The console only
+  prints the result if the user wants to see files that are correct (or files
+  with errors).  The graphical interface keeps all results in the list model,
+  as a file name and what was found, which is filtered when shown.
+*/
+  void putResult(String name, int foundChar, boolean foundSpace)
+  {
+    boolean correct;              // true if nothing bad was found
+
+    correct = (foundChar < 0) && (foundSpace == false);
+    if (windowFlag)               // graphical output goes into list
+      CheckPlainTrim2Window.outputRows.add(name, (correct
+        ? CheckPlainTrim2Rows.ROW_CORRECT
+        : CheckPlainTrim2Rows.ROW_FAILURE), foundChar, foundSpace);
+    else if (correct ? showSuccessFlag : showFailureFlag) // wanted by user?
+      putConsole(correct ? (name + " - is " + textType)
+        : formatResult(name, foundChar, foundSpace));
+  }
+
+
+/*
+  putSarif() method
+
+  Write one SARIF result, with a comma before all but the first result.  The
+  line and column are -1 when we don't know where the finding is.
+*/
+  void putSarif(String rule, String message, String uri, long line,
+    long column)
+  {
+    putConsole(((recordCount > 0) ? "," : "") + "{\"ruleId\":\"" + rule
+      + "\",\"level\":\"error\",\"message\":{\"text\":"
+      + formatJson(message) + "},\"locations\":[{\"physicalLocation\":{"
+      + "\"artifactLocation\":{\"uri\":" + formatJson(uri) + "}"
+      + ((line > 0) ? (",\"region\":{\"startLine\":" + line
+        + ",\"startColumn\":" + column + "}") : "") + "}}]}");
+    recordCount ++;               // one more result written
+  }
+
+
+/*
+  putStandard() method
+
+  Write one line of the console report on standard output.  Lines go into a
+  large buffer, instead of through System.out.println(), which may flush after
+  every line.  With the -q1 option, lines are instead given to a writer thread,
+  in order, so that a slow pipe or terminal never stops the thread that
+  searches and reports.  Errors are ignored, as System.out does.
+*/
+  static void putStandard(String text)
+  {
+    if (consoleQueue != null)     // is there a writer thread?
+    {
+      synchronized (consoleQueue)
+      {
+        while (consoleQueue.size() >= CONSOLE_LIMIT) // too many waiting?
+        {
+          try { consoleQueue.wait(); } // let the writer catch up
+          catch (InterruptedException ie) { /* do nothing */ }
+        }
+        consoleQueue.add(text);   // writer takes lines in the same order
+        consoleQueue.notifyAll(); // and wake up writer if idle
+      }
+      return;
+    }
+    synchronized (consoleWriter)  // same lock as writer thread and flush
+    {
+      try
+      {
+        consoleWriter.write(text);
+        consoleWriter.newLine();  // same line separator as println()
+      }
+      catch (IOException ioe) { /* ignore errors, as System.out does */ }
+    }
+  }
+
+
+/*
+  queueFile() method
+
+  Give a file to the worker threads (or to a new per-file thread) to be
+  checked, and put the same job object in the pending list so that results are
+  reported in the order found.  Start the worker threads if they aren't
+  already running.  We wait here if too many files are pending, so that the
+  folder search doesn't get too far ahead of the workers (and use too much
+  memory).
+*/
+  void queueFile(CheckPlainTrim2File job)
+  {
+    synchronized (pendingList) { pendingList.add(job); }
+    if (flightLimit > 0)          // one thread for each file?
+      startFlight(job);           // yes, wait for a place and start thread
+    else                          // no, give file to worker threads
+    {
+      if (workerThreads == null)  // have the worker threads been started?
+        startWorkers();           // no, start them now
+      synchronized (workList)
+      {
+        workList.add(job);        // add file to end of work list
+        workList.notify();        // and wake up one idle worker thread
+      }
+    }
+    flushOrdered(PENDING_LIMIT);  // show what we can, wait if too far ahead
+  }
+
+
+/*
+  rememberContent() method
+
+  Add a checked file to the table of content hashes, so that later files with
+  the same contents can copy the result.  Do nothing if the table is full.
+*/
+  void rememberContent(CheckPlainTrim2File job)
+  {
+    synchronized (dedupeSizes)    // <dedupeCount> is shared with other threads
+    {
+      if (dedupeCount >= dedupeLimit) // is there room for another entry?
+        return;                   // no, forget about this file
+      dedupeCount ++;             // one more entry
+    }
+    dedupeHashes.put(getHashKey(job), job); // replaces any older entry
+  }
+
+
+/*
+  reportFile() method
+
+  Decide what to say about a file that has been checked, and add to the run's
+  counters.  Nothing is said if the file was cancelled before finishing.
+*/
+  void reportFile(CheckPlainTrim2File job)
+  {
+    String givenName;             // caller's file name only, without path
+    int i;                        // index variable
+    boolean textFlag;             // true if report is lines of plain text
+
+    if (job.abortFlag) return;    // stop if user cancel or fatal error
+    givenName = job.file.getName(); // get the file name only
+    textFlag = (outputFormat == FORMAT_TEXT); // or for other programs
+    if (textFlag == false)        // JSON Lines, SARIF, or JUnit XML?
+      putRecord(job);             // yes, same result in another format
+    if (watchTable != null)       // are we watching for changes?
+      watchTable.put(job.file.getPath(), job); // compare size and date later
+    if (job.duplicateFlag)        // was the result copied from another file?
+    {
+      totalDuplicate ++;          // one more file that we didn't check
+      totalSaved += job.fileSize; // bytes hashed, but not decoded or checked
+    }
+    if (job.errorText != null)    // was there an I/O error?
+    {
+      if (textFlag) putOutput(givenName + " - " + job.errorText);
+      totalError ++;              // one more file with an error
+    }
+    else if (job.largeFlag)       // was the file too big to check?
+    {
+      if (textFlag) putOther(givenName + " - ignoring file larger than "
+        + formatComma.format(sizeLimit >> 20) + " MB");
+      totalLarge ++;              // one more file that we didn't open
+    }
+    else if (job.binaryFlag)      // did the file look like binary data?
+    {
+      if (textFlag) putOther(givenName + " - ignoring binary file");
+      totalBinary ++;             // one more file that we didn't read
+    }
+    else if ((job.foundChar >= 0) || job.foundSpace) // was anything bad found?
+    {
+      if (textFlag) putResult(givenName, job.foundChar, job.foundSpace);
+      totalError ++;              // one more file with an error
+      if (textFlag && (job.detailLines != null)) // each finding by position?
+      {
+        for (i = 0; i < job.detailLines.length; i ++) // "name:line:column"
+          putResult((givenName + ":" + job.detailLines[i] + ":"
+            + job.detailColumns[i]), job.detailChars[i],
+            (job.detailChars[i] < 0));
+        if (job.moreFlag)         // were some findings not recorded?
+          putOther(givenName + " - showing first "
+            + formatComma.format(job.detailLines.length) + " findings");
+      }
+    }
+    else                          // if no trailing white space found
+    {
+      if (textFlag) putResult(givenName, -1, false);
+      totalCorrect ++;            // one more file that was correct
+    }
+  } // end of reportFile() method
+
+
+/*
+  runClient() method
+
+  Send our command line to a server on this computer (see runServer), copy the
+  server's report to standard output, and return the server's exit status.
+  <index> is the client option (-t#), which isn't sent.  File and folder names
+  are sent with their full path, because the server may be running in another
+  folder.  Nothing is done here that would slow down starting: no options are
+  checked, and no graphical classes are used.
+*/
+  static int runClient(String[] args, int index)
+  {
+    BufferedReader input;         // report from server
+    String line;                  // one line from server
+    boolean mswin;                // true if running on Windows
+    BufferedWriter output;        // request to server, then our report
+    int port;                     // port number on this computer
+    Socket socket;                // connection to server
+    int i;                        // index variable
+
+    try { port = Integer.parseInt(args[index].substring(2)); }
+    catch (NumberFormatException nfe) { port = -1; }
+    if ((port < 1) || (port > 65535))
+    {
+      System.err.println("Server port number must be from 1 to 65535: "
+        + args[index]);
+      return(EXIT_FAILURE);
+    }
+    mswin = System.getProperty("os.name").startsWith("Windows");
+
+    try
+    {
+      socket = new Socket(SERVE_HOST, port);
+      try
+      {
+        output = new BufferedWriter(new OutputStreamWriter(
+          socket.getOutputStream(), "UTF-8"));
+        output.write(SERVE_PROTOCOL + "\n");
+        for (i = 0; i < args.length; i ++)
+        {
+          if ((i == index) || (args[i].length() == 0)) // not for server?
+            continue;
+          if ((args[i].indexOf('\n') >= 0) || (args[i].indexOf('\r') >= 0))
+          {
+            System.err.println("Can't send line breaks to server: " + args[i]);
+            return(EXIT_FAILURE);
+          }
+          if (args[i].startsWith("-") || (mswin && args[i].startsWith("/")))
+            output.write(args[i] + "\n"); // option, same as our own
+          else                    // file or folder name
+            output.write(new File(args[i]).getAbsolutePath() + "\n");
+        }
+        output.write("\n");      // empty line ends the request
+        output.flush();
+
+        input = new BufferedReader(new InputStreamReader(
+          socket.getInputStream(), "UTF-8"));
+        output = new BufferedWriter(new OutputStreamWriter(System.out),
+          CONSOLE_BUFFER);        // same character set as System.out
+        while ((line = input.readLine()) != null)
+        {
+          if (line.startsWith(SERVE_EXIT)) // last line has exit status
+          {
+            output.flush();
+            return(Integer.parseInt(line.substring(SERVE_EXIT.length())));
+          }
+          output.write(line);
+          output.newLine();       // local line separator
+          if (input.ready() == false) // show what we have while server works
+            output.flush();
+        }
+        output.flush();
+      }
+      finally { socket.close(); }
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't talk to server on localhost port " + port
+        + ": " + ioe.getMessage());
+      return(EXIT_FAILURE);
+    }
+    catch (NumberFormatException nfe) { /* fall through to error below */ }
+    System.err.println("Server on localhost port " + port
+      + " ended without a complete report.");
+    return(EXIT_FAILURE);
+  }
+
+
+/*
+  runServer() method
+
+  Wait for requests from clients (see runClient) on a port of this computer.
+  Each request is read and checked on its own thread, by the same methods as
+  the console application, with its own options and totals; see the
+  CheckPlainTrim2Serve class.  Only programs on this computer can connect.
+  What stays warm between requests is Java's compiled code, the scanners with
+  their buffers and decoders, and the cache of results for files that haven't
+  changed, kept in memory even without the -c option.  With the -c option, the
+  cache file is written by a timer, when results have changed, and once more
+  when the server is stopped, not after each request.
+*/
+  static void runServer()
+  {
+    Socket client;                // connection for one request
+    ServerSocket listener;        // waits for connections
+    Thread thread;                // runs one request
+
+    if (cacheTable == null)       // no cache file given with -c option?
+      cacheTable = Collections.synchronizedMap(new CheckPlainTrim2Cache());
+                                  // keep results in memory only
+    else                          // save results on a timer and at exit
+    {
+      thread = new Thread(new CheckPlainTrim2Work(SERVE_SAVE),
+        "doSaverRunner");
+      thread.setDaemon(true);     // don't keep program running after exit
+      thread.start();
+      Runtime.getRuntime().addShutdownHook(new Thread(new
+        CheckPlainTrim2Work(0), "doSaverRunner")); // save once at Control-C
+    }
+    try
+    {
+      listener = new ServerSocket(servePort, 50, InetAddress.getByName(
+        SERVE_HOST));
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't listen on localhost port " + servePort + ": "
+        + ioe.getMessage());
+      System.exit(EXIT_FAILURE);
+      return;                     // for compiler, never reached
+    }
+    System.err.println("Listening on localhost port " + servePort
+      + " for clients with -t" + servePort + ".  Stop with Control-C.");
+    while (true)                  // until program is stopped
+    {
+      try
+      {
+        client = listener.accept(); // wait for next request
+        client.setSoTimeout(SERVE_TIMEOUT); // don't wait forever for request
+      }
+      catch (IOException ioe)
+      {
+        System.err.println("Can't accept request: " + ioe.getMessage());
+        continue;
+      }
+      thread = new Thread(new CheckPlainTrim2Serve(client), "doServeRunner");
+      thread.setDaemon(true);     // don't keep program running after exit
+      thread.start();
+    }
+  }
+
+
+/*
+  sameContents() method
+
+  Return true if a file has the same contents as a checked file with the same
+  size and sample hash.  Both halves of the 128-bit sample must match.  If the
+  sample was the whole file, that's enough; otherwise, both files are hashed
+  completely (the checked file only once).  A matching 64-bit hash alone is
+  never trusted to copy a result.
+*/
+  boolean sameContents(CheckPlainTrim2File job,
+    CheckPlainTrim2File match, CheckPlainTrim2Scan scanner)
+    throws IOException
+  {
+    if ((job.fileSize != match.fileSize)
+      || (job.contentHash[0] != match.contentHash[0])
+      || (job.contentHash[1] != match.contentHash[1]))
+    {
+      return(false);              // different size or sample
+    }
+    if (job.fileSize <= (2 * CheckPlainTrim2Scan.SAMPLE_SIZE))
+      return(true);               // sample was the whole file
+    if (job.fullHash == null)     // not known from cache of previous results?
+    {
+      job.fullHash = scanner.hashFile(job.file, job.fileSize, false);
+      cacheChanged = true;        // save new hash, if file is in cache
+    }
+    synchronized (match)          // hash checked file only once
+    {
+      if ((match.fullHash == null) && (cancelFlag == false))
+      {
+        match.fullHash = scanner.hashFile(match.file, match.fileSize, false);
+        cacheChanged = true;      // save new hash, if file is in cache
+      }
+    }
+    return((cancelFlag == false) && (job.fullHash[0] == match.fullHash[0])
+      && (job.fullHash[1] == match.fullHash[1]));
+  }
+
+
+/*
+  saveCache() method
+
+  Write all results in the cache to the cache file, if anything has changed
+  since the file was read or last written.  This includes results from previous
+  runs for files that we didn't see this time.  The table is copied first, so
+  that other threads can keep checking files while we write.  Any error is
+  reported, but is not fatal.
+*/
+  void saveCache()
+  {
+    TreeMap sorted;               // copy of cache, sorted by file path
+
+    if ((cacheFile == null) || (cacheTable == null)) // is there a cache?
+      return;                     // no, nothing to save
+
+    synchronized (cacheFile)      // one save at a time: timer, exit, or run
+    {
+      if (cacheChanged == false)  // anything new since last read or write?
+        return;                   // no, file is already up to date
+      cacheChanged = false;       // later changes are saved next time
+      synchronized (cacheTable)   // other threads may be adding results
+      {
+        sorted = new TreeMap(cacheTable); // so that prefixes are shared
+      }
+      try                         // catch I/O errors
+      {
+        writeCache(sorted);
+      }
+      catch (IOException ioe)
+      {
+        putOutput("Can't write to cache file: " + ioe.getMessage());
+        cacheChanged = true;      // try again next time
+      }
+    }
+  } // end of saveCache() method
+
+
+/*
+  setOptions() method
+
+  Copy the options from another run, usually <defaults>, into this run.  Each
+  run has its own options, so that the GUI or another request to the server
+  can't change them while files are being checked.  Totals and tables for
+  duplicates are not changed.  Tables for watching files are created the first
+  time that they are needed, and are kept after that.
+*/
+  void setOptions(CheckPlainTrim2 source)
+  {
+    dedupeLimit = source.dedupeLimit;
+    detailLimit = source.detailLimit;
+    encodeCharset = source.encodeCharset;
+    encodeName = source.encodeName;
+    flightLimit = source.flightLimit;
+    gitMode = source.gitMode;
+    ignoreFlag = source.ignoreFlag;
+    outputFormat = source.outputFormat;
+    plainFlag = source.plainFlag;
+    recurseFlag = source.recurseFlag;
+    scanEngine = source.scanEngine;
+    sizeLimit = source.sizeLimit;
+    sniffFlag = source.sniffFlag;
+    sortFlag = source.sortFlag;
+    textType = source.textType;
+    threadCount = source.threadCount;
+    trimFlag = source.trimFlag;
+    watchDelay = source.watchDelay;
+    if ((watchDelay > 0) && (watchTable == null)) // remember what we find?
+    {
+      watchFolders = new Hashtable();
+      watchTable = new Hashtable();
+    }
+  }
+
+
+/*
+  setScanOptions() method
+
+  Copy this run's options into the settings shared by its scanners.  This is
+  done once before the run starts checking files (and again on the command
+  line, after workers have finished with any earlier names), never while files
+  are being checked, so the shared object stays the same during a search.
+  Options changed in the GUI apply to the next run.  <cancelFlag> is set where
+  the user cancels.
+*/
+  void setScanOptions()
+  {
+    scanOptions.detailLimit = detailLimit; // findings kept per file
+    scanOptions.plainFlag = plainFlag; // looking for plain text
+    scanOptions.scanEngine = scanEngine; // which loops check raw data bytes
+    scanOptions.sniffFlag = sniffFlag; // skip files that look binary
+    scanOptions.trimFlag = trimFlag; // looking for trimmed text
+  }
+
+
+/*
+  setStatusMessage() method
+
+  Set the text for the status message if we are running as a GUI application.
+  This gives the user some indication of our progress when processing is slow.
+  The console doesn't show running status.
+*/
+  static void setStatusMessage(String text)
+  {
+    if (windowFlag)               // are we running as a GUI application?
+      CheckPlainTrim2Window.setStatusMessage(text); // yes, show when allowed
+  }
+
+
+/*
+  showHelp() method
+
+  Show the help summary.  This is a UNIX standard and is expected for all
+  console applications, even very simple ones.
+*/
+  static void showHelp()
+  {
+    flushStandard();              // finish any report before help text
+    System.err.println();
+    System.err.println(PROGRAM_TITLE);
+    System.err.println();
+    System.err.println("  java  CheckPlainTrim2  [options]  [fileOrFolderNames]");
+    System.err.println();
+    System.err.println("Options:");
+    System.err.println("  -? = -help = show summary of command-line syntax");
+    System.err.println("  -a# = run as a server for -t clients on localhost port #, until stopped;");
+    System.err.println("      other options are defaults for each request; example: -a7301");
+    System.err.println("  -b0 = check all files as text (default)");
+    System.err.println("  -b1 = skip files that look binary (zero bytes or known file signatures)");
+    System.err.println("  -c\"file\" = file for saving results between runs; unchanged files are skipped");
+    System.err.println("  -d# = check files with identical contents only once, using up to # MB of");
+    System.err.println("      memory; default is -d0 for none; -d alone is -d" + DEDUPE_DEFAULT);
+    System.err.println("  -e\"name\" = name of character set (text encoding) for reading files");
+    System.err.println("  -f\"string\" = list of file types (file name extensions), separated by spaces;");
+    System.err.println("      also wild cards (*.min.js), excludes (!*.bak), and folders to skip (target/)");
+    System.err.println("  -g0 = search folders for all files, even in git working trees (default)");
+    System.err.println("  -g1 = in git working trees, check only files tracked by git (.git/index)");
+    System.err.println("  -g2 = check only tracked files changed since staged (size or date differs)");
+    System.err.println("  -i# = most files read at once, each on its own thread; for slow or network");
+    System.err.println("      file systems; default is -i0 for none; example: -i200");
+    System.err.println("  -k0 = -k2 = check raw data bytes eight at a time (default)");
+    System.err.println("  -k1 = check raw data bytes one at a time, for comparison");
+    System.err.println("  -l# = skip files larger than # MB without opening them; default is -l0 for");
+    System.err.println("      no limit; example: -l100");
+    System.err.println("  -m1 = look for plain text only, ignore trimmed");
+    System.err.println("  -m2 = look for trimmed text only, ignore plain");
+    System.err.println("  -m3 = look for plain and trimmed text (default)");
+    System.err.println("  -n0 = check all files found by searching folders (default)");
+    System.err.println("  -n1 = skip files and subfolders listed in .gitignore or .ignore files");
+    System.err.println("  -o0 = console report as lines of text (default); -o1 = JSON Lines;");
+    System.err.println("      -o2 = SARIF log for code scanning; -o3 = JUnit XML");
+    System.err.println("  -p# = number of threads for checking files; default is -p1;");
+    System.err.println("      -p0 = one thread for each processor");
+    System.err.println("  -q0 = write console report on the same thread as checking (default)");
+    System.err.println("  -q1 = write console report on a separate thread; for slow pipes or terminals");
+    System.err.println("  -r# = keep running and check files again as they change, polling every #");
+    System.err.println("      seconds; default is -r0 for no; -r alone is -r" + WATCH_DEFAULT);
+    System.err.println("  -s0 = do only given files or folders, no subfolders (default)");
+    System.err.println("  -s1 = -s = process files, folders, and subfolders");
+    System.err.println("  -t# = send this command line to a server on localhost port # and show its");
+    System.err.println("      report; the server accepts -b -d -e -g -k -l -m -n -o -s -v -z options");
+    System.err.println("  -u# = font size for buttons, dialogs, etc; default is local system;");
+    System.err.println("      example: -u16");
+    System.err.println("  -v# = report every bad character and line with trailing spaces, by line and");
+    System.err.println("      column, up to # per file; default is -v0 for first only; -v alone is -v"
+      + DETAIL_DEFAULT);
+    System.err.println("  -w(#,#,#,#) = normal window position: left, top, width, height;");
+    System.err.println("      example: -w(50,50,700,500)");
+    System.err.println("  -x = maximize application window; default is normal window");
+    System.err.println("  -z0 = don't sort names in folders; faster for huge folders");
+    System.err.println("  -z1 = sort files, then subfolders, by name in each folder (default)");
+    System.err.println();
+    System.err.println("Output may be redirected with the \">\" operator.  If no file or folder names");
+    System.err.println("are given on the command line, then a graphical interface will open.");
+    System.err.println();
+    System.err.println(COPYRIGHT_NOTICE);
+//  System.err.println();
+
+  } // end of showHelp() method
+
+
+/*
+  sortNames() method
+
+  Sort the names in a folder, in place, in the same order as sortFileList():
+  files before subfolders, then names in lowercase, then in the original form.
+  <folderFlags> is reordered with the names.  Nothing is created for each name
+  except its lowercase form (often the same string), instead of a File object,
+  a sort key, and an entry in a TreeMap, so sorting a huge folder needs only a
+  few small arrays.  The merge sort keeps names in order when they compare the
+  same, which they never do, since names in a folder are unique.
+*/
+  static void sortNames(String[] names, boolean[] folderFlags)
+  {
+    int count;                    // number of files (not folders)
+    int i, k;                     // index variables
+    String[] lower;               // lowercase form of each name
+    String[] temp;                // scratch space for moving names
+
+    if (names.length < 2)         // don't sort zero or one names
+      return;
+    count = 0;                    // files go before subfolders
+    for (i = 0; i < names.length; i ++)
+      if (folderFlags[i] == false)
+        count ++;
+    temp = new String[names.length];
+    k = 0;                        // files first, in their original order
+    for (i = 0; i < names.length; i ++)
+      if (folderFlags[i] == false)
+        temp[k ++] = names[i];
+    for (i = 0; i < names.length; i ++) // then subfolders
+      if (folderFlags[i])
+        temp[k ++] = names[i];
+    System.arraycopy(temp, 0, names, 0, names.length);
+    for (i = 0; i < names.length; i ++)
+      folderFlags[i] = (i >= count); // subfolders follow all files
+
+    lower = new String[names.length];
+    for (i = 0; i < names.length; i ++)
+      lower[i] = names[i].toLowerCase(); // same as sortFileList()
+    sortNameRange(names, lower, temp, new String[names.length], 0, count);
+    sortNameRange(names, lower, temp, new String[names.length], count,
+      names.length);
+  }
+
+
+/*
+  sortNameRange() method
+
+  Merge sort one range of names, with their lowercase forms, using the caller's
+  scratch arrays.  compareNames() compares names as if they were the sort keys
+  in sortFileList(), without creating those keys.
+*/
+  static void sortNameRange(String[] names, String[] lower, String[] tempNames,
+    String[] tempLower, int start, int end)
+  {
+    int i, k, m;                  // index variables
+    int middle;                   // end of first half, start of second half
+
+    if ((end - start) < 2)        // nothing to sort?
+      return;
+    middle = (start + end) >>> 1; // sort each half
+    sortNameRange(names, lower, tempNames, tempLower, start, middle);
+    sortNameRange(names, lower, tempNames, tempLower, middle, end);
+    if (compareNames(lower[middle - 1], names[middle - 1], lower[middle],
+      names[middle]) <= 0)        // already in order?
+    {
+      return;                     // yes, no need to merge
+    }
+    System.arraycopy(names, start, tempNames, start, (end - start));
+    System.arraycopy(lower, start, tempLower, start, (end - start));
+    i = start;                    // next name in first half
+    k = middle;                   // next name in second half
+    for (m = start; m < end; m ++) // merge halves back into caller's arrays
+    {
+      if ((k >= end) || ((i < middle) && (compareNames(tempLower[i],
+        tempNames[i], tempLower[k], tempNames[k]) <= 0)))
+      {
+        names[m] = tempNames[i];
+        lower[m] = tempLower[i ++];
+      }
+      else
+      {
+        names[m] = tempNames[k];
+        lower[m] = tempLower[k ++];
+      }
+    }
+  }
+
+
+/*
+  sortFileList() method
+
+  When we ask for a list of files or subfolders in a directory, the list is not
+  likely to be in our preferred order.  Java does not guarantee any particular
+  order, and the observed order is whatever is supplied by the underlying file
+  system (which can be very jumbled for FAT16/FAT32).  We would like the file
+  names to be sorted, and since we recurse on subfolders, we also want the
+  subfolders to appear in order.
+
+  The caller's parameter may be <null> and this may happen if the caller asks
+  File.listFiles() for the contents of a protected system directory.  All calls
+  to listFiles() in this program are wrapped inside a call to us, so we replace
+  a null parameter with an empty array as our result.
+
+  Folders that we search use sortNames() instead, which sorts in the same order
+  without creating File objects.
+*/
+  static File[] sortFileList(File[] input)
+  {
+    String fileName;              // file name without the path
+    int i;                        // index variable
+    TreeMap list;                 // our list of files
+    File[] result;                // our result
+    StringBuffer sortKey;         // created sorting key for each file
+
+    if (input == null)            // were we given a null pointer?
+      result = new File[0];       // yes, replace with an empty array
+    else if (input.length < 2)    // don't sort lists with zero or one element
+      result = input;             // just copy input array as result array
+    else
+    {
+      /* First, create a sorted list with our choice of index keys and the File
+      objects as data.  Names are sorted as files or folders, then in lowercase
+      to ignore differences in uppercase versus lowercase, then in the original
+      form for systems where case is distinct. */
+
+      list = new TreeMap();       // create empty sorted list with keys
+      sortKey = new StringBuffer(); // allocate empty string buffer for keys
+      for (i = 0; i < input.length; i ++)
+      {
+        sortKey.setLength(0);     // empty any previous contents of buffer
+        if (input[i].isDirectory()) // is this "file" actually a folder?
+          sortKey.append("2 ");   // yes, put subfolders after files
+        else                      // must be a file or an unknown object
+          sortKey.append("1 ");   // put files before subfolders
+
+        fileName = input[i].getName(); // get the file name without the path
+        sortKey.append(fileName.toLowerCase()); // start by ignoring case
+        sortKey.append(" ");      // separate lowercase from original case
+        sortKey.append(fileName); // then sort file name on original case
+        list.put(sortKey.toString(), input[i]); // put file into sorted list
+      }
+
+      /* Second, now that the TreeMap object has done all the hard work of
+      sorting, pull the File objects from the list in order as determined by
+      the sort keys that we created. */
+
+      result = (File[]) list.values().toArray(new File[0]);
+    }
+    return(result);               // give caller whatever we could find
+
+  } // end of sortFileList() method
+
+
+/*
+  startFlight() method
+
+  Start a short-lived thread to check one file, but only after there is a
+  place for another file in flight.  This acts as a counting semaphore on
+  <flightCount>.  While waiting, we look at <cancelFlag> once per timer delay,
+  so that a cancel is never stuck behind a slow file system.  Threads have a
+  small stack, because they only need enough to check one file.
+*/
+  void startFlight(CheckPlainTrim2File job)
+  {
+    Thread thread;                // new thread for checking this file
+
+    synchronized (flightLock)     // only one thread may change the count
+    {
+      while ((flightCount >= flightLimit) && (cancelFlag == false))
+      {
+        try { flightLock.wait(TIMER_DELAY); } // wait for a file to finish
+        catch (InterruptedException ie) { /* do nothing */ }
+      }
+      if (cancelFlag)             // stop if user cancel or fatal error
+      {
+        job.abortFlag = job.doneFlag = true; // file will never be checked
+        return;
+      }
+      flightCount ++;             // one more file in flight
+    }
+    thread = new Thread(null, new CheckPlainTrim2Work(this, job),
+      "doFlightRunner", FLIGHT_STACK); // one thread for exactly one file
+    thread.setPriority(Thread.MIN_PRIORITY);
+                                  // use low priority for heavy-duty workers
+    thread.start();               // start reading and checking the file
+  }
+
+
+/*
+  startWorkers() and stopWorkers() methods
+
+  Start the worker threads that check files, with one scanner object (and its
+  buffers) for each thread.  When the folder search is done, wait until all
+  pending files have been reported, then tell the workers to stop.  Calling
+  stopWorkers() is harmless when there are no worker or per-file threads, and
+  gives back the scanner borrowed by processFile(), if any.
+*/
+  void startWorkers()
+  {
+    int i;                        // index variable
+
+    workStopFlag = false;         // workers keep running until told to stop
+    workerThreads = new Thread[threadCount];
+    for (i = 0; i < threadCount; i ++)
+    {
+      workerThreads[i] = new Thread(new CheckPlainTrim2Work(this),
+        ("doWorkerRunner" + i));  // each worker has its own scanner
+      workerThreads[i].setPriority(Thread.MIN_PRIORITY);
+                                  // use low priority for heavy-duty workers
+      workerThreads[i].start();   // start looking for files to check
+    }
+  }
+
+  void stopWorkers()
+  {
+    int i;                        // index variable
+
+    flushOrdered(0);              // report all pending files, even if waiting
+    synchronized (flightLock)     // wait for any per-file threads to end
+    {
+      while (flightCount > 0)     // threads end soon after each file is done
+      {
+        try { flightLock.wait(TIMER_DELAY); }
+        catch (InterruptedException ie) { /* do nothing */ }
+      }
+    }
+    if (fileScanner != null)      // was a scanner borrowed for this thread?
+    {
+      scannerPool.add(fileScanner); // yes, give it back to the pool
+      fileScanner = null;
+    }
+    if (workerThreads == null)    // were the worker threads started?
+      return;                     // no, nothing more to do
+    synchronized (workList)
+    {
+      workStopFlag = true;        // tell workers that there is no more work
+      workList.notifyAll();       // and wake up any idle workers
+    }
+    for (i = 0; i < workerThreads.length; i ++)
+    {
+      try { workerThreads[i].join(); } // wait for each worker to finish
+      catch (InterruptedException ie) { /* do nothing */ }
+    }
+    workerThreads = null;         // there are no more worker threads
+  }
+
+
+/*
+  watchFiles() method
+
+  Keep checking files after the first search, until the user cancels (GUI) or
+  stops the program (console).  Java 1.4 has no way to be told when files
+  change, so every <watchDelay> seconds we compare the size and date of each
+  file that we have reported, and list a folder again only if its date has
+  changed (which happens when files are created, deleted, or renamed).  A file
+  must have the same new size and date on two polls in a row before we check
+  it, so that we don't read a file while an editor is still saving it.  Many
+  changes to the same file become one check.  Changed files are checked by
+  processFileOrFolder() as usual, after subtracting the old result from the
+  running totals, and a new summary is shown after each group of changes.
+*/
+  void watchFiles()
+  {
+    TreeMap changed;              // files and folders to check, sorted by path
+    String[] contents;            // names in a changed folder
+    Vector deleted;               // folders that have been deleted
+    Enumeration enumer;           // for looping over hash tables
+    File file;                    // one file or folder to check
+    boolean[] folderFlags;        // true for each subfolder in <contents>
+    String folderPath;            // name of current folder, including path
+    boolean forgot;               // true if ignore rules removed any results
+    int i;                        // index variable
+    CheckPlainTrim2File job;      // previous result for one file
+    String lastFolder;            // folder of previous file shown
+    File next;                    // next File object from <contents>
+    String path;                  // name of file or folder, including path
+    Iterator pathList;            // for looping over <changed>
+    Object rules;                 // ignore rules for current folder, if any
+    Hashtable settling;           // size and date seen on last poll, by path
+    long time;                    // modification date of current folder
+    boolean waiting;              // true if new files in folder are changing
+
+    putOutput("Watching for changes every " + watchDelay
+      + ((watchDelay == 1) ? " second." : " seconds."));
+    flushConsole();               // show report so far before waiting
+    settling = new Hashtable();   // no changes seen yet
+    while (cancelFlag == false)   // until user cancels or program is stopped
+    {
+      setStatusMessage("Watching for changes ...");
+      for (i = 0; (i < (watchDelay * 10)) && (cancelFlag == false); i ++)
+      {
+        try { Thread.sleep(100); } // wake often to notice a cancel
+        catch (InterruptedException ie) { /* do nothing */ }
+      }
+      changed = new TreeMap();    // nothing ready to be checked yet
+      deleted = new Vector();     // no folders deleted yet
+
+      /* Compare the size and date of every file that we have reported. */
+
+      enumer = watchTable.keys();
+      while (enumer.hasMoreElements() && (cancelFlag == false))
+      {
+        path = (String) enumer.nextElement();
+        job = (CheckPlainTrim2File) watchTable.get(path);
+        if ((job.file.length() != job.fileSize)
+          || (job.file.lastModified() != job.fileTime))
+        {
+          watchSettle(settling, changed, job.file); // wait until stable
+        }
+        else
+          settling.remove(path);  // back to the old contents
+      }
+
+      /* Read the ignore files again in any folder where they have changed.
+      This may remove files or folders, or cause folders to be listed again. */
+
+      forgot = ignoreFlag && (cancelFlag == false) && watchIgnore();
+
+      /* List the contents of any folder whose date has changed, looking for
+      new files and subfolders.  This is the same search as in
+      processFileOrFolder(), without any messages for files that we skip. */
+
+      enumer = watchFolders.keys();
+      while (enumer.hasMoreElements() && (cancelFlag == false))
+      {
+        folderPath = (String) enumer.nextElement();
+        file = new File(folderPath); // folder that we searched before
+        time = file.lastModified(); // zero if deleted
+        if (time == ((long[]) watchFolders.get(folderPath))[0])
+          continue;               // same files and subfolders as before
+        if (file.isDirectory() == false) // has folder been deleted?
+        {
+          deleted.add(folderPath); // yes, forget after this loop
+          continue;               // its files are found deleted on their own
+        }
+        waiting = false;          // assume that nothing new is still changing
+        contents = listFolder(file); // names in any order, sorted later
+        folderFlags = findFolders(file, contents);
+        rules = ignoreFolders.get(folderPath); // same rules as first search
+        for (i = 0; i < contents.length; i ++)
+        {
+          next = new File(file, contents[i]); // one name from <contents>
+          if ((next.isHidden() && (hiddenFlag == false))
+            || ((rules instanceof CheckPlainTrim2Ignore) && isIgnored(
+              (CheckPlainTrim2Ignore) rules, folderPath, contents[i],
+              folderFlags[i]))
+            || (folderFlags[i] && ((recurseFlag == false)
+              || isExcludedFolder(next.getName())))
+            || ((folderFlags[i] == false)
+              && (hasCorrectSuffix(next.getName()) == false)))
+          {
+            continue;             // we wouldn't have looked at this anyway
+          }
+          if (folderFlags[i])     // folders are found by canonical name
+          {
+            try { next = next.getCanonicalFile(); }
+            catch (IOException ioe) { /* accept abstract file */ }
+          }
+          if ((watchTable.containsKey(next.getPath()) == false)
+            && (watchFolders.containsKey(next.getPath()) == false))
+          {
+            waiting |= (watchSettle(settling, changed, next) == false);
+          }
+        }
+        if (waiting == false)     // list again until new files are stable
+          ((long[]) watchFolders.get(folderPath))[0] = time;
+      }
+      for (i = 0; i < deleted.size(); i ++) // can't remove while enumerating
+        forgetFolder((String) deleted.get(i));
+
+      /* Check the changed files and new subfolders in sorted order, with the
+      name of each folder before its files, since we only show file names. */
+
+      if ((changed.isEmpty() && (forgot == false)) || cancelFlag)
+        continue;                 // nothing to do, go back to sleep
+      lastFolder = "";            // no folder shown yet
+      pathList = changed.keySet().iterator();
+      while (pathList.hasNext() && (cancelFlag == false))
+      {
+        path = (String) pathList.next();
+        file = (File) changed.get(path);
+        if (file.isDirectory())   // new subfolder, search like any other
+        {
+          processFileOrFolder(file);
+          lastFolder = "";        // folder name has been shown
+          continue;
+        }
+        folderPath = file.getParent(); // show folder of changed file
+        if ((folderPath != null) && (folderPath.equals(lastFolder) == false))
+        {
+          putOrdered("Changes in folder " + folderPath);
+          lastFolder = folderPath;
+        }
+        job = (CheckPlainTrim2File) watchTable.remove(path);
+        if (job != null)          // did we report this file before?
+          forgetFile(job);        // yes, subtract previous result from totals
+        if (file.isFile())        // has file been changed or created?
+          processFile(file);      // yes, check as usual
+        else if (job != null)     // no, previous file has been deleted
+          putOrdered(file.getName() + " - file was deleted");
+      }
+      stopWorkers();              // report pending files, stop worker threads
+      printSummary();             // new totals after these changes
+      saveCache();                // save results for next time, if wanted
+    }
+  } // end of watchFiles() method
+
+
+/*
+  watchIgnore() method
+
+  Called by watchFiles() with the -n1 option, to read the ignore files again in
+  any folder where they have been created, changed, or deleted since we last
+  read them.  The rules are found again for that folder and all watched
+  subfolders below it, parents first, since rules are inherited.  Subfolders
+  and files that are now ignored are forgotten, as if they had been deleted,
+  and folders are listed again on this poll to find files that are no longer
+  ignored.  Return true if any results were forgotten, so that the caller
+  shows new totals.
+*/
+  boolean watchIgnore()
+  {
+    Vector changed;               // folders where ignore files have changed
+    String dropped;               // last folder that is now ignored, or null
+    Enumeration enumer;           // for looping over hash tables
+    File folder;                  // one folder that we are watching
+    String folderPath;            // name of folder, including path
+    boolean forgot;               // true if we forgot any files or folders
+    int i;                        // index variable
+    CheckPlainTrim2File job;      // previous result for one file
+    Vector jobs;                  // previous results for files now ignored
+    CheckPlainTrim2Ignore outer;  // rules from folders above
+    String parentPath;            // name of folder above, including path
+    Iterator pathList;            // for looping over <reload>
+    TreeMap reload;               // folders to find rules again, by path
+    Object rules;                 // ignore rules for one folder, if any
+
+    changed = new Vector();       // compare ignore files in each folder
+    enumer = ignoreDates.keys();
+    while (enumer.hasMoreElements())
+    {
+      folderPath = (String) enumer.nextElement();
+      if (getIgnoreState(new File(folderPath)).equals(ignoreDates.get(
+        folderPath)) == false)
+      {
+        changed.add(folderPath);
+      }
+    }
+    if (changed.isEmpty())        // usually, nothing has changed
+      return(false);
+
+    reload = new TreeMap();       // changed folders and their subfolders
+    enumer = ignoreDates.keys();
+    while (enumer.hasMoreElements())
+    {
+      folderPath = (String) enumer.nextElement();
+      for (i = 0; i < changed.size(); i ++)
+        if (folderPath.equals(changed.get(i)) || folderPath.startsWith(
+          changed.get(i) + File.separator))
+        {
+          reload.put(folderPath, folderPath);
+          break;
+        }
+    }
+    for (i = 0; i < changed.size(); i ++) // in any order, only messages
+      putOrdered("Changes in ignore files for folder " + changed.get(i));
+
+    dropped = null;               // no folders are ignored yet
+    forgot = false;               // nothing forgotten yet
+    pathList = reload.keySet().iterator(); // sorted, so parents come first
+    while (pathList.hasNext())
+    {
+      folderPath = (String) pathList.next();
+      folder = new File(folderPath);
+      parentPath = folder.getParent();
+      if ((dropped != null) && folderPath.startsWith(dropped
+        + File.separator))        // inside a folder that is now ignored?
+      {
+        forgetFolder(folderPath);
+        forgot = true;
+        continue;
+      }
+      outer = findIgnoreParent(folder); // rules already found for parent
+      if ((parentPath != null) && ignoreFolders.containsKey(parentPath)
+        && isIgnored(outer, parentPath, folder.getName(), true))
+      {
+        dropped = folderPath;     // forget this folder and its subfolders
+        forgetFolder(folderPath);
+        forgot = true;
+        continue;
+      }
+      rules = loadIgnore(folder, null, outer);
+      ignoreDates.put(folderPath, getIgnoreState(folder));
+      ignoreFolders.put(folderPath, ((rules != null) ? rules
+        : (Object) Boolean.FALSE));
+      ((long[]) watchFolders.get(folderPath))[0] = -1;
+                                  // list folder again, for files not ignored
+    }
+
+    jobs = new Vector();          // can't remove while enumerating
+    enumer = watchTable.elements();
+    while (enumer.hasMoreElements())
+    {
+      job = (CheckPlainTrim2File) enumer.nextElement();
+      parentPath = job.file.getParent();
+      if ((parentPath == null) || (reload.containsKey(parentPath) == false))
+        continue;                 // same rules as before
+      rules = ignoreFolders.get(parentPath); // null if folder was forgotten
+      if ((rules == null) || ((rules instanceof CheckPlainTrim2Ignore)
+        && isIgnored((CheckPlainTrim2Ignore) rules, parentPath,
+        job.file.getName(), false)))
+      {
+        jobs.add(job);
+      }
+    }
+    for (i = 0; i < jobs.size(); i ++) // forget files that are now ignored
+    {
+      job = (CheckPlainTrim2File) jobs.get(i);
+      watchTable.remove(job.file.getPath());
+      forgetFile(job);            // subtract previous result from totals
+      forgot = true;
+    }
+    return(forgot);
+  }
+
+
+/*
+  watchSettle() method
+
+  Called by watchFiles() for a file or folder that is new or has changed.  The
+  first time that we see a new size and date, we only remember them.  If the
+  size and date are the same on the next poll, then the file has stopped
+  changing, and we add it to the caller's list of files to check.  Return true
+  if the file is ready to be checked, and false if we are still waiting.
+*/
+  static boolean watchSettle(Hashtable settling, TreeMap changed, File file)
+  {
+    String path;                  // name of file or folder, including path
+    String state;                 // size and date of file right now
+
+    path = file.getPath();        // same key as in <watchTable>
+    state = file.length() + " " + file.lastModified(); // zero if deleted
+    if (state.equals(settling.get(path))) // same as on previous poll?
+    {
+      settling.remove(path);      // yes, file has stopped changing
+      changed.put(path, file);    // check this file now
+      return(true);
+    }
+    settling.put(path, state);    // file is still changing, or first change
+    return(false);                // wait for next poll
+  }
+
+
+/*
+  writeCache() method
+
+  Write the given results, sorted by file path, to the cache file in the format
+  described for loadCache().  Called by saveCache(), which reports errors.
+*/
+  static void writeCache(TreeMap sorted) throws IOException
+  {
+    CheckPlainTrim2File entry;    // one result to be written
+    long[] full;                  // hash of all contents, or null
+    long[] hashes;                // hash of sample of contents, or null
+    int i, k;                     // index variables
+    DataOutputStream output;      // output stream for cache file
+    String path;                  // file path for current entry
+    String[] pathList;            // all file paths in sorted order
+    String previous;              // file path from previous entry
+    Vector settingList;           // table of check settings, in order
+
+    pathList = (String[]) sorted.keySet().toArray(new String[0]);
+    settingList = new Vector();   // collect the different check settings
+    for (i = 0; i < pathList.length; i ++)
+    {
+      entry = (CheckPlainTrim2File) sorted.get(pathList[i]);
+      if (settingList.contains(entry.settings) == false) // only a few
+        settingList.add(entry.settings);
+    }
+
+    output = new DataOutputStream(new BufferedOutputStream(new
+      FileOutputStream(cacheFile)));
+    try                           // always close file, even after errors
+    {
+      output.writeInt(CACHE_MAGIC); // header
+      output.writeInt(CACHE_VERSION);
+      output.writeInt(settingList.size()); // check settings
+      for (i = 0; i < settingList.size(); i ++)
+        output.writeUTF((String) settingList.get(i));
+
+      output.writeInt(pathList.length); // number of files in cache
+      previous = "";              // first path shares nothing
+      for (i = 0; i < pathList.length; i ++)
+      {
+        path = pathList[i];
+        entry = (CheckPlainTrim2File) sorted.get(path);
+        k = 0;                    // count leading characters shared
+        while ((k < path.length()) && (k < previous.length()) && (k < 0xFFFF)
+          && (path.charAt(k) == previous.charAt(k)))
+        {
+          k ++;
+        }
+        output.writeShort(k);     // shared prefix
+        output.writeUTF(path.substring(k)); // remaining characters
+        output.writeLong(entry.fileSize);
+        output.writeLong(entry.fileTime);
+        output.writeShort(settingList.indexOf(entry.settings));
+        output.writeInt(entry.foundChar);
+        output.writeBoolean(entry.foundSpace);
+        hashes = entry.contentHash; // copy in case another thread adds one
+        full = entry.fullHash;
+        if (hashes == null)       // no content hashes
+          output.writeByte(0);
+        else if (full == null)    // only a sample from the file was hashed
+        {
+          output.writeByte(1);
+          output.writeLong(hashes[0]);
+          output.writeLong(hashes[1]);
+        }
+        else                      // sample and all contents were hashed
+        {
+          output.writeByte(2);
+          output.writeLong(hashes[0]);
+          output.writeLong(hashes[1]);
+          output.writeLong(full[0]);
+          output.writeLong(full[1]);
+        }
+        previous = path;          // next path is compared to this one
+      }
+    }
+    finally
+    {
+      output.close();             // close cache file
+    }
+  } // end of writeCache() method
+
+} // end of CheckPlainTrim2 class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  CheckPlainTrim2User class
+
+  This class listens to input from the user and passes back event parameters to
+  a static method in the window class.
+*/
+
+class CheckPlainTrim2User implements ActionListener, DocumentListener, Runnable
+{
+  /* empty constructor */
+
+  public CheckPlainTrim2User() { }
+
+  /* button listener, dialog boxes, etc */
+
+  public void actionPerformed(ActionEvent event)
+  {
+    CheckPlainTrim2Window.userButton(event);
+  }
+
+  /* document listeners for changes to text fields */
+
+  public void changedUpdate(DocumentEvent event)
+  {
+    /* Ignore that an attribute or set of attributes changed. */
+  }
+
+  public void insertUpdate(DocumentEvent event)
+  {
+    CheckPlainTrim2Window.userDocument(event.getDocument());
+  }
+
+  public void removeUpdate(DocumentEvent event)
+  {
+    CheckPlainTrim2Window.userDocument(event.getDocument());
+  }
+
+  /* separate heavy-duty processing thread */
+
+  public void run()
+  {
+    CheckPlainTrim2Window.doOpenRunner();
+  }
+
+} // end of CheckPlainTrim2User class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  CheckPlainTrim2Cache class
+
+  This class is the table of previous results, by file path, kept in order of
+  use: a lookup or a new result moves the file to the end.  When running as a
+  server, which may see many folders over a long time, the least recently used
+  result is dropped after <SERVE_CACHE> entries, instead of growing without
+  limit.  Other runs keep every result.  The table is always wrapped with
+  Collections.synchronizedMap(), because even a lookup changes the order.
+*/
+
+class CheckPlainTrim2Cache extends LinkedHashMap
+{
+  /* constants */
+
+  private static final long serialVersionUID = 1L; // hash map is Serializable
+
+  /* constructor */
+
+  public CheckPlainTrim2Cache()
+  {
+    super(16, 0.75f, true);       // default size, ordered by access
+  }
+
+  /* drop the least recently used result, if there are too many */
+
+  protected boolean removeEldestEntry(Map.Entry eldest)
+  {
+    return((CheckPlainTrim2.servePort > 0)
+      && (size() > CheckPlainTrim2.SERVE_CACHE));
+  }
+
+} // end of CheckPlainTrim2Cache class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  CheckPlainTrim2File class
+
+  This class describes one file to be checked, and after checking, what was
+  found.  The same object sits in the work list for a worker thread and in the
+  pending list for reporting in order.  Results are also kept in the cache of
+  previous results, with the file's size and date.
+*/
+
+class CheckPlainTrim2File
+{
+  /* instance variables */
+
+  boolean abortFlag;              // true if cancelled before finishing
+  boolean binaryFlag;             // true if file looks binary, wasn't checked
+  boolean checkedFlag;            // true if contents were completely checked
+  long[] contentHash;             // hash of sample of contents, or null
+  int[] detailChars;              // bad character, or -1 for trailing spaces
+  long[] detailColumns;           // column of each finding, from one
+  long[] detailLines;             // line of each finding, from one
+  boolean doneFlag;               // true when checking is finished
+  boolean duplicateFlag;          // true if result copied from another file
+  String errorText;               // I/O error message, or null if none
+  File file;                      // full directory resolution of file
+  long fileSize;                  // size of file in bytes, if cached
+  long fileTime;                  // date and time file was last modified
+  int foundChar;                  // first bad character found, if any
+  boolean foundSpace;             // true if trailing white space found
+  long[] fullHash;                // hash of all contents, or null
+  boolean largeFlag;              // true if file too big, wasn't opened
+  boolean moreFlag;               // true if findings were dropped after limit
+  String settings;                // check options, from getSettings()
+
+  /* constructor */
+
+  public CheckPlainTrim2File(File givenFile)
+  {
+    abortFlag = binaryFlag = checkedFlag = doneFlag = false;
+                                  // nothing has been done yet
+    contentHash = fullHash = null; // contents are only hashed for duplicates
+    detailChars = null;           // positions are only kept with -v option
+    detailColumns = detailLines = null;
+    duplicateFlag = largeFlag = false;
+    errorText = null;             // no errors yet
+    file = givenFile;             // caller's canonical file
+    fileSize = fileTime = -1;     // size and date are only needed for cache
+    foundChar = -1;               // no bad characters found yet
+    foundSpace = false;           // no white space found yet
+    moreFlag = false;             // no findings dropped yet
+    settings = null;              // options are only needed for cache
+  }
+
+} // end of CheckPlainTrim2File class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  CheckPlainTrim2Ignore class
+
+  This class holds the rules from the ignore files (".gitignore" and ".ignore")
+  in one folder, with a link to the rules for the folders above it.  The rules
+  follow git's syntax: "#" comments, "!" to include again what an earlier rule
+  ignored, a trailing "/" for folders only, and a leading or middle "/" to
+  match a path relative to this folder instead of a name in any subfolder.
+  As in git, the last matching rule wins, and rules in a subfolder come before
+  rules in the folders above it.
+
+  Most rules are plain names ("node_modules/") or file types ("*.log"), which
+  are found with one hash table lookup, no matter how many rules there are.
+  Only the other rules are regular expressions, and those are tried from last
+  to first, stopping as soon as a rule could not win over a rule already
+  found.  The relative path for a file is only created when it's needed.
+*/
+
+class CheckPlainTrim2Ignore
+{
+  /* constants */
+
+  static final String[] IGNORE_NAMES = {".gitignore", ".ignore"};
+                                  // ignore files, in order, later files win
+
+  /* instance variables */
+
+  int count;                      // number of rules, including all kinds
+  Hashtable extensions;           // rule number (int[1]) by extension, "*.log"
+  boolean[] folderOnly;           // true for each rule ending with "/"
+  String folderPath;              // folder with the ignore files
+  Hashtable folderNames;          // rule number (int[1]) by name, folders only
+  Hashtable names;                // rule number (int[1]) by name, any kind
+  boolean[] negated;              // true for each rule starting with "!"
+  CheckPlainTrim2Ignore parent;   // rules for folders above, or null
+  int[] patternRules;             // rule number for each pattern
+  Vector patterns;                // compiled rules that aren't simple names
+  boolean[] relative;             // true for each rule matching relative path
+
+  /* constructor */
+
+  public CheckPlainTrim2Ignore(String givenPath, CheckPlainTrim2Ignore
+    givenParent)
+  {
+    count = 0;                    // no rules yet
+    extensions = new Hashtable();
+    folderPath = givenPath;       // canonical path from caller
+    folderNames = new Hashtable();
+    folderOnly = new boolean[16]; // grows as needed
+    names = new Hashtable();
+    negated = new boolean[16];
+    parent = givenParent;
+    patternRules = new int[16];
+    patterns = new Vector();
+    relative = new boolean[16];
+  }
+
+/*
+  addRule() method
+
+  Parse one line from an ignore file, and add it to the rules, unless it's a
+  blank line or comment.
+*/
+  void addRule(String line)
+  {
+    int[] number;                 // this rule's number, for hash tables
+    String word;                  // rule after removing special characters
+
+    word = line;                  // start with caller's line
+    while (word.endsWith(" ") && (word.endsWith("\\ ") == false))
+      word = word.substring(0, (word.length() - 1)); // trailing spaces
+    if ((word.length() == 0) || word.startsWith("#"))
+      return;                     // blank line or comment
+    if (count == negated.length)  // is there room for another rule?
+    {
+      folderOnly = grow(folderOnly);
+      negated = grow(negated);
+      relative = grow(relative);
+    }
+    negated[count] = word.startsWith("!"); // include again?
+    if (negated[count])
+      word = word.substring(1);
+    else if (word.startsWith("\\!") || word.startsWith("\\#"))
+      word = word.substring(1);   // name really starts with "!" or "#"
+    folderOnly[count] = word.endsWith("/"); // folders only?
+    if (folderOnly[count])
+      word = word.substring(0, (word.length() - 1));
+    if (word.startsWith("**/") && (word.indexOf('/', 3) < 0))
+      word = word.substring(3);   // same as a name in any subfolder
+    relative[count] = (word.indexOf('/') >= 0); // relative to this folder?
+    if (word.startsWith("/"))
+      word = word.substring(1);
+    if (word.length() == 0)       // nothing left to match
+      return;
+
+    number = new int[] { count }; // later rules replace earlier rules
+    if ((relative[count] == false) && (hasWildcard(word) == false))
+      (folderOnly[count] ? folderNames : names).put(word, number);
+    else if ((relative[count] == false) && (folderOnly[count] == false)
+      && word.startsWith("*.") && (hasWildcard(word.substring(1)) == false)
+      && (word.indexOf('.', 2) < 0))
+    {
+      extensions.put(word.substring(1), number); // ".log" for "*.log"
+    }
+    else                          // compile anything else
+    {
+      if (patterns.size() == patternRules.length) // room for another?
+      {
+        int[] bigger = new int[patternRules.length * 2];
+        System.arraycopy(patternRules, 0, bigger, 0, patterns.size());
+        patternRules = bigger;
+      }
+      patternRules[patterns.size()] = count;
+      patterns.add(Pattern.compile(CheckPlainTrim2.globToRegex(word, true),
+        Pattern.DOTALL));
+    }
+    count ++;                     // one more rule accepted
+  }
+
+
+/*
+  findRule() method
+
+  Return the number of the last rule in this folder that matches a file or
+  subfolder, or -1 if none match.  <path> is the folder that has the file or
+  subfolder, which is this folder or a subfolder below it.
+*/
+  int findRule(String path, String name, boolean folderFlag)
+  {
+    int best;                     // highest rule number that matches
+    int dot;                      // index of last period in name
+    int i;                        // index variable
+    int[] number;                 // rule number from a hash table
+    String pathText;              // path below this folder, or null
+    int rule;                     // rule number for one pattern
+
+    best = -1;                    // no rule found yet
+    number = (int[]) names.get(name);
+    if (number != null)
+      best = number[0];
+    if (folderFlag && ((number = (int[]) folderNames.get(name)) != null))
+      best = Math.max(best, number[0]);
+    dot = name.lastIndexOf('.');  // find file name extension, if any
+    if ((dot >= 0) && ((number = (int[]) extensions.get(name.substring(dot)))
+      != null))
+    {
+      best = Math.max(best, number[0]);
+    }
+    pathText = null;              // only create relative path if needed
+    for (i = patterns.size() - 1; i >= 0; i --) // last rule wins
+    {
+      rule = patternRules[i];
+      if (rule <= best)
+        break;                    // earlier rules can't win anyway
+      if (folderOnly[rule] && (folderFlag == false))
+        continue;                 // rule is for folders only
+      if (relative[rule])         // does rule match a relative path?
+      {
+        if (pathText == null)     // first rule with a path?
+          pathText = relativePath(path, name);
+        if (((Pattern) patterns.get(i)).matcher(pathText).matches())
+          return(rule);
+      }
+      else if (((Pattern) patterns.get(i)).matcher(name).matches())
+        return(rule);
+    }
+    return(best);
+  }
+
+
+/*
+  grow() method
+
+  Copy the flags for each rule into an array twice as big, and return the
+  bigger array.
+*/
+  boolean[] grow(boolean[] flags)
+  {
+    boolean[] bigger;             // new array with room for more rules
+
+    bigger = new boolean[flags.length * 2];
+    System.arraycopy(flags, 0, bigger, 0, count);
+    return(bigger);
+  }
+
+
+/*
+  hasWildcard() method
+
+  Return true if a rule has wild cards or quoted characters, and can't be
+  found by an exact lookup.
+*/
+  static boolean hasWildcard(String word)
+  {
+    return(CheckPlainTrim2.isGlob(word) || (word.indexOf('\\') >= 0));
+  }
+
+
+/*
+  isIgnored() method
+
+  Return true if a file or subfolder should be ignored.  Rules in this folder
+  are tried first, then rules in folders above it.  The first folder with a
+  matching rule decides.
+*/
+  boolean isIgnored(String path, String name, boolean folderFlag)
+  {
+    CheckPlainTrim2Ignore level;  // rules for one folder
+    int rule;                     // matching rule number, or -1
+
+    for (level = this; level != null; level = level.parent)
+    {
+      rule = level.findRule(path, name, folderFlag);
+      if (rule >= 0)              // does any rule in this folder match?
+        return(level.negated[rule] == false);
+    }
+    return(false);                // no rules match, don't ignore
+  }
+
+
+/*
+  readFile() method
+
+  Read one ignore file, and add its rules to this folder.  Ignore files are
+  UTF-8 text, with one rule per line.
+*/
+  void readFile(File file) throws IOException
+  {
+    BufferedReader reader;        // for reading ignore file line by line
+    String line;                  // one line from ignore file
+
+    reader = new BufferedReader(new InputStreamReader(new FileInputStream(
+      file), "UTF-8"));
+    try                           // always close file, even after errors
+    {
+      while ((line = reader.readLine()) != null)
+        addRule(line);
+    }
+    finally
+    {
+      reader.close();             // close text file
+    }
+  }
+
+
+/*
+  relativePath() method
+
+  Return the path of a file or subfolder relative to this folder, with "/"
+  between names, as written in ignore files.
+*/
+  String relativePath(String path, String name)
+  {
+    String below;                 // part of caller's path below this folder
+
+    if (path.length() <= folderPath.length()) // same folder as rules?
+      return(name);
+    below = path.substring(folderPath.length()).replace(File.separatorChar,
+      '/');
+    if (below.startsWith("/"))    // remove separator after this folder
+      below = below.substring(1);
+    return(below + "/" + name);
+  }
+
+} // end of CheckPlainTrim2Ignore class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  CheckPlainTrim2Index class
+
+  This class reads the list of tracked files from a git repository's index
+  file (".git/index") without running git.  Only the parts that we need are
+  kept: the path of each file, and the size and date that git saw when the file
+  was last staged.  Versions 2, 3, and 4 of the index format are accepted.  In
+  version 4, each path is stored as the number of bytes to remove from the end
+  of the previous path, followed by the new ending.  Extensions after the
+  entries (cached trees, etc) are ignored.
+
+  A file is "clean" if its size and date are the same as in the index.  As git
+  does, we don't trust a file modified in the same second as (or after) the
+  index was written, because it may have changed again without a new date.
+*/
+
+class CheckPlainTrim2Index
+{
+  /* constants */
+
+  static final int ENTRY_FIXED = 62; // bytes before path with 20-byte hash
+  static final int FLAG_EXTENDED = 0x4000; // entry has second flags word
+  static final int FLAG_SKIP = 0x4000; // "skip-worktree" in second flags word
+  static final int INDEX_SIGNATURE = 0x44495243; // "DIRC" at start of index
+  static final int MODE_LINK = 0120000; // symbolic link in <mode> field
+  static final int MODE_REGULAR = 0100000; // regular file in <mode> field
+  static final int MODE_TYPE = 0170000; // mask for type of entry
+
+  /* instance variables */
+
+  int count;                      // number of entries that we kept
+  long indexTime;                 // date and time index file was written
+  String[] paths;                 // relative paths with "/" between names
+  File root;                      // top folder of working tree
+  int[] sizes;                    // file sizes, modulo 2^32 as in git
+  long[] times;                   // modification dates in milliseconds
+
+  /* constructor */
+
+  public CheckPlainTrim2Index(File givenRoot, File gitFolder)
+    throws IOException
+  {
+    byte[] bigger;                // larger buffer for long path names
+    int ch;                       // one byte of variable-length integer
+    byte[] data;                  // entire contents of index file
+    int entries;                  // number of entries in index file
+    int extra;                    // extra bytes in entry for bigger hashes
+    int flags;                    // flags word(s) for one entry
+    int hashSize;                 // bytes in object hash (20 or 32)
+    int i;                        // index variable
+    File indexFile;               // the index file itself
+    int length;                   // number of bytes in one path name
+    int mode;                     // type and permissions of one entry
+    String name;                  // path name decoded from UTF-8
+    int offset;                   // current byte offset in <data>
+    byte[] path;                  // bytes of current path name (UTF-8)
+    int pathLength;               // number of bytes used in <path>
+    int start;                    // starting byte offset of one entry
+    int strip;                    // bytes to remove from previous path (v4)
+    int version;                  // index format version (2, 3, or 4)
+    ByteBuffer view;              // big-endian view of <data>
+
+    root = givenRoot;             // caller's canonical working tree
+    indexFile = new File(gitFolder, "index");
+    indexTime = indexFile.lastModified(); // before reading, for "racy" files
+    data = readFile(indexFile);   // read entire index into memory
+    view = ByteBuffer.wrap(data); // all numbers are big-endian
+    if ((data.length < 12) || (view.getInt(0) != INDEX_SIGNATURE))
+      throw new IOException("not a git index file");
+    version = view.getInt(4);
+    if ((version < 2) || (version > 4))
+      throw new IOException("unsupported git index version " + version);
+    entries = view.getInt(8);
+
+    hashSize = findHashSize(gitFolder); // SHA-1 or SHA-256 repository
+    extra = hashSize - 20;        // <ENTRY_FIXED> assumes SHA-1
+    count = 0;                    // no entries kept yet
+    paths = new String[entries];  // allocate for all entries, even if skipped
+    sizes = new int[entries];
+    times = new long[entries];
+    path = new byte[256];         // grows as needed for longer paths
+    pathLength = 0;               // there is no previous path yet
+    offset = 12;                  // first entry follows the header
+
+    for (i = 0; i < entries; i ++)
+    {
+      start = offset;             // remember start of entry for padding
+      if ((offset + ENTRY_FIXED + extra) > data.length)
+        throw new IOException("git index file is truncated");
+      mode = view.getInt(offset + 24);
+      flags = view.getShort(offset + 60 + extra) & 0xFFFF;
+      offset += ENTRY_FIXED + extra;
+      if ((flags & FLAG_EXTENDED) != 0) // version 3 and later only
+      {
+        flags = view.getShort(offset) & 0xFFFF; // keep only second word
+        offset += 2;
+      }
+      else
+        flags = 0;                // no "skip-worktree" bit
+
+      if (version >= 4)           // path is compressed against previous path
+      {
+        ch = data[offset ++] & 0xFF; // decode git's variable-length integer
+        strip = ch & 0x7F;
+        while ((ch & 0x80) != 0)
+        {
+          if (offset >= data.length)
+            throw new IOException("git index file is truncated");
+          ch = data[offset ++] & 0xFF;
+          strip = ((strip + 1) << 7) | (ch & 0x7F);
+        }
+        if (strip > pathLength)
+          throw new IOException("git index file has bad path compression");
+        pathLength -= strip;      // keep beginning of previous path
+      }
+      else
+        pathLength = 0;           // each path is complete
+
+      length = 0;                 // find end of this path (or path ending)
+      while (((offset + length) < data.length) && (data[offset + length] != 0))
+        length ++;
+      if ((offset + length) >= data.length) // also catches bad (v4) prefix
+        throw new IOException("git index file is truncated");
+      if ((pathLength + length) > path.length) // need a bigger buffer?
+      {
+        bigger = new byte[(pathLength + length) * 2];
+        System.arraycopy(path, 0, bigger, 0, pathLength);
+        path = bigger;
+      }
+      System.arraycopy(data, offset, path, pathLength, length);
+      pathLength += length;
+      offset += length + 1;       // skip path and its terminating NUL
+      if (version < 4)            // entries are padded to multiple of eight
+        offset = start + (((offset - start) + 7) & ~7);
+
+      /* Keep regular files and symbolic links that are in the working tree.
+      Skip submodules, sparse directories, and files that git has been told to
+      leave out.  Files with merge conflicts have more than one entry (stage),
+      but we only want the file once. */
+
+      if ((((mode & MODE_TYPE) == MODE_REGULAR)
+        || ((mode & MODE_TYPE) == MODE_LINK))
+        && ((flags & FLAG_SKIP) == 0))
+      {
+        name = new String(path, 0, pathLength, "UTF-8");
+        if ((count == 0) || (name.equals(paths[count - 1]) == false))
+        {
+          paths[count] = name;
+          sizes[count] = view.getInt(start + 36);
+          times[count] = (view.getInt(start + 8) & 0xFFFFFFFFL) * 1000
+            + ((view.getInt(start + 12) & 0xFFFFFFFFL) / 1000000);
+          count ++;
+        }
+      }
+    }
+  }
+
+/*
+  findHashSize() method
+
+  Return the number of bytes in an object hash for a repository: 20 for SHA-1
+  (the usual case), or 32 if the repository's configuration says SHA-256.
+*/
+  static int findHashSize(File gitFolder)
+  {
+    String text;                  // contents of configuration file
+
+    try { text = new String(readFile(new File(gitFolder, "config")), "UTF-8"); }
+    catch (IOException ioe) { return(20); } // assume SHA-1 if no config
+    if (Pattern.compile("(?im)^\\s*objectformat\\s*=\\s*sha256\\s*$").matcher(
+      text).find())
+    {
+      return(32);                 // newer SHA-256 object names
+    }
+    return(20);                   // older and more common SHA-1 names
+  }
+
+
+/*
+  findRoot() method
+
+  Search up from a folder for the top of a git working tree, which is the
+  first folder with a ".git" subfolder or file.  A ".git" file (worktrees,
+  submodules) contains the real location as "gitdir: path".  Return an array
+  with the top folder and the git folder, or null if not in a working tree.
+*/
+  static File[] findRoot(File folder)
+  {
+    File dotGit;                  // ".git" in the current folder
+    File gitFolder;               // real git folder for current folder
+    String text;                  // contents of ".git" file
+
+    while (folder != null)
+    {
+      dotGit = new File(folder, ".git");
+      if (dotGit.isDirectory())   // usual case, a normal repository
+        return(new File[] { folder, dotGit });
+      if (dotGit.isFile())        // a link to the real git folder
+      {
+        try { text = new String(readFile(dotGit), "UTF-8").trim(); }
+        catch (IOException ioe) { text = ""; }
+        if (text.startsWith("gitdir:"))
+        {
+          gitFolder = new File(text.substring(7).trim());
+          if (gitFolder.isAbsolute() == false) // relative to working tree
+            gitFolder = new File(folder, gitFolder.getPath());
+          return(new File[] { folder, gitFolder });
+        }
+      }
+      folder = folder.getParentFile(); // try the next folder up
+    }
+    return(null);                 // not inside a git working tree
+  }
+
+
+/*
+  isClean() method
+
+  Return true if a file has the same size and date as its entry in the index,
+  and so is probably unchanged since it was staged.  Dates are compared to the
+  millisecond if the file system gives us milliseconds, and to the second
+  otherwise.
+*/
+  boolean isClean(int entry, File file)
+  {
+    long time;                    // date and time file was last modified
+
+    time = file.lastModified();   // zero if file doesn't exist
+    if ((time == 0) || ((int) file.length() != sizes[entry]))
+      return(false);              // deleted or size has changed
+    if ((time % 1000) == 0)       // only seconds from this file system?
+    {
+      if ((time / 1000) != (times[entry] / 1000))
+        return(false);
+    }
+    else if (time != times[entry]) // compare to the millisecond
+      return(false);
+    return((times[entry] / 1000) < (indexTime / 1000)); // not "racy"
+  }
+
+
+/*
+  readFile() method
+
+  Read an entire file into a byte array.  The caller catches I/O errors.
+*/
+  static byte[] readFile(File file) throws IOException
+  {
+    byte[] data;                  // entire contents of file
+    DataInputStream stream;       // input stream for raw data bytes
+
+    stream = new DataInputStream(new FileInputStream(file));
+    try                           // always close file, even after errors
+    {
+      data = new byte[(int) file.length()];
+      stream.readFully(data);     // read all bytes, or throw EOFException
+    }
+    finally
+    {
+      stream.close();             // close byte file
+    }
+    return(data);
+  }
+
+} // end of CheckPlainTrim2Index class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  CheckPlainTrim2Rows class
+
+  This class holds the report lines for the graphical interface, and is the
+  list model for the scrolling list that shows them.  Rows are kept in columns
+  (arrays) instead of as complete strings: the file name or message, the kind
+  of row, and the first bad character.  The text for a row is only created when
+  the list draws that row, so a report with hundreds of thousands of files
+  uses little memory, and the list only draws the rows that are visible.  The
+  width of the list comes from the length of each row, found from the columns
+  without creating its text.
+
+  Any thread may add rows.  New rows are not shown until publish() is called
+  on the event thread, by a timer, so that the list is updated in batches and
+  not once per file.  Methods that read the columns are synchronized, because
+  another thread may replace the arrays when they grow.  The list shows only
+  the rows allowed by the current <show...Flag> options.  When the user
+  changes those options, refilter() finds the rows again without checking any
+  files again.
+*/
+
+class CheckPlainTrim2Rows extends AbstractListModel
+{
+  /* constants */
+
+  static final String CORRECT_TEXT = " - is "; // same as formatResult()
+  static final int FIRST_SIZE = 1024; // initial number of rows in arrays
+  static final String INVALID_TEXT = " - invalid character, 0x";
+  static final int ROW_CORRECT = 1; // file is correct, <showSuccessFlag>
+  static final int ROW_FAILURE = 2; // file has errors, <showFailureFlag>
+  static final int ROW_OTHER = 3; // various other results, <showOtherFlag>
+  static final int ROW_TEXT = 0;  // messages that are always shown
+  static final String SPACE_TEXT = " - trailing spaces or tabs";
+  private static final long serialVersionUID = 1L; // list model is Serializable
+
+  /* instance variables */
+
+  int count;                      // number of rows, including unpublished
+  int[] foundChars;               // first bad character, or -1, for each row
+  boolean[] foundSpaces;          // true if trailing white space, each row
+  byte[] kinds;                   // kind of each row, from ROW_... constants
+  int longestLength;              // length of longest line shown
+  int longestRow;                 // longest line shown, for width, or -1
+  int published;                  // number of rows given to the list so far
+  String[] texts;                 // file name or complete message, each row
+  int[] view;                     // index of each row shown by the list
+  int viewCount;                  // number of rows shown by the list
+
+  /* constructor */
+
+  public CheckPlainTrim2Rows()
+  {
+    count = published = viewCount = 0; // there are no rows yet
+    foundChars = new int[FIRST_SIZE]; // arrays grow as needed
+    foundSpaces = new boolean[FIRST_SIZE];
+    kinds = new byte[FIRST_SIZE];
+    longestLength = 0;            // nothing shown yet
+    longestRow = -1;
+    texts = new String[FIRST_SIZE];
+    view = new int[FIRST_SIZE];
+  }
+
+/*
+  add() method
+
+  Add one row at the end, from any thread.  For files, <text> is the file name
+  only; for messages, <text> is the complete line.  The row is not shown until
+  the next call to publish().
+*/
+  synchronized void add(String text, int kind, int foundChar,
+    boolean foundSpace)
+  {
+    int size;                     // new size of arrays, if full
+
+    if (count >= texts.length)    // are the arrays full?
+    {
+      size = count * 2;           // double the size of each column
+      foundChars = (int[]) grow(foundChars, new int[size]);
+      foundSpaces = (boolean[]) grow(foundSpaces, new boolean[size]);
+      kinds = (byte[]) grow(kinds, new byte[size]);
+      texts = (String[]) grow(texts, new String[size]);
+    }
+    foundChars[count] = foundChar;
+    foundSpaces[count] = foundSpace;
+    kinds[count] = (byte) kind;
+    texts[count] = text;
+    count ++;                     // one more row, not published yet
+  }
+
+
+/*
+  clear() method
+
+  Remove all rows, before a new search.  Call only on the event thread.
+*/
+  void clear()
+  {
+    int old;                      // number of rows shown before clearing
+
+    synchronized (this)           // other threads may be adding rows
+    {
+      Arrays.fill(texts, 0, count, null); // release strings for garbage
+      count = published = 0;      // there are no rows now
+    }
+    old = viewCount;              // tell the list that all rows are gone
+    viewCount = 0;
+    longestLength = 0;
+    longestRow = -1;
+    if (old > 0)
+      fireIntervalRemoved(this, 0, (old - 1));
+  }
+
+
+/*
+  getElementAt() and getSize() methods
+
+  Required by the ListModel interface.  The list asks for the text of a row
+  only when it needs to draw that row.
+*/
+  public synchronized Object getElementAt(int index)
+  {
+    return(getText(view[index])); // text of row shown at this position
+  }
+
+  public int getSize()
+  {
+    return(viewCount);            // number of rows shown by the list
+  }
+
+
+/*
+  getLength() method
+
+  Return the length of the complete text for one row, from the columns, without
+  creating the text.  This must agree with getText() and formatResult().
+*/
+  int getLength(int row)
+  {
+    int length;                   // number of characters in complete text
+    int value;                    // remaining digits of bad character
+
+    length = texts[row].length(); // file name or complete message
+    if (kinds[row] == ROW_CORRECT) // correct files have only a name
+      length += CORRECT_TEXT.length()
+        + CheckPlainTrim2.defaults.textType.length();
+    else if (kinds[row] == ROW_FAILURE) // errors say what was found
+    {
+      if (foundChars[row] >= 0)   // was there a bad character?
+      {
+        length += INVALID_TEXT.length();
+        value = foundChars[row];  // count hexadecimal digits
+        do { length ++; value >>>= 4; } while (value != 0);
+      }
+      if (foundSpaces[row])       // was there trailing white space?
+        length += SPACE_TEXT.length();
+    }
+    return(length);
+  }
+
+
+/*
+  getLongest() method
+
+  Return the complete text of the longest row shown, for the width of the list.
+  Only this row has its text created.
+*/
+  synchronized String getLongest()
+  {
+    return((longestRow < 0) ? "" : getText(longestRow));
+  }
+
+
+/*
+  getText() method
+
+  Return the complete text for one row, the same as a console report line.
+*/
+  String getText(int row)
+  {
+    if (kinds[row] == ROW_CORRECT) // correct files have only a name
+      return(texts[row] + CORRECT_TEXT + CheckPlainTrim2.defaults.textType);
+    if (kinds[row] == ROW_FAILURE) // errors have a name and what was found
+      return(CheckPlainTrim2.formatResult(texts[row], foundChars[row],
+        foundSpaces[row]));
+    return(texts[row]);           // messages are kept as complete lines
+  }
+
+
+/*
+  grow() method
+
+  Copy a column (array) into a bigger array, and return the bigger array.
+*/
+  Object grow(Object column, Object bigger)
+  {
+    System.arraycopy(column, 0, bigger, 0, count);
+    return(bigger);
+  }
+
+
+/*
+  isShown() method
+
+  Return true if a row is allowed by the current <show...Flag> options.
+*/
+  boolean isShown(int row)
+  {
+    switch (kinds[row])
+    {
+      case (ROW_CORRECT):
+        return(CheckPlainTrim2.showSuccessFlag);
+      case (ROW_FAILURE):
+        return(CheckPlainTrim2.showFailureFlag);
+      case (ROW_OTHER):
+        return(CheckPlainTrim2.showOtherFlag);
+      default:                    // messages are always shown
+        return(true);
+    }
+  }
+
+
+/*
+  publish() method
+
+  Give the list all rows added since the last call, as one batch.  Call only on
+  the event thread.  Return the number of new rows shown by the list, which may
+  be less than the number of rows added, depending upon the options.
+*/
+  synchronized int publish()
+  {
+    int end;                      // number of rows to publish
+    int first;                    // first new position in list
+    int row;                      // index variable
+
+    end = count;                  // rows added by other threads
+    first = viewCount;            // new rows go at end of list
+    for (row = published; row < end; row ++)
+      showRow(row);               // add row to list if shown by options
+    published = end;
+    if (viewCount > first)        // did the list grow?
+      fireIntervalAdded(this, first, (viewCount - 1));
+    return(viewCount - first);
+  }
+
+
+/*
+  refilter() method
+
+  Find the rows allowed by the current <show...Flag> options, after the user
+  changes those options.  Call only on the event thread.
+*/
+  synchronized void refilter()
+  {
+    int old;                      // number of rows shown before filtering
+    int row;                      // index variable
+
+    old = viewCount;              // tell the list that all rows are gone
+    viewCount = 0;
+    longestLength = 0;
+    longestRow = -1;
+    if (old > 0)
+      fireIntervalRemoved(this, 0, (old - 1));
+    for (row = 0; row < published; row ++)
+      showRow(row);               // add row to list if shown by options
+    if (viewCount > 0)            // and then that some rows are back
+      fireIntervalAdded(this, 0, (viewCount - 1));
+  }
+
+
+/*
+  showRow() method
+
+  Add a row to the end of the list, if the row is allowed by the options.  We
+  remember the longest line, because the list doesn't measure every row.
+*/
+  void showRow(int row)
+  {
+    int length;                   // length of complete text of row
+
+    if (isShown(row) == false)    // is this row allowed by the options?
+      return;                     // no, don't show this row
+    if (viewCount >= view.length) // is the list of shown rows full?
+    {
+      int[] bigger = new int[view.length * 2];
+      System.arraycopy(view, 0, bigger, 0, viewCount);
+      view = bigger;
+    }
+    view[viewCount ++] = row;     // show this row at end of list
+    length = getLength(row);      // without creating the text
+    if (length > longestLength)   // longest line so far?
+    {
+      longestLength = length;
+      longestRow = row;
+    }
+  }
+
+} // end of CheckPlainTrim2Rows class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  CheckPlainTrim2Serve class
+
+  This class reads one request to the server (-a option) on its own thread,
+  and then checks the files with the same methods as the console application,
+  so that the report is the same as for a direct run.  Each request is a new
+  run (a CheckPlainTrim2 object) that starts with the server's own options,
+  and has its own totals, tables, cancel flag, and scanner settings, so
+  requests are checked at the same time without changing each other.  The
+  report goes to the client instead of standard output.
+
+  A request is lines of UTF-8 text: <SERVE_PROTOCOL>, then one command-line
+  parameter per line, then an empty line.  The reply is the report as lines of
+  UTF-8 text, then <SERVE_EXIT> followed by the exit status.  If the client
+  goes away, the request is cancelled.
+*/
+
+class CheckPlainTrim2Serve implements Runnable
+{
+  /* instance variables */
+
+  CheckPlainTrim2 run;            // options, totals, tables for this request
+  Socket socket;                  // connection to client
+
+  /* constructor */
+
+  public CheckPlainTrim2Serve(Socket givenSocket)
+  {
+    run = null;                   // created when request has been read
+    socket = givenSocket;
+  }
+
+/*
+  checkRequest() method
+
+  Check the files for one request, on this thread, with a new run that starts
+  with the server's options and has its own totals and tables.  Requests don't
+  wait for each other.  The report goes to the client's <output>, and ends with
+  the exit status.  Options are set by the request after the server's options,
+  and the totals start from zero, the same as a direct run.  The cache file
+  isn't written here; see runServer().
+*/
+  void checkRequest(Vector args, BufferedWriter output)
+  {
+    int i;                        // index variable
+    Vector names;                 // file and folder names from request
+    int status;                   // exit status for client
+
+    run = new CheckPlainTrim2(CheckPlainTrim2.defaults); // server's options
+    run.clientWriter = output;    // report goes to client
+    names = parseOptions(args);   // may change options for this request
+    if (names == null)            // were any options refused?
+      status = CheckPlainTrim2.EXIT_FAILURE;
+    else
+    {
+      run.putFormatStart();       // start SARIF or JUnit document
+      run.setScanOptions();       // same for all files in request
+      for (i = 0; i < names.size(); i ++)
+      {
+        if (run.cancelFlag) break; // stop if client has gone away
+        run.processFileOrFolder(new File((String) names.get(i)));
+      }
+      run.stopWorkers();          // report pending files, stop workers
+      run.printSummary();         // what we found and what was changed
+      status = run.getExitStatus(); // same as console application
+    }
+    run.putConsole(CheckPlainTrim2.SERVE_EXIT + status);
+    run.flushConsole();           // last line has exit status
+  }
+
+
+/*
+  parseOptions() method
+
+  Set the options for this request's run from the options in a request.
+  Options that change the server, or that aren't for the console report, are
+  refused.  Return the file and folder names, or null after reporting an
+  error.
+*/
+  Vector parseOptions(Vector args)
+  {
+    String arg;                   // one parameter from request
+    int i;                        // index variable
+    Vector names;                 // file and folder names from request
+    int number;                   // number after an option, if any
+    String word;                  // parameter in lowercase
+
+    names = new Vector();
+    for (i = 0; i < args.size(); i ++)
+    {
+      arg = (String) args.get(i);
+      word = arg.toLowerCase();   // easier to process if consistent case
+      if (CheckPlainTrim2.mswinFlag && word.startsWith("/"))
+        word = "-" + word.substring(1); // same as the application's options
+      number = -1;                // most options have no number
+      if ((word.length() > 2) && Character.isDigit(word.charAt(2)))
+      {
+        try { number = Integer.parseInt(word.substring(2)); }
+        catch (NumberFormatException nfe) { number = -1; }
+      }
+
+      if (word.equals("-b0") || word.equals("-b1"))
+        run.sniffFlag = (number == 1); // skip binary files
+      else if (word.startsWith("-d"))
+      {
+        if (word.length() < 3)    // was there a number after the option?
+          number = CheckPlainTrim2.DEDUPE_DEFAULT;
+        if ((number < 0) || (number > 9999))
+        {
+          run.putConsole(
+            "Memory for duplicate files must be from 0 to 9999 MB: " + arg);
+          return(null);
+        }
+        run.dedupeLimit = (int) (((long) number << 20)
+          / CheckPlainTrim2.DEDUPE_ENTRY); // zero means no duplicates
+      }
+      else if (word.startsWith("-e"))
+      {
+        run.encodeName = arg.substring(2);
+        run.encodeCharset = CheckPlainTrim2.findCharset(run.encodeName);
+                                  // look up name only once
+        if ((run.encodeCharset == null)
+          && (run.encodeName.equals(CheckPlainTrim2.RAW_ENCODING) == false))
+                                  // is this a name that Java doesn't know?
+        {
+          run.putConsole("Invalid character set name: " + arg);
+          return(null);
+        }
+      }
+      else if (word.equals("-g0") || word.equals("-g1") || word.equals("-g2"))
+        run.gitMode = number;     // same as GIT_* constants
+      else if (word.equals("-k0") || word.equals("-k2"))
+        run.scanEngine = CheckPlainTrim2.ENGINE_WORD;
+      else if (word.equals("-k1"))
+        run.scanEngine = CheckPlainTrim2.ENGINE_BYTE;
+      else if (word.startsWith("-l"))
       {
-        /* This option is followed by a list of four numbers for the initial
-        window position and size.  All values are accepted, but small heights
-        or widths will later force the minimum packed size for the layout. */
-
-        Pattern pattern = Pattern.compile(
-          "\\s*\\(\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*\\)\\s*");
-        Matcher matcher = pattern.matcher(word.substring(2)); // parse option
-        if (matcher.matches())    // if option has proper syntax
+        if ((number < 0) || (number > CheckPlainTrim2.SIZE_MAXIMUM))
         {
-          windowLeft = Integer.parseInt(matcher.group(1));
-          windowTop = Integer.parseInt(matcher.group(2));
-          windowWidth = Integer.parseInt(matcher.group(3));
-          windowHeight = Integer.parseInt(matcher.group(4));
+          run.putConsole("Largest file size must be from 0 to "
+            + CheckPlainTrim2.SIZE_MAXIMUM + " MB: " + arg);
+          return(null);
         }
-        else                      // bad syntax or too many digits
+        run.sizeLimit = (long) number << 20; // zero is no limit
+      }
+      else if (word.equals("-m1") || word.equals("-m2") || word.equals("-m3"))
+      {
+        run.plainFlag = (number != 2); // look for plain text
+        run.trimFlag = (number != 1); // look for trimmed text
+        run.textType = (number == 1) ? CheckPlainTrim2.TEXT_PLAIN
+          : ((number == 2) ? CheckPlainTrim2.TEXT_TRIM
+          : CheckPlainTrim2.TEXT_BOTH);
+      }
+      else if (word.equals("-n0") || word.equals("-n1"))
+        run.ignoreFlag = (number == 1); // obey ".gitignore" files
+      else if (word.equals("-o0") || word.equals("-o1") || word.equals("-o2")
+        || word.equals("-o3"))
+      {
+        run.outputFormat = number; // same as FORMAT_* constants
+      }
+      else if (word.equals("-s") || word.equals("-s1"))
+        run.recurseFlag = true;   // start doing subfolders
+      else if (word.equals("-s0"))
+        run.recurseFlag = false;  // stop doing subfolders
+      else if (word.startsWith("-v"))
+      {
+        if (word.length() < 3)    // was there a number after the option?
+          number = CheckPlainTrim2.DETAIL_DEFAULT;
+        if ((number < 0) || (number > CheckPlainTrim2.DETAIL_MAXIMUM))
         {
-          System.err.println("Invalid window position or size: " + args[i]);
-          showHelp();             // show help summary
-          System.exit(EXIT_FAILURE); // exit application after printing help
+          run.putConsole("Findings per file must be from 0 to "
+            + CheckPlainTrim2.DETAIL_MAXIMUM + ": " + arg);
+          return(null);
         }
+        run.detailLimit = number; // zero means verdict only
       }
+      else if (word.equals("-z0") || word.equals("-z1"))
+        run.sortFlag = (number == 1); // sort names in folders
+      else if (word.startsWith("-"))
+      {
+        run.putConsole("Option not accepted by server: " + arg);
+        return(null);
+      }
+      else
+        names.add(arg);           // file or folder name
+    }
+    return(names);
+  }
 
-      else if (word.equals("-x") || (mswinFlag && word.equals("/x")))
-        maximizeFlag = true;      // true if we maximize our main window
 
-      else if (word.startsWith("-") || (mswinFlag && word.startsWith("/")))
+/*
+  run() method
+
+  Read one request from the client, check the files, send the report and the
+  exit status, and close the connection.  The socket has a timeout, so a
+  client that never finishes its request doesn't keep a thread.
+*/
+  public void run()
+  {
+    Vector args;                  // parameters from request
+    BufferedReader input;         // request from client
+    String line;                  // one line from client
+    BufferedWriter output;        // report for client
+
+    try
+    {
+      input = new BufferedReader(new InputStreamReader(
+        socket.getInputStream(), "UTF-8"));
+      output = new BufferedWriter(new OutputStreamWriter(
+        socket.getOutputStream(), "UTF-8"), CheckPlainTrim2.CONSOLE_BUFFER);
+      line = input.readLine();    // first line must be our protocol
+      if (CheckPlainTrim2.SERVE_PROTOCOL.equals(line) == false)
       {
-        System.err.println("Option not recognized: " + args[i]);
-        showHelp();               // show help summary
-        System.exit(EXIT_FAILURE); // exit application after printing help
+        output.write("Request not recognized by server.\n");
+        output.write(CheckPlainTrim2.SERVE_EXIT
+          + CheckPlainTrim2.EXIT_FAILURE + "\n");
       }
-
       else
       {
-        /* Parameter does not look like an option.  Assume this is a file or
-        folder name. */
-
-        consoleFlag = true;       // don't allow GUI methods to be called
-        processFileOrFolder(new File(args[i]));
-        if (cancelFlag) break;    // exit <for> loop if cancel or fatal error
+        args = new Vector();
+        while (((line = input.readLine()) != null) && (line.length() > 0))
+          args.add(line);         // one parameter per line until empty line
+        if (line != null)         // did the client finish its request?
+          checkRequest(args, output); // on this thread, with its own run
       }
+      output.flush();
     }
+    catch (IOException ioe) { /* client has gone away, nothing to report */ }
+    try { socket.close(); }
+    catch (IOException ioe) { /* ignore errors when closing */ }
+  }
 
-    /* If running as a console application, print a summary of what we found
-    and/or changed.  Exit to the system with an integer status. */
+} // end of CheckPlainTrim2Serve class
 
-    if (consoleFlag)              // was at least one file/folder given?
-    {
-      printSummary();             // what we found and what was changed
-      if (totalError > 0)         // were there any errors?
-        System.exit(EXIT_FAILURE);
-      else if (totalCorrect > 0)  // were there any good files?
-        System.exit(EXIT_SUCCESS);
-      else                        // if there were no files at all
-        System.exit(EXIT_UNKNOWN);
-    }
+// ------------------------------------------------------------------------- //
 
-    /* There were no file or folder names on the command line.  Open the
-    graphical user interface (GUI).  We don't need to be inside an if-then-else
-    construct here because the console application called System.exit() above.
-    The standard Java interface style is the most reliable, but you can switch
-    to something closer to the local system, if you want. */
+/*
+  CheckPlainTrim2Window class
+
+  This class has the graphical interface: the main window, its buttons and
+  dialog boxes, and the list model for the report.  The main class refers to
+  none of these objects, so that console runs and the server don't load the
+  Java GUI classes.  Nothing here is used until main() finds no file or folder
+  names on the command line.
+*/
+
+class CheckPlainTrim2Window
+{
+  /* constants */
+
+  static final String[] FONT_SIZES = {"10", "12", "14", "16", "18", "20", "24",
+    "30"};                        // point sizes for text in output text area
+  static final int MIN_FRAME = 200; // minimum window height or width in pixels
+  static final String[] SHOW_CHOICES = {"show all files", "show correct only",
+    "show errors only"};
+  static final String SYSTEM_FONT = "Dialog"; // this font is always available
+  static final String[] THREAD_CHOICES = {"1 thread", "2 threads",
+    "4 threads", "8 threads", "16 threads", "32 threads", "64 threads"};
+                                  // common choices for worker threads
+
+  /* class variables */
+
+  static JButton cancelButton;    // graphical button for <cancelFlag>
+  static JRadioButton checkBothButton, checkPlainButton, checkTrimButton;
+                                  // graphical buttons for text types
+  static JCheckBox encodeCheckbox; // graphical option for <encodeFlag>
+  static JComboBox encodeDialog;  // graphical option for <encodeName>
+  static JButton exitButton;      // "Exit" button for ending this application
+  static JFileChooser fileChooser; // asks for input and output file names
+  static JComboBox fontNameDialog; // graphical option for <fontName>
+  static JComboBox fontSizeDialog; // graphical option for <fontSize>
+  static JFrame mainFrame;        // this application's GUI window
+  static JButton openButton;      // "Open" button for files or folders
+  static File[] openFileList;     // list of files selected by user
+  static Thread openFilesThread;  // separate thread for doOpenButton() method
+  static CheckPlainTrim2 openRun; // options, totals for "Open", or null
+  static JList outputList;        // generated report while opening files
+  static CheckPlainTrim2Rows outputRows; // report lines for <outputList>
+  static JCheckBox recurseCheckbox; // graphical option for <recurseFlag>
+  static javax.swing.Timer rowTimer; // timer for showing new report lines
+  static JButton saveButton;      // "Save" button for writing output text
+  static JComboBox showDialog;    // graphical choice for <show...Flag>
+  static JLabel statusDialog;     // status message during extended processing
+  static String statusPending;    // will become <statusDialog> after delay
+  static javax.swing.Timer statusTimer; // timer for updating status message
+  static JCheckBox suffixCheckbox; // graphical option for <suffixFlag>
+  static JTextField suffixDialog; // list of file types (file name extensions)
+  static JComboBox threadDialog;  // graphical option for <threadCount>
+
+/*
+  createWindow() method
+
+  Set the window layout and then let the graphical interface run the show.
+  Called once by main() after the command-line options have been parsed.
+*/
+  static void createWindow()
+  {
+    ActionListener action;        // our shared action listener
+    Font buttonFont;              // font for buttons, labels, status, etc
+    CheckPlainTrim2 defaults;     // local copy of <CheckPlainTrim2.defaults>
+    Border emptyBorder;           // remove borders around text areas
+    int i;                        // index variable
+    String word;                  // point size as text for a dialog box
+
+    /* The standard Java interface style is the most reliable, but you can
+    switch to something closer to the local system, if you want. */
 
 //  try
 //  {
@@ -366,21 +5351,38 @@ public class CheckPlainTrim2
 //    System.err.println("Unsupported Java look-and-feel: " + ulafe);
 //  }
 
-    /* Initialize shared graphical objects. */
+    /* Initialize shared graphical objects.  The graphical interface always
+    shows its report as text, no matter what the console options are. */
+
+    defaults = CheckPlainTrim2.defaults; // options for each run
+    defaults.outputFormat = CheckPlainTrim2.FORMAT_TEXT;
+                                  // report lines for the list
+
+    buttonFont = null;            // by default, don't use customized font
+    if (CheckPlainTrim2.buttonSize > 0) // was the -u option given?
+      buttonFont = new Font(SYSTEM_FONT, Font.PLAIN,
+        CheckPlainTrim2.buttonSize); // for big sizes
+//    buttonFont = new Font(SYSTEM_FONT, Font.BOLD,
+//      CheckPlainTrim2.buttonSize); // for small sizes
+    statusPending = CheckPlainTrim2.EMPTY_STATUS;
+                                  // begin with no text for <statusDialog>
 
     action = new CheckPlainTrim2User(); // create our shared action listener
     emptyBorder = BorderFactory.createEmptyBorder(); // for removing borders
     fileChooser = new JFileChooser(); // create our shared file chooser
-    statusTimer = new javax.swing.Timer(TIMER_DELAY, action);
+    statusTimer = new javax.swing.Timer(CheckPlainTrim2.TIMER_DELAY, action);
                                   // update status message on clock ticks only
+    rowTimer = new javax.swing.Timer(CheckPlainTrim2.ROW_DELAY, action);
+                                  // show new report lines in batches
 
     /* If our preferred font is not available for the output text area, then
     use the boring default font for the local system. */
 
-    if (fontName.equals((new Font(fontName, Font.PLAIN, fontSize)).getFamily())
-      == false)                   // create font, read back created name
+    if (CheckPlainTrim2.fontName.equals((new Font(CheckPlainTrim2.fontName,
+      Font.PLAIN, CheckPlainTrim2.fontSize)).getFamily()) == false)
+                                  // create font, read back created name
     {
-      fontName = SYSTEM_FONT;     // must replace with standard system font
+      CheckPlainTrim2.fontName = SYSTEM_FONT; // replace with standard font
     }
 
     /* Create the graphical interface as a series of little panels inside
@@ -437,12 +5439,13 @@ public class CheckPlainTrim2
     JPanel panel21 = new JPanel(new BorderLayout(0, 0));
 
     suffixCheckbox = new JCheckBox(
-      "Look for files with these file types or suffixes: ", suffixFlag);
+      "Look for files with these file types or suffixes: ",
+      CheckPlainTrim2.suffixFlag);
     if (buttonFont != null) suffixCheckbox.setFont(buttonFont);
 //  suffixCheckbox.addActionListener(action); // do last so don't fire early
     panel21.add(suffixCheckbox, BorderLayout.WEST);
 
-    suffixDialog = new JTextField(suffixText, 20);
+    suffixDialog = new JTextField(CheckPlainTrim2.suffixText, 20);
     suffixDialog.getDocument().addDocumentListener((DocumentListener) action);
     if (buttonFont != null) suffixDialog.setFont(buttonFont);
     suffixDialog.setMargin(new Insets(0, 2, 0, 2));
@@ -457,21 +5460,24 @@ public class CheckPlainTrim2
     JPanel panel22 = new JPanel(new BorderLayout(0, 0));
 
     encodeCheckbox = new JCheckBox(
-      "Read files using this character set or text encoding: ", encodeFlag);
+      "Read files using this character set or text encoding: ",
+      CheckPlainTrim2.encodeFlag);
     if (buttonFont != null) encodeCheckbox.setFont(buttonFont);
 //  encodeCheckbox.addActionListener(action); // do last so don't fire early
     panel22.add(encodeCheckbox, BorderLayout.WEST);
 
     encodeDialog = new JComboBox();
-    encodeDialog.addItem(LOCAL_ENCODING); // start with our special names
-    encodeDialog.addItem(RAW_ENCODING);
+    encodeDialog.addItem(CheckPlainTrim2.LOCAL_ENCODING);
+                                  // start with our special names
+    encodeDialog.addItem(CheckPlainTrim2.RAW_ENCODING);
     Object[] list23 = java.nio.charset.Charset.availableCharsets().keySet()
       .toArray();                 // get character set names from local system
     for (i = 0; i < list23.length; i ++)
       encodeDialog.addItem((String) list23[i]); // insert each encoding name
     encodeDialog.setEditable(true); // allow user to enter alternate names
     if (buttonFont != null) encodeDialog.setFont(buttonFont);
-    encodeDialog.setSelectedItem(encodeName); // selected item is our default
+    encodeDialog.setSelectedItem(defaults.encodeName);
+                                  // selected item is our default
     encodeDialog.setToolTipText(
       "Select name of character set encoding for reading files.");
     encodeDialog.addActionListener(action); // do last so don't fire early
@@ -486,21 +5492,21 @@ public class CheckPlainTrim2
     ButtonGroup group25 = new ButtonGroup();
 
     checkPlainButton = new JRadioButton("Check for plain text only, ",
-      (plainFlag && ! trimFlag));
+      (defaults.plainFlag && ! defaults.trimFlag));
     if (buttonFont != null) checkPlainButton.setFont(buttonFont);
     checkPlainButton.addActionListener(action); // do last so don't fire early
     group25.add(checkPlainButton);
     panel24.add(checkPlainButton);
 
     checkTrimButton = new JRadioButton("trimmed text only, or ",
-      (trimFlag && ! plainFlag));
+      (defaults.trimFlag && ! defaults.plainFlag));
     if (buttonFont != null) checkTrimButton.setFont(buttonFont);
     checkTrimButton.addActionListener(action); // do last so don't fire early
     group25.add(checkTrimButton);
     panel24.add(checkTrimButton);
 
     checkBothButton = new JRadioButton("both plain and trimmed text.",
-      (plainFlag && trimFlag));
+      (defaults.plainFlag && defaults.trimFlag));
     if (buttonFont != null) checkBothButton.setFont(buttonFont);
     checkBothButton.addActionListener(action); // do last so don't fire early
     group25.add(checkBothButton);
@@ -519,7 +5525,8 @@ public class CheckPlainTrim2
       .getLocalGraphicsEnvironment().getAvailableFontFamilyNames());
     fontNameDialog.setEditable(false); // user must select one of our choices
     if (buttonFont != null) fontNameDialog.setFont(buttonFont);
-    fontNameDialog.setSelectedItem(fontName); // select default font name
+    fontNameDialog.setSelectedItem(CheckPlainTrim2.fontName);
+                                  // select default font name
     fontNameDialog.setToolTipText("Font name for output text.");
     fontNameDialog.addActionListener(action); // do last so don't fire early
     panel32.add(fontNameDialog);
@@ -527,7 +5534,8 @@ public class CheckPlainTrim2
     panel32.add(Box.createHorizontalStrut(5));
 
     TreeSet sizelist = new TreeSet(); // collect font sizes 10 to 99 in order
-    word = String.valueOf(fontSize); // convert number to a string we can use
+    word = String.valueOf(CheckPlainTrim2.fontSize);
+                                  // convert number to a string we can use
     sizelist.add(word);           // add default or user's chosen font size
     for (i = 0; i < FONT_SIZES.length; i ++) // add our preferred size list
       sizelist.add(FONT_SIZES[i]); // assume sizes are all two digits (10-99)
@@ -543,12 +5551,28 @@ public class CheckPlainTrim2
 
     JPanel panel33 = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 0));
 
-    recurseCheckbox = new JCheckBox("search subfolders", recurseFlag);
+    recurseCheckbox = new JCheckBox("search subfolders",
+      defaults.recurseFlag);
     if (buttonFont != null) recurseCheckbox.setFont(buttonFont);
     recurseCheckbox.setToolTipText("Select to search folders and subfolders.");
     recurseCheckbox.addActionListener(action); // do last so don't fire early
     panel33.add(recurseCheckbox);
 
+    Vector threadlist = new Vector(); // list of choices for worker threads
+    for (i = 0; i < THREAD_CHOICES.length; i ++) // add our preferred choices
+      threadlist.add(THREAD_CHOICES[i]);
+    word = defaults.threadCount + ((defaults.threadCount == 1)
+      ? " thread" : " threads");
+    if (threadlist.contains(word) == false) // is user's choice in our list?
+      threadlist.add(0, word);    // no, put it first so that it's obvious
+    threadDialog = new JComboBox(threadlist); // give user nice list
+    threadDialog.setEditable(false); // user must select one of our choices
+    if (buttonFont != null) threadDialog.setFont(buttonFont);
+    threadDialog.setSelectedItem(word); // selected item is our default
+    threadDialog.setToolTipText("Number of threads for checking files.");
+    threadDialog.addActionListener(action); // do last so don't fire early
+    panel33.add(threadDialog);
+
     panel31.add(panel33, BorderLayout.CENTER);
 
     showDialog = new JComboBox(SHOW_CHOICES);
@@ -568,23 +5592,30 @@ public class CheckPlainTrim2
     JPanel panel41 = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
     panel41.add(panel01);
 
-    /* Create a scrolling text area for the generated output. */
-
-    outputText = new JTextArea(20, 40);
-    outputText.setEditable(false); // user can't change this text area
-    outputText.setFont(new Font(fontName, Font.PLAIN, fontSize));
-    outputText.setLineWrap(false); // don't wrap text lines
-    outputText.setMargin(new Insets(5, 6, 5, 6)); // top, left, bottom, right
-    outputText.setText(
-      "\nCheck if files are in plain text and do not have trailing spaces or"
-      + "\ntabs (white space) at the end of lines.  The contents of the files"
-      + "\nare not changed."
-      + "\n\nChoose your options; then open files or folders to search."
-      + "\n\nCopyright (c) 2017 by Keith Fenske.  By using this program, you"
-      + "\nagree to terms and conditions of the Apache License and/or GNU"
-      + "\nGeneral Public License.\n\n");
-
-    JScrollPane panel51 = new JScrollPane(outputText);
+    /* Create a scrolling list for the generated output.  The list asks the
+    model for only those lines that it draws, and all lines have the same
+    height, so the list never measures the entire report. */
+
+    outputRows = new CheckPlainTrim2Rows(); // report lines, stored compactly
+    String[] intro = {"", "Check if files are in plain text and do not have"
+      + " trailing spaces or", "tabs (white space) at the end of lines.  The"
+      + " contents of the files", "are not changed.", "", "Choose your"
+      + " options; then open files or folders to search.", "", "Copyright (c)"
+      + " 2017 by Keith Fenske.  By using this program, you", "agree to terms"
+      + " and conditions of the Apache License and/or GNU", "General Public"
+      + " License.", ""};
+    for (i = 0; i < intro.length; i ++)
+      outputRows.add(intro[i], CheckPlainTrim2Rows.ROW_TEXT, -1, false);
+    outputRows.publish();         // show introduction before timer starts
+    outputList = new JList(outputRows);
+    outputList.setBorder(BorderFactory.createEmptyBorder(5, 6, 5, 6));
+                                  // top, left, bottom, right
+    outputList.setFont(new Font(CheckPlainTrim2.fontName, Font.PLAIN,
+      CheckPlainTrim2.fontSize));
+    outputList.setVisibleRowCount(20); // about the same as old text area
+    setOutputSize();              // all lines have the same height
+
+    JScrollPane panel51 = new JScrollPane(outputList);
     panel51.setBorder(emptyBorder); // no border necessary here
 
     /* Create an entire panel just for the status message.  Set margins with a
@@ -612,7 +5643,8 @@ public class CheckPlainTrim2
     /* Create the main window frame for this application.  We supply our own
     margins using the edges of the frame's border layout. */
 
-    mainFrame = new JFrame(PROGRAM_TITLE);
+    mainFrame = new JFrame(CheckPlainTrim2.PROGRAM_TITLE);
+    CheckPlainTrim2.windowFlag = true; // report lines now go into the list
     Container panel72 = mainFrame.getContentPane(); // where content meets frame
     panel72.setLayout(new BorderLayout(0, 0));
     panel72.add(Box.createVerticalStrut(15), BorderLayout.NORTH); // top margin
@@ -622,22 +5654,26 @@ public class CheckPlainTrim2
     panel72.add(Box.createVerticalStrut(5), BorderLayout.SOUTH); // bottom
 
     mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    mainFrame.setLocation(windowLeft, windowTop); // normal top-left corner
-    if ((windowHeight < MIN_FRAME) || (windowWidth < MIN_FRAME))
+    mainFrame.setLocation(CheckPlainTrim2.windowLeft,
+      CheckPlainTrim2.windowTop); // normal top-left corner
+    if ((CheckPlainTrim2.windowHeight < MIN_FRAME)
+      || (CheckPlainTrim2.windowWidth < MIN_FRAME))
       mainFrame.pack();           // do component layout with minimum size
     else                          // the user has given us a window size
-      mainFrame.setSize(windowWidth, windowHeight); // size of normal window
-    if (maximizeFlag) mainFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+      mainFrame.setSize(CheckPlainTrim2.windowWidth,
+        CheckPlainTrim2.windowHeight); // size of normal window
+    if (CheckPlainTrim2.maximizeFlag)
+      mainFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
     mainFrame.validate();         // recheck application window layout
     mainFrame.setVisible(true);   // and then show application window
+    rowTimer.start();             // show new report lines from now on
 
     /* Let the graphical interface run the application now. */
 
     openButton.requestFocusInWindow(); // give keyboard focus to "Open" button
 
-  } // end of main() method
+  } // end of createWindow() method
 
-// ------------------------------------------------------------------------- //
 
 /*
   doCancelButton() method
@@ -649,8 +5685,11 @@ public class CheckPlainTrim2
 */
   static void doCancelButton()
   {
-    cancelFlag = true;            // tell other threads that all work stops now
-    putOutput("Cancelled by user."); // print message and scroll
+    openRun.cancelFlag = true;    // tell other threads to stop now
+    openRun.scanOptions.cancelFlag = true;
+                                  // including scanners in the middle of a file
+    openRun.putOutput("Cancelled by user."); // print message, scroll
+    openRun.flushConsole();       // report so far is complete, if console
   }
 
 
@@ -661,16 +5700,19 @@ public class CheckPlainTrim2
 */
   static void doOpenButton()
   {
+    CheckPlainTrim2 defaults;     // local copy of <CheckPlainTrim2.defaults>
+
     /* Ask the user for input files or folders. */
 
     fileChooser.resetChoosableFileFilters(); // remove any existing filters
     fileChooser.setDialogTitle("Open Files or Folders...");
-    fileChooser.setFileHidingEnabled(! hiddenFlag); // may show hidden files
+    fileChooser.setFileHidingEnabled(! CheckPlainTrim2.hiddenFlag);
+                                  // may show hidden files
     fileChooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
     fileChooser.setMultiSelectionEnabled(true); // allow more than one file
     if (fileChooser.showOpenDialog(mainFrame) != JFileChooser.APPROVE_OPTION)
       return;                     // user cancelled file selection dialog box
-    openFileList = sortFileList(fileChooser.getSelectedFiles());
+    openFileList = CheckPlainTrim2.sortFileList(fileChooser.getSelectedFiles());
                                   // get list of files selected by user
 
     /* We have a list of files or folders.  Disable the "Open" button until we
@@ -678,30 +5720,44 @@ public class CheckPlainTrim2
     for a long time and the user panics. */
 
     cancelButton.setEnabled(true); // enable button to cancel this processing
-    cancelFlag = false;           // but don't cancel unless user complains
     openButton.setEnabled(false); // suspend "Open" button until we are done
-    outputText.setText("");       // clear output text area
-    totalCorrect = totalError = totalFiles = totalFolders = 0;
-                                  // no files found yet
+    outputRows.clear();           // clear output list
 
     /* Get user's chosen character set (text encoding), if any.  We don't set
-    <encodeFlag> here, because <encodeFlag> is a local variable only used while
-    setting up the GUI.  The function of a flag is replaced by a fake encoding
-    called <LOCAL_ENCODING>. */
+    <encodeFlag> here, because <encodeFlag> is only used while setting up the
+    GUI.  The function of a flag is replaced by a fake encoding called
+    <LOCAL_ENCODING>. */
 
+    defaults = CheckPlainTrim2.defaults; // options for the next run
     if (encodeCheckbox.isSelected()) // get the user's character set, if any
-      encodeName = (String) encodeDialog.getSelectedItem();
+      defaults.encodeName = (String) encodeDialog.getSelectedItem();
     else                          // if not selected, then use our default
-      encodeName = LOCAL_ENCODING;
+      defaults.encodeName = CheckPlainTrim2.LOCAL_ENCODING;
+    defaults.encodeCharset = CheckPlainTrim2.findCharset(defaults.encodeName);
+                                  // look up name only once
+    if ((defaults.encodeCharset == null)
+      && (defaults.encodeName.equals(CheckPlainTrim2.RAW_ENCODING) == false))
+    {
+      defaults.putOutput("Invalid character set name <" + defaults.encodeName
+        + ">");
+      cancelButton.setEnabled(false); // nothing to cancel
+      openButton.setEnabled(true); // user may try again with another name
+      return;                     // don't search any files or folders
+    }
 
     /* Get user's list of file types (file name extensions), if any. */
 
-    parseSuffixList(suffixDialog.getText()); // get caller's list of file types
-    suffixFlag = suffixCheckbox.isSelected() && (suffixList.length > 0);
+    CheckPlainTrim2.parseSuffixList(suffixDialog.getText());
+                                  // get caller's list of file types
+    CheckPlainTrim2.suffixFlag = suffixCheckbox.isSelected()
+      && (CheckPlainTrim2.suffixCount > 0);
 
-    /* Clear status message (bottom of window) and start secondary thread. */
+    /* Each run has its own copy of the options, totals, and tables, so that
+    changes to the options while files are being checked apply to the next
+    run.  Clear status message (bottom of window) and start secondary thread. */
 
-    setStatusMessage(EMPTY_STATUS); // clear text in status message
+    openRun = new CheckPlainTrim2(defaults); // nothing found yet
+    setStatusMessage(CheckPlainTrim2.EMPTY_STATUS); // clear status message
     statusTimer.start();          // start updating status on clock ticks
 
     openFilesThread = new Thread(new CheckPlainTrim2User(), "doOpenRunner");
@@ -717,7 +5773,7 @@ public class CheckPlainTrim2
 
   This method is called inside a separate thread by the runnable interface of
   our "user" class to process the user's selected files in the context of the
-  "main" class.  By doing all the heavy-duty work in a separate thread, we
+  "window" class.  By doing all the heavy-duty work in a separate thread, we
   won't stall the main thread that runs the graphical interface, and we allow
   the user to cancel the processing if it takes too long.
 */
@@ -726,17 +5782,23 @@ public class CheckPlainTrim2
     int i;                        // index variable
 
     /* Loop once for each file name selected.  Don't assume that these are all
-    valid file names. */
+    valid file names.  Options changed while this runs apply to the next run. */
 
+    openRun.setScanOptions();     // same for all files in this run
     for (i = 0; i < openFileList.length; i ++)
     {
-      if (cancelFlag) break;      // exit <for> loop if cancel or fatal error
-      processFileOrFolder(openFileList[i]); // process this file or folder
+      if (openRun.cancelFlag) break; // exit if cancel or fatal error
+      openRun.processFileOrFolder(openFileList[i]);
+                                  // process this file or folder
     }
 
     /* Print a summary and scroll the output, even if we were cancelled. */
 
-    printSummary();               // what we found and what was changed
+    openRun.stopWorkers();        // report pending files, stop workers
+    openRun.printSummary();       // what we found and what was changed
+    openRun.saveCache();          // save results for next time, if wanted
+    if (openRun.watchDelay > 0)   // keep running, watch for changes?
+      openRun.watchFiles();       // yes, until user clicks "Cancel" button
 
     /* We are done.  Turn off the "Cancel" button and allow the user to click
     the "Start" button again. */
@@ -745,408 +5807,118 @@ public class CheckPlainTrim2
     openButton.setEnabled(true);  // enable "Open" button
 
     statusTimer.stop();           // stop updating status message by timer
-    setStatusMessage(EMPTY_STATUS); // and clear any previous status message
-
-  } // end of doOpenRunner() method
-
-
-/*
-  doSaveButton() method
-
-  Ask the user for an output file name, create or replace that file, and copy
-  the contents of our output text area to that file.  The output file will be
-  in the default character set for the system, so if there are special Unicode
-  characters in the displayed text (Arabic, Chinese, Eastern European, etc),
-  then you are better off copying and pasting the output text directly into a
-  Unicode-aware application like Microsoft Word.
-*/
-  static void doSaveButton()
-  {
-    FileWriter output;            // output file stream
-    File userFile;                // file chosen by the user
-
-    /* Ask the user for an output file name. */
-
-    fileChooser.resetChoosableFileFilters(); // remove any existing filters
-    fileChooser.setDialogTitle("Save Output as Text File...");
-    fileChooser.setFileHidingEnabled(true); // don't show hidden files
-    fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-    fileChooser.setMultiSelectionEnabled(false); // allow only one file
-    if (fileChooser.showSaveDialog(mainFrame) != JFileChooser.APPROVE_OPTION)
-      return;                     // user cancelled file selection dialog box
-    userFile = fileChooser.getSelectedFile();
-
-    /* See if we can write to the user's chosen file. */
-
-    if (userFile.isDirectory())   // can't write to directories or folders
-    {
-      JOptionPane.showMessageDialog(mainFrame, (userFile.getName()
-        + " is a directory or folder.\nPlease select a normal file."));
-      return;
-    }
-    else if (userFile.isHidden()) // won't write to hidden (protected) files
-    {
-      JOptionPane.showMessageDialog(mainFrame, (userFile.getName()
-        + " is a hidden or protected file.\nPlease select a normal file."));
-      return;
-    }
-    else if (userFile.isFile() == false) // if file doesn't exist
-    {
-      /* Maybe we can create a new file by this name.  Do nothing here. */
-    }
-    else if (userFile.canWrite() == false) // file exists, but is read-only
-    {
-      JOptionPane.showMessageDialog(mainFrame, (userFile.getName()
-        + " is locked or write protected.\nCan't write to this file."));
-      return;
-    }
-    else if (JOptionPane.showConfirmDialog(mainFrame, (userFile.getName()
-      + " already exists.\nDo you want to replace this with a new file?"))
-      != JOptionPane.YES_OPTION)
-    {
-      return;                     // user cancelled file replacement dialog
-    }
-
-    /* Write lines to output file. */
-
-    try                           // catch file I/O errors
-    {
-      output = new FileWriter(userFile); // try to open output file
-      outputText.write(output);   // couldn't be much easier for writing!
-      output.close();             // try to close output file
-    }
-    catch (IOException ioe)
-    {
-      putOutput("Can't write to text file: " + ioe.getMessage());
-    }
-  } // end of doSaveButton() method
-
-
-/*
-  hasCorrectSuffix() method
-
-  Return true if a given string (file name) has an acceptable suffix (file type
-  or file name extension), and false otherwise.
-*/
-  static boolean hasCorrectSuffix(String input)
-  {
-    int i;                        // index variable
-    String lower;                 // caller's input converted to lowercase
-
-    if ((suffixFlag == false) || (suffixList.length == 0)) // is there a list?
-      return(true);               // no, then all file types are allowed
-    lower = input.toLowerCase();  // compare file types in lowercase
-    for (i = 0; i < suffixList.length; i ++) // for each acceptable file type
-      if (lower.endsWith(suffixList[i])) // does input match this file type?
-        return(true);             // yes, then accept this file name
-    return(false);                // no, did not match any file type
-  }
-
-
-/*
-  isSuffixDelimiter() method
-
-  Return true if a given character is a delimiter for the parseSuffixList()
-  method, and false otherwise.
-*/
-  static boolean isSuffixDelimiter(char ch)
-  {
-    return((ch == ' ') || (ch == '+') || (ch == ',') || (ch == ':')
-      || (ch == ';') || (ch == '|'));
-  }
-
-
-/*
-  parseSuffixList() method
-
-  Given a string with a list of file types (file name extensions) separated by
-  delimiters (i.e., spaces), parse this into a lowercase array with one file
-  type per element.  We don't do regular expressions or wild cards.
-*/
-  static void parseSuffixList(String input)
-  {
-    StringBuffer buffer;          // faster than String for multiple appends
-    char ch;                      // one character from input string
-    int i;                        // index variable
-    int length;                   // size of input string in characters
-    Vector list;                  // temporary vector of file types
-    String lower;                 // caller's input converted to lowercase
-
-    lower = input.toLowerCase();  // we want all file types in lowercase
-    length = lower.length();      // get size of input string in characters
-
-    buffer = new StringBuffer();  // allocate empty string buffer for result
-    i = 0;                        // start with first input character
-    list = new Vector();          // start with an empty vector of file types
-    while (i < length)            // while there are more characters to do
-    {
-      while ((i < length) && isSuffixDelimiter(ch = lower.charAt(i)))
-        i ++;                     // ignore leading spaces (delimiters)
-      buffer.setLength(0);        // empty any previous contents of buffer
-      while ((i < length) && ! isSuffixDelimiter(ch = lower.charAt(i)))
-      {
-        buffer.append(ch);        // copy one character to buffer
-        i ++;                     // this character has been consumed
-      }
-      if (buffer.length() > 0)    // did we find anything between spaces?
-        list.add(buffer.toString()); // yes, copy to temporary vector
-    }
-    suffixList = (String[]) list.toArray(new String[0]); // vector to array
-
-  } // end of parseSuffixList() method
-
-
-/*
-  printSummary() method
+    setStatusMessage(CheckPlainTrim2.EMPTY_STATUS); // clear previous status
 
-  Tell the user what we found and what was changed.
-*/
-  static void printSummary()
-  {
-    putOutput("Found " + formatComma.format(totalFiles)
-      + ((totalFiles == 1) ? " file" : " files") + " in "
-      + formatComma.format(totalFolders)
-      + ((totalFolders == 1) ? " folder" : " folders") + ": "
-      + formatComma.format(totalCorrect)
-      + ((totalCorrect == 1) ? " was" : " were") + " correct and "
-      + formatComma.format(totalError) + " had errors.");
-  }
+  } // end of doOpenRunner() method
 
 
 /*
-  processFileOrFolder() method
+  doSaveButton() method
 
-  The caller gives us a Java File object that may be a file, a folder, or just
-  random garbage.  Search all files.  Get folder contents and process each file
-  found, doing subfolders only if the <recurseFlag> is true.
+  Ask the user for an output file name, create or replace that file, and copy
+  the lines shown in our output list to that file.  The output file will be
+  in the default character set for the system, so if there are special Unicode
+  characters in the displayed text (Arabic, Chinese, Eastern European, etc),
+  then you are better off copying and pasting the output text directly into a
+  Unicode-aware application like Microsoft Word.
 */
-  static void processFileOrFolder(File givenFile)
+  static void doSaveButton()
   {
-    BufferedInputStream byteStream; // input stream for raw data bytes
-    File canon;                   // full directory resolution of <givenFile>
-    int ch;                       // one input byte or character (as integer)
-    BufferedReader charStream;    // input stream for decoded characters
-    File[] contents;              // contents if <givenFile> is a folder
-//  boolean firstFlag;            // true only for the first byte/character
-    int foundChar;                // first bad character found, if any
-    boolean foundSpace;           // true if trailing white space found
-    String givenName;             // caller's file name only, without path
-    String givenPath;             // name of caller's file, including path
     int i;                        // index variable
-    File next;                    // next File object from <contents>
-    boolean whitePending;         // true if pending white space
-
-    if (cancelFlag) return;       // stop if user cancel or fatal error
+    BufferedWriter output;        // output file stream
+    File userFile;                // file chosen by the user
 
-    /* Decide what kind of File object this is, if it's even real!  We process
-    all files/folders given to us, no matter whether they are hidden or not.
-    It's only when we look at subfolders that we pay attention to <hiddenFlag>
-    and <recurseFlag>. */
+    /* Ask the user for an output file name. */
 
-    try { canon = givenFile.getCanonicalFile(); } // full directory search
-    catch (IOException ioe) { canon = givenFile; } // accept abstract file
-    givenName = canon.getName();  // get the file name only
-    givenPath = canon.getPath();  // get file name with path
-    setStatusMessage(givenPath);  // use name with path for status text
+    fileChooser.resetChoosableFileFilters(); // remove any existing filters
+    fileChooser.setDialogTitle("Save Output as Text File...");
+    fileChooser.setFileHidingEnabled(true); // don't show hidden files
+    fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+    fileChooser.setMultiSelectionEnabled(false); // allow only one file
+    if (fileChooser.showSaveDialog(mainFrame) != JFileChooser.APPROVE_OPTION)
+      return;                     // user cancelled file selection dialog box
+    userFile = fileChooser.getSelectedFile();
 
-    /* Most of the work is done later in this method.  Search through folders
-    and subfolders here, eliminate File objects that don't exist, and leave
-    only real files for later. */
+    /* See if we can write to the user's chosen file. */
 
-    if (canon.isDirectory())      // is this a folder?
+    if (userFile.isDirectory())   // can't write to directories or folders
     {
-      totalFolders ++;            // one more folder or subfolder found
-      putOutput("Searching folder " + givenPath);
-      contents = sortFileList(canon.listFiles()); // sorted, no filter
-      for (i = 0; i < contents.length; i ++) // for each file in order
-      {
-        if (cancelFlag) return;   // stop if user cancel or fatal error
-        next = contents[i];       // get next File object from <contents>
-        if (next.isHidden() && (hiddenFlag == false))
-        {
-          if (showOtherFlag)
-            putOutput(next.getName() + " - ignoring hidden file or subfolder");
-        }
-        else if (next.isDirectory()) // is this a subfolder (in the folder)?
-        {
-          if (recurseFlag)        // should we look at subfolders?
-            processFileOrFolder(next); // yes, search this subfolder
-          else if (showOtherFlag)
-            putOutput(next.getName() + " - ignoring subfolder");
-        }
-        else if (next.isFile())   // is this a file (in the folder)?
-        {
-          if (hasCorrectSuffix(next.getName())) // does file have correct type?
-            processFileOrFolder(next); // yes, call ourself to do this file
-//        else if (showOtherFlag)
-//          putOutput(next.getName() + " - ignoring file");
-        }
-        else
-        {
-          /* File or folder does not exist.  Ignore without comment. */
-        }
-      }
-      return;                     // folder is complete
+      JOptionPane.showMessageDialog(mainFrame, (userFile.getName()
+        + " is a directory or folder.\nPlease select a normal file."));
+      return;
     }
-    else if (canon.isFile() == false) // most likely does not exist
+    else if (userFile.isHidden()) // won't write to hidden (protected) files
     {
-      putOutput(givenName + " - not a file or folder");
-//    cancelFlag = true;          // don't do anything more
-      totalError ++;              // count as error, even if don't know reason
+      JOptionPane.showMessageDialog(mainFrame, (userFile.getName()
+        + " is a hidden or protected file.\nPlease select a normal file."));
       return;
     }
-    totalFiles ++;                // one more file found
-
-    /* We have a file to check.  Accept all files here, because the directory
-    search above removed those we shouldn't see. */
-
-    try                           // catch I/O errors (file not found, etc)
+    else if (userFile.isFile() == false) // if file doesn't exist
     {
-//    firstFlag = true;           // true only for the first byte/character
-      foundChar = -1;             // no bad characters found yet
-      foundSpace = whitePending = false; // no white space found yet
-
-      /* Open the file.  We have to deal with two different readers, one for
-      bytes and one for characters. */
-
-      byteStream = null;          // there is no byte stream yet
-      charStream = null;          // there is no character stream yet
-      if (encodeName.equals(LOCAL_ENCODING)) // use local system's encoding?
-      {
-        charStream = new BufferedReader(new FileReader(canon));
-      }
-      else if (encodeName.equals(RAW_ENCODING)) // use raw bytes as characters?
-      {
-        byteStream = new BufferedInputStream(new FileInputStream(canon));
-      }
-      else                        // must be some named character set encoding
-      {
-        charStream = new BufferedReader(new InputStreamReader(new
-          FileInputStream(canon), encodeName));
-      }
-
-      /* Read until we find both problems or reach the end-of-file.  At least
-      one of <plainFlag> or <trimFlag> must be true.  Otherwise, this <while>
-      loop does nothing and assumes success. */
-
-      while ((cancelFlag == false)
-        && ((plainFlag && (foundChar < 0))
-          || (trimFlag && (foundSpace == false))))
-      {
-        if (byteStream != null)   // are we reading raw data bytes?
-          ch = byteStream.read(); // read one byte as integer
-        else                      // no, reading character text
-          ch = charStream.read(); // read one character as integer
-        if (ch < 0) break;        // exit from <while> loop on end-of-file
-
-        if ((ch == 0x0A) || (ch == 0x0D)) // check for newlines before spaces
-        {
-          foundSpace |= whitePending; // remember trailing white space
-          whitePending = false;   // cancel pending white space, if any
-        }
-        else if ((ch == 0x09) || (ch == 0x20) || (ch == 0x3000))
-                                  // short list of Unicode spaces, tabs
-                                  // see also: isSpaceChar() isWhitespace()
-        {
-          whitePending = trimFlag; // there is pending white space
-        }
-        else if ((ch >= 0x21) && (ch <= 0x7E)) // printable US-ASCII text?
-        {
-          whitePending = false;   // cancel pending white space, if any
-        }
-//      else if ((ch == 0xFEFF) && firstFlag) // Unicode "byte order mark"
-//      {
-          /* Ignore Unicode "byte order mark" (BOM, U+FEFF), but only at the
-          beginning of a file. */
-//      }
-        else                      // character is not plain text
-        {
-          if (plainFlag && (foundChar < 0)) // first not plain character?
-            foundChar = ch;       // yes, remember first bad character
-          if ((ch != 0x00) && (ch != 0x7F)) // for all but NUL and DEL ...
-            whitePending = false; // cancel pending white space, if any
-        }
-//      firstFlag = false;        // not the first byte/character anymore
-      }
-      if (byteStream != null) byteStream.close(); // close byte file if open
-      if (charStream != null) charStream.close(); // close char file if open
-      foundSpace |= whitePending; // some files end with white space
+      /* Maybe we can create a new file by this name.  Do nothing here. */
+    }
+    else if (userFile.canWrite() == false) // file exists, but is read-only
+    {
+      JOptionPane.showMessageDialog(mainFrame, (userFile.getName()
+        + " is locked or write protected.\nCan't write to this file."));
+      return;
+    }
+    else if (JOptionPane.showConfirmDialog(mainFrame, (userFile.getName()
+      + " already exists.\nDo you want to replace this with a new file?"))
+      != JOptionPane.YES_OPTION)
+    {
+      return;                     // user cancelled file replacement dialog
+    }
 
-      /* Decide what to say about this file. */
+    /* Write lines to output file. */
 
-      if (cancelFlag) return;     // stop if user cancel or fatal error
-      if ((foundChar >= 0) || foundSpace) // was anything bad found?
-      {
-        if (showFailureFlag)
-          putOutput(givenName
-            + ((foundChar >= 0) ? (" - invalid character, 0x"
-              + Integer.toHexString(foundChar).toUpperCase()) : "")
-            + (foundSpace ? " - trailing spaces or tabs" : ""));
-        totalError ++;            // one more file with an error
-      }
-      else                        // if no trailing white space found
+    try                           // catch file I/O errors
+    {
+      output = new BufferedWriter(new FileWriter(userFile));
+      for (i = 0; i < outputRows.getSize(); i ++) // each line shown
       {
-        if (showSuccessFlag)
-          putOutput(givenName + " - is " + textType);
-        totalCorrect ++;          // one more file that was correct
+        output.write((String) outputRows.getElementAt(i));
+        output.newLine();         // local line separator, as before
       }
+      output.close();             // try to close output file
     }
-    catch (UnsupportedEncodingException uee) // instance of IOException
-    {
-      putOutput(givenName + " - invalid character set name <" + encodeName
-        + ">");
-      cancelFlag = true;          // don't do anything more
-      totalError ++;              // one more file with an error
-    }
-    catch (IOException ioe)       // file may be locked, invalid, etc
+    catch (IOException ioe)
     {
-      putOutput(givenName + " - " + ioe.getMessage());
-//    cancelFlag = true;          // don't do anything more
-      totalError ++;              // one more file with an error
+      CheckPlainTrim2.defaults.putOutput("Can't write to text file: "
+        + ioe.getMessage());
     }
-  } // end of processFileOrFolder() method
+  } // end of doSaveButton() method
 
 
 /*
-  putOutput() method
-
-  Append a complete line of text to the end of the output text area.  We add a
-  newline character at the end of the line, not the caller.  By forcing all
-  output to go through this same method, one complete line at a time, the
-  generated output is cleaner and can be redirected.
+  setOutputSize() method
 
-  The output text area is forced to scroll to the end, after the text line is
-  written, by selecting character positions that are much too large (and which
-  are allowed by the definition of the JTextComponent.select() method).  This
-  is easier and faster than manipulating the scroll bars directly.  However, it
-  does cancel any selection that the user might have made, for example, to copy
-  text from the output area.
+  Set a fixed height and width for the lines in the output list, so that the
+  list doesn't measure all lines.  The height depends upon the font, and the
+  width is from the longest line shown.  Call only on the event thread.
 */
-  static void putOutput(String text)
+  static void setOutputSize()
   {
-    if (mainFrame == null)        // during setup, there is no GUI window
-      System.out.println(text);   // console output goes onto standard output
-    else
-    {
-      outputText.append(text + "\n"); // graphical output goes into text area
-      outputText.select(999999999, 999999999); // force scroll to end of text
-    }
+    FontMetrics metrics;          // measurements for current font
+
+    metrics = outputList.getFontMetrics(outputList.getFont());
+    outputList.setFixedCellHeight(metrics.getHeight() + 2);
+                                  // same as default renderer's border
+    outputList.setFixedCellWidth(metrics.stringWidth(outputRows.getLongest())
+      + 10);                      // room for renderer's border and margin
   }
 
 
 /*
   setStatusMessage() method
 
-  Set the text for the status message if we are running as a GUI application.
-  This gives the user some indication of our progress when processing is slow.
-  If the update timer is running, then this message will not appear until the
-  timer kicks in.  This prevents the status from being updated too often, and
-  hence being unreadable.
+  Set the text for the status message.  This gives the user some indication of
+  our progress when processing is slow.  If the update timer is running, then
+  this message will not appear until the timer kicks in.  This prevents the
+  status from being updated too often, and hence being unreadable.
 */
   static void setStatusMessage(String text)
   {
-    if (mainFrame == null)        // are we running as a console application?
-      return;                     // yes, console doesn't show running status
     statusPending = text;         // always save caller's status message
     if (statusTimer.isRunning())  // are we updating on a timed basis?
       return;                     // yes, wait for the timer to do an update
@@ -1155,112 +5927,31 @@ public class CheckPlainTrim2
 
 
 /*
-  showHelp() method
-
-  Show the help summary.  This is a UNIX standard and is expected for all
-  console applications, even very simple ones.
-*/
-  static void showHelp()
-  {
-    System.err.println();
-    System.err.println(PROGRAM_TITLE);
-    System.err.println();
-    System.err.println("  java  CheckPlainTrim2  [options]  [fileOrFolderNames]");
-    System.err.println();
-    System.err.println("Options:");
-    System.err.println("  -? = -help = show summary of command-line syntax");
-    System.err.println("  -e\"name\" = name of character set (text encoding) for reading files");
-    System.err.println("  -f\"string\" = list of file types (file name extensions), separated by spaces");
-    System.err.println("  -m1 = look for plain text only, ignore trimmed");
-    System.err.println("  -m2 = look for trimmed text only, ignore plain");
-    System.err.println("  -m3 = look for plain and trimmed text (default)");
-    System.err.println("  -s0 = do only given files or folders, no subfolders (default)");
-    System.err.println("  -s1 = -s = process files, folders, and subfolders");
-    System.err.println("  -u# = font size for buttons, dialogs, etc; default is local system;");
-    System.err.println("      example: -u16");
-    System.err.println("  -w(#,#,#,#) = normal window position: left, top, width, height;");
-    System.err.println("      example: -w(50,50,700,500)");
-    System.err.println("  -x = maximize application window; default is normal window");
-    System.err.println();
-    System.err.println("Output may be redirected with the \">\" operator.  If no file or folder names");
-    System.err.println("are given on the command line, then a graphical interface will open.");
-    System.err.println();
-    System.err.println(COPYRIGHT_NOTICE);
-//  System.err.println();
-
-  } // end of showHelp() method
-
-
-/*
-  sortFileList() method
-
-  When we ask for a list of files or subfolders in a directory, the list is not
-  likely to be in our preferred order.  Java does not guarantee any particular
-  order, and the observed order is whatever is supplied by the underlying file
-  system (which can be very jumbled for FAT16/FAT32).  We would like the file
-  names to be sorted, and since we recurse on subfolders, we also want the
-  subfolders to appear in order.
+  showRows() method
 
-  The caller's parameter may be <null> and this may happen if the caller asks
-  File.listFiles() for the contents of a protected system directory.  All calls
-  to listFiles() in this program are wrapped inside a call to us, so we replace
-  a null parameter with an empty array as our result.
+  Called by a timer on the event thread.  Give the list all report lines that
+  were added since the last tick, and scroll to the end of the report if there
+  are new lines.  This replaces scrolling the old text area after every line.
 */
-  static File[] sortFileList(File[] input)
+  static void showRows()
   {
-    String fileName;              // file name without the path
-    int i;                        // index variable
-    TreeMap list;                 // our list of files
-    File[] result;                // our result
-    StringBuffer sortKey;         // created sorting key for each file
-
-    if (input == null)            // were we given a null pointer?
-      result = new File[0];       // yes, replace with an empty array
-    else if (input.length < 2)    // don't sort lists with zero or one element
-      result = input;             // just copy input array as result array
-    else
+    if (outputRows.publish() > 0) // were any new lines shown?
     {
-      /* First, create a sorted list with our choice of index keys and the File
-      objects as data.  Names are sorted as files or folders, then in lowercase
-      to ignore differences in uppercase versus lowercase, then in the original
-      form for systems where case is distinct. */
-
-      list = new TreeMap();       // create empty sorted list with keys
-      sortKey = new StringBuffer(); // allocate empty string buffer for keys
-      for (i = 0; i < input.length; i ++)
-      {
-        sortKey.setLength(0);     // empty any previous contents of buffer
-        if (input[i].isDirectory()) // is this "file" actually a folder?
-          sortKey.append("2 ");   // yes, put subfolders after files
-        else                      // must be a file or an unknown object
-          sortKey.append("1 ");   // put files before subfolders
-
-        fileName = input[i].getName(); // get the file name without the path
-        sortKey.append(fileName.toLowerCase()); // start by ignoring case
-        sortKey.append(" ");      // separate lowercase from original case
-        sortKey.append(fileName); // then sort file name on original case
-        list.put(sortKey.toString(), input[i]); // put file into sorted list
-      }
-
-      /* Second, now that the TreeMap object has done all the hard work of
-      sorting, pull the File objects from the list in order as determined by
-      the sort keys that we created. */
-
-      result = (File[]) list.values().toArray(new File[0]);
+      setOutputSize();            // new lines may be longer than before
+      outputList.ensureIndexIsVisible(outputRows.getSize() - 1);
     }
-    return(result);               // give caller whatever we could find
-
-  } // end of sortFileList() method
+  }
 
 
 /*
   userButton() method
 
   This method is called by our action listener actionPerformed() to process
-  buttons, in the context of the main CheckPlainTrim2 class.
+  buttons, in the context of the CheckPlainTrim2Window class.
 */
   static void userButton(ActionEvent event)
   {
+    CheckPlainTrim2 defaults = CheckPlainTrim2.defaults; // for next run
     Object source = event.getSource(); // where the event came from
     if (source == cancelButton)   // "Cancel" button
     {
@@ -1268,21 +5959,21 @@ public class CheckPlainTrim2
     }
     else if (source == checkBothButton) // text types that we can look for
     {
-      plainFlag = true;         // look for plain text
-      textType = TEXT_BOTH;     // description
-      trimFlag = true;          // look for trimmed text
+      defaults.plainFlag = true;  // look for plain text
+      defaults.textType = CheckPlainTrim2.TEXT_BOTH; // description
+      defaults.trimFlag = true;   // look for trimmed text
     }
     else if (source == checkPlainButton)
     {
-      plainFlag = true;         // look for plain text
-      textType = TEXT_PLAIN;    // description
-      trimFlag = false;         // ignore trimmed text
+      defaults.plainFlag = true;  // look for plain text
+      defaults.textType = CheckPlainTrim2.TEXT_PLAIN; // description
+      defaults.trimFlag = false;  // ignore trimmed text
     }
     else if (source == checkTrimButton)
     {
-      plainFlag = false;        // ignore plain text
-      textType = TEXT_TRIM;     // description
-      trimFlag = true;          // look for trimmed text
+      defaults.plainFlag = false; // ignore plain text
+      defaults.textType = CheckPlainTrim2.TEXT_TRIM; // description
+      defaults.trimFlag = true;   // look for trimmed text
     }
     else if (source == encodeDialog) // character set or text encoding
     {
@@ -1298,16 +5989,21 @@ public class CheckPlainTrim2
       the names from getAvailableFontFamilyNames(), and the user can't edit
       this dialog field. */
 
-      fontName = (String) fontNameDialog.getSelectedItem();
-      outputText.setFont(new Font(fontName, Font.PLAIN, fontSize));
+      CheckPlainTrim2.fontName = (String) fontNameDialog.getSelectedItem();
+      outputList.setFont(new Font(CheckPlainTrim2.fontName, Font.PLAIN,
+        CheckPlainTrim2.fontSize));
+      setOutputSize();            // line height depends upon font
     }
     else if (source == fontSizeDialog) // point size for output text area
     {
       /* We can safely parse the point size as an integer, because we supply
       the only choices allowed, and the user can't edit this dialog field. */
 
-      fontSize = Integer.parseInt((String) fontSizeDialog.getSelectedItem());
-      outputText.setFont(new Font(fontName, Font.PLAIN, fontSize));
+      CheckPlainTrim2.fontSize = Integer.parseInt((String)
+        fontSizeDialog.getSelectedItem());
+      outputList.setFont(new Font(CheckPlainTrim2.fontName, Font.PLAIN,
+        CheckPlainTrim2.fontSize));
+      setOutputSize();            // line height depends upon font
     }
     else if (source == openButton) // "Open" button for files or folders
     {
@@ -1315,7 +6011,16 @@ public class CheckPlainTrim2
     }
     else if (source == recurseCheckbox) // if we search folders and subfolders
     {
-      recurseFlag = recurseCheckbox.isSelected();
+      defaults.recurseFlag = recurseCheckbox.isSelected();
+    }
+    else if (source == threadDialog) // number of threads for checking files
+    {
+      /* Each choice starts with a number, and the user can't edit this dialog
+      field, so we can safely parse everything before the first space. */
+
+      String text = (String) threadDialog.getSelectedItem();
+      defaults.threadCount = Integer.parseInt(text.substring(0,
+        text.indexOf(' ')));
     }
     else if (source == saveButton) // "Save Output" button
     {
@@ -1323,17 +6028,19 @@ public class CheckPlainTrim2
     }
     else if (source == showDialog) // which files or conditions to report
     {
-      showFailureFlag = showOtherFlag = showSuccessFlag = false; // disable all
+      CheckPlainTrim2.showFailureFlag = CheckPlainTrim2.showOtherFlag
+        = CheckPlainTrim2.showSuccessFlag = false; // disable all
       switch (showDialog.getSelectedIndex())
       {                           // same index order as SHOW_CHOICES
         case (0):                 // show all files
-          showFailureFlag = showOtherFlag = showSuccessFlag = true; // enable
+          CheckPlainTrim2.showFailureFlag = CheckPlainTrim2.showOtherFlag
+            = CheckPlainTrim2.showSuccessFlag = true; // enable all
           break;
         case (1):                 // show correct only
-          showSuccessFlag = true;
+          CheckPlainTrim2.showSuccessFlag = true;
           break;
         case (2):                 // show errors only
-          showFailureFlag = true;
+          CheckPlainTrim2.showFailureFlag = true;
           break;
         default:
           System.err.println(
@@ -1342,6 +6049,12 @@ public class CheckPlainTrim2
                                   // should never happen, so write on console
           break;
       }
+      outputRows.refilter();      // show existing lines with new choice
+      setOutputSize();            // longest line may have changed
+    }
+    else if (source == rowTimer)  // update timer for new report lines
+    {
+      showRows();                 // show lines added since last tick
     }
     else if (source == statusTimer) // update timer for status message text
     {
@@ -1381,54 +6094,81 @@ public class CheckPlainTrim2
     }
   } // end of userDocument() method
 
-} // end of CheckPlainTrim2 class
+} // end of CheckPlainTrim2Window class
 
 // ------------------------------------------------------------------------- //
 
 /*
-  CheckPlainTrim2User class
+  CheckPlainTrim2Work class
 
-  This class listens to input from the user and passes back event parameters to
-  a static method in the main class.
+  This class is the runnable interface for one worker thread, for a short-lived
+  thread that checks exactly one file, or for the thread that writes the
+  console report.  Each worker has its own scanner object, so that buffers are
+  never shared between threads.  Per-file threads borrow a scanner from a
+  pool.
 */
 
-class CheckPlainTrim2User implements ActionListener, DocumentListener, Runnable
+class CheckPlainTrim2Work implements Runnable
 {
-  /* empty constructor */
+  /* instance variables */
 
-  public CheckPlainTrim2User() { }
+  CheckPlainTrim2File job;        // one file to check, or null for worker
+  CheckPlainTrim2 run;            // options and totals, or null for writer
+  int saveDelay;                  // millis between saving cache, or zero
+  boolean saverFlag;              // true for thread that saves server's cache
+  boolean writerFlag;             // true for thread that writes console report
 
-  /* button listener, dialog boxes, etc */
+  /* constructors */
 
-  public void actionPerformed(ActionEvent event)
+  public CheckPlainTrim2Work(CheckPlainTrim2 givenRun)
   {
-    CheckPlainTrim2.userButton(event);
+    job = null;                   // worker thread takes files from work list
+    run = givenRun;               // files and options come from this run
+    saveDelay = 0;
+    saverFlag = writerFlag = false;
   }
 
-  /* document listeners for changes to text fields */
-
-  public void changedUpdate(DocumentEvent event)
+  public CheckPlainTrim2Work(boolean givenWriter)
   {
-    /* Ignore that an attribute or set of attributes changed. */
+    job = null;                   // writer thread doesn't check files
+    run = null;                   // writes lines from all runs
+    saveDelay = 0;
+    saverFlag = false;
+    writerFlag = givenWriter;     // takes lines from console queue
   }
 
-  public void insertUpdate(DocumentEvent event)
+  public CheckPlainTrim2Work(int givenDelay)
   {
-    CheckPlainTrim2.userDocument(event.getDocument());
+    job = null;                   // saver thread doesn't check files
+    run = null;                   // saves results from all runs
+    saveDelay = givenDelay;       // repeat after delay, or save only once
+    saverFlag = true;
+    writerFlag = false;
   }
 
-  public void removeUpdate(DocumentEvent event)
+  public CheckPlainTrim2Work(CheckPlainTrim2 givenRun,
+    CheckPlainTrim2File givenJob)
   {
-    CheckPlainTrim2.userDocument(event.getDocument());
+    job = givenJob;               // per-file thread checks only this file
+    run = givenRun;               // scanner is borrowed from the pool
+    saveDelay = 0;
+    saverFlag = writerFlag = false;
   }
 
   /* separate heavy-duty processing thread */
 
   public void run()
   {
-    CheckPlainTrim2.doOpenRunner();
+    if (writerFlag)               // is this the console writer thread?
+      CheckPlainTrim2.doWriterRunner();
+    else if (saverFlag)           // is this the server's cache saver?
+      CheckPlainTrim2.doSaverRunner(saveDelay);
+    else if (job == null)         // is this a worker thread?
+      run.doWorkerRunner();
+    else                          // no, a per-file thread
+      run.doFlightRunner(job);
   }
 
-} // end of CheckPlainTrim2User class
+} // end of CheckPlainTrim2Work class
 
 /* Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL. */
@@ -0,0 +1,524 @@
+/*
+  Check Plain Trim #2 - Benchmarks for Scanning and Sorting
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Java class name: CheckPlainTrim2Bench
+  Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL.
+
+  This is a console program that measures how fast CheckPlainTrim2 checks the
+  contents of files, sorts the names in a folder, and matches file types.  It
+  must be compiled in the same folder as CheckPlainTrim2, because it calls the
+  same methods that the application uses, not copies of them:
+
+      javac  CheckPlainTrim2*.java
+      java  CheckPlainTrim2Bench  -l16  >bench.txt
+
+  Test files are written into a temporary folder, and are deleted afterwards.
+  Each file is checked with each of these scanning paths:
+
+    - raw data bytes, one byte at a time (-k1)
+    - raw data bytes, eight bytes at a time (-k2)
+    - UTF-8, skipping US-ASCII bytes without decoding (the normal path)
+    - UTF-8, decoding every byte (as for character sets that aren't
+      ASCII-compatible)
+
+  File sizes go from 1 KB up to the -l option, in megabytes, by factors of 16:
+  1 KB, 16 KB, 256 KB, 4 MB, 64 MB, and 1 GB.  The contents are generated from
+  a fixed seed, so the same files are checked on every run:
+
+    - clean: printable US-ASCII text, short lines
+    - late: clean text with one bad byte near the end
+    - spaces: clean text with trailing spaces on some lines
+    - utf8: mostly non-ASCII letters and symbols in UTF-8
+
+  None of these lets the scanner stop early (there is always something still
+  to look for), so every file is read from beginning to end.  Files are read
+  from the system's cache after the first run, which is what we want: this
+  measures checking, not the disk.  Each result is the median of several timed
+  rounds, after a round to warm up the Java compiler.  The report has one line
+  per test with tab-separated columns, so that reports from two releases can
+  be compared with a spreadsheet or a "diff" program.
+
+  Sorting is measured with sortNames() on folders of 1,000 to 1,000,000 names,
+  and file types with hasCorrectSuffix() on the same names, using the default
+  list of file types and a list with wild cards and excludes.
+
+  THIS PROGRAM IS NOT PART OF THE APPLICATION.  It doesn't need to be included
+  in the JAR file.
+*/
+
+import java.io.*;                 // standard I/O
+import java.nio.charset.*;        // character set decoders
+import java.util.*;               // calendars, dates, lists, maps, vectors
+
+public class CheckPlainTrim2Bench
+{
+  /* constants */
+
+  static final int BLOCK_SIZE = 0x100000; // repeated block of file data (1 MB)
+  static final int EXIT_FAILURE = -1; // incorrect request or errors found
+  static final int EXIT_SUCCESS = 1; // request completed successfully
+  static final int[] FOLDER_SIZES = {1000, 10000, 100000, 1000000};
+                                  // number of names in each sorted "folder"
+  static final int LIMIT_DEFAULT = 16; // default largest file size (MB)
+  static final int LIMIT_MAXIMUM = 1024; // largest file size for -l (MB)
+  static final String[] PATHS = {"bytes-k1", "bytes-k2", "utf8-skip",
+    "utf8-decode"}; // names of scanning paths, see header
+  static final String[] PROFILES = {"clean", "late", "spaces", "utf8"};
+                                  // names of file contents, see header
+  static final int ROUND_DEFAULT = 5; // default number of timed rounds
+  static final long ROUND_TIME = 200; // shortest timed round (milliseconds)
+  static final long SEED = 20170925; // fixed seed for generated contents
+  static final String SUFFIX_WILD = " .java .html .txt .xml *.min.js *.d.ts"
+    + " !*.bak !generated_* target/ ";
+                                  // file types with wild cards and excludes
+  static final String[] UTF8_TEXT = {"\u00E9", "\u00FC", "\u00DF",
+    "\u03A9", "\u0416", "\u4E2D", "\u6587", "\u20AC", "\u2014",
+    "\uD83D\uDE00"};
+                                  // non-ASCII characters for "utf8" profile
+
+  /* class variables */
+
+  static int roundCount;          // number of timed rounds for each test
+  static Charset utf8Charset;     // character set for UTF-8 paths
+
+/*
+  main() method
+
+  Parse the command-line options, then run all benchmarks and print one line
+  per result on standard output.
+*/
+  public static void main(String[] args)
+  {
+    File file;                    // one generated test file
+    File folder;                  // temporary folder for test files
+    int i, k, m;                  // index variables
+    int limit;                    // largest file size (MB)
+    long size;                    // current file size in bytes
+    String word;                  // one parameter from command line
+
+    limit = LIMIT_DEFAULT;        // default largest file size
+    roundCount = ROUND_DEFAULT;   // default number of timed rounds
+    utf8Charset = Charset.forName("UTF-8"); // look up only once
+    for (i = 0; i < args.length; i ++)
+    {
+      word = args[i].toLowerCase(); // easier to process if consistent case
+      try                         // numbers may have bad syntax
+      {
+        if (word.startsWith("-l") && (word.length() > 2))
+          limit = Integer.parseInt(word.substring(2));
+        else if (word.startsWith("-r") && (word.length() > 2))
+          roundCount = Integer.parseInt(word.substring(2));
+        else
+          limit = -1;             // anything else is an error
+      }
+      catch (NumberFormatException nfe) { limit = -1; }
+      if ((limit < 1) || (limit > LIMIT_MAXIMUM) || (roundCount < 1)
+        || (roundCount > 99))
+      {
+        System.err.println("Usage: java CheckPlainTrim2Bench [-l#] [-r#]");
+        System.err.println("  -l# = largest test file, from 1 to "
+          + LIMIT_MAXIMUM + " MB; default is -l" + LIMIT_DEFAULT);
+        System.err.println("  -r# = timed rounds for each test, from 1 to 99;"
+          + " default is -r" + ROUND_DEFAULT);
+        System.exit(EXIT_FAILURE);
+      }
+    }
+
+    System.out.println("# CheckPlainTrim2Bench on Java "
+      + System.getProperty("java.version") + ", "
+      + System.getProperty("os.name") + " " + System.getProperty("os.arch")
+      + ", " + Runtime.getRuntime().availableProcessors() + " processors");
+    System.out.println("# test\tcase\tsize\tresult\tunit");
+
+    /* Scanning paths, for each size and content profile. */
+
+    try
+    {
+      folder = File.createTempFile("cpt2bench", ""); // unique name for folder
+      folder.delete();            // replace the empty file with a folder
+      if (folder.mkdir() == false)
+        throw new IOException("can't create folder " + folder.getPath());
+      try                         // always delete test files
+      {
+        for (size = 1024; size <= ((long) limit << 20); size *= 16)
+        {
+          for (k = 0; k < PROFILES.length; k ++)
+          {
+            file = new File(folder, (PROFILES[k] + "-" + size + ".txt"));
+            writeProfile(file, PROFILES[k], size);
+            for (m = 0; m < PATHS.length; m ++)
+            {
+              System.out.println("scan\t" + PATHS[m] + "/" + PROFILES[k]
+                + "\t" + formatSize(size) + "\t"
+                + formatNumber(timeScan(file, PATHS[m])) + "\tMB/s");
+            }
+            file.delete();        // big files use a lot of disk space
+          }
+        }
+      }
+      finally
+      {
+        String[] names = folder.list();
+        if (names != null)
+          for (i = 0; i < names.length; i ++)
+            new File(folder, names[i]).delete();
+        folder.delete();
+      }
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't write test files: " + ioe.getMessage());
+      System.exit(EXIT_FAILURE);
+    }
+
+    /* Sorting names and matching file types. */
+
+    for (i = 0; i < FOLDER_SIZES.length; i ++)
+    {
+      System.out.println("sort\tsortNames\t" + FOLDER_SIZES[i] + "\t"
+        + formatNumber(timeSort(FOLDER_SIZES[i])) + "\tms");
+      System.out.println("suffix\tdefault\t" + FOLDER_SIZES[i] + "\t"
+        + formatNumber(timeSuffix(FOLDER_SIZES[i],
+        CheckPlainTrim2.SUFFIX_DEFAULT)) + "\tns/name");
+      System.out.println("suffix\twild\t" + FOLDER_SIZES[i] + "\t"
+        + formatNumber(timeSuffix(FOLDER_SIZES[i], SUFFIX_WILD))
+        + "\tns/name");
+    }
+    System.exit(EXIT_SUCCESS);
+
+  } // end of main() method
+
+// ------------------------------------------------------------------------- //
+
+/*
+  formatNumber() method
+
+  Return a result with three significant digits or more, without commas, so
+  that a spreadsheet can read it.
+*/
+  static String formatNumber(double value)
+  {
+    if (value >= 100.0)
+      return(String.valueOf(Math.round(value)));
+    return(String.valueOf(Math.round(value * 1000.0) / 1000.0));
+  }
+
+
+/*
+  formatSize() method
+
+  Return a file size as a short string: 1K, 16K, 256K, 4M, 64M, 1G.
+*/
+  static String formatSize(long size)
+  {
+    if (size >= (1L << 30)) return((size >> 30) + "G");
+    if (size >= (1L << 20)) return((size >> 20) + "M");
+    return((size >> 10) + "K");
+  }
+
+
+/*
+  makeNames() method
+
+  Return an array of file and folder names, as might be found in a large
+  source folder: mixed case, common and uncommon file types, some names
+  without a file type.  The same seed always gives the same names.
+*/
+  static String[] makeNames(int count)
+  {
+    String[] exts = {".java", ".html", ".txt", ".xml", ".class", ".js",
+      ".min.js", ".d.ts", ".bak", ".png", ".md", ""}; // file types
+    int i;                        // index variable
+    String[] names;               // generated names
+    Random random;                // generator for contents
+    String[] stems = {"Main", "util", "README", "index", "Test", "build",
+      "generated_", "data", "Config", "module"}; // start of each name
+
+    names = new String[count];
+    random = new Random(SEED);
+    for (i = 0; i < count; i ++)
+      names[i] = stems[random.nextInt(stems.length)]
+        + Integer.toString(random.nextInt(1000000), 36)
+        + exts[random.nextInt(exts.length)];
+    return(names);
+  }
+
+
+/*
+  median() method
+
+  Return the median of an array of results.  The array is sorted.
+*/
+  static double median(double[] values)
+  {
+    Arrays.sort(values);
+    if ((values.length % 2) == 1)
+      return(values[values.length / 2]);
+    return((values[(values.length / 2) - 1] + values[values.length / 2])
+      / 2.0);
+  }
+
+
+/*
+  scanFile() method
+
+  Check one file with one of the scanning paths in <PATHS>.  The scanner is
+  reused, as a worker thread in the application does, and is called the same
+  way, with only its options changed for each path.
+*/
+  static void scanFile(CheckPlainTrim2Scan scanner, File file, String path)
+    throws IOException
+  {
+    if (path.startsWith("bytes-k")) // raw data bytes, one of the engines
+    {
+      scanner.options.scanEngine = path.charAt(7) - '0'; // same as -k#
+      scanner.scanFile(file, null);
+      return;
+    }
+    scanner.options.asciiFlag = (path.equals("utf8-decode") == false);
+                                  // decode every byte, or skip ASCII bytes
+    scanner.scanFile(file, utf8Charset);
+  }
+
+
+/*
+  sortMany() method
+
+  Sort the same unsorted names <repeat> times, for timeSort().  The names and
+  subfolder flags are copied back into the caller's arrays before each sort.
+*/
+  static void sortMany(String[] original, String[] names, boolean[] flags,
+    long repeat)
+  {
+    int i;                        // index variable
+    long pass;                    // index variable for sorts
+
+    for (pass = 0; pass < repeat; pass ++)
+    {
+      System.arraycopy(original, 0, names, 0, names.length); // unsorted names
+      for (i = 0; i < flags.length; i ++)
+        flags[i] = ((i % 10) == 0);
+      CheckPlainTrim2.sortNames(names, flags);
+    }
+  }
+
+
+/*
+  timeScan() method
+
+  Return the median speed in megabytes per second for checking one file with
+  one scanning path.  Small files are checked many times in each round, so
+  that each round takes at least <ROUND_TIME> milliseconds.
+*/
+  static double timeScan(File file, String path) throws IOException
+  {
+    long elapsed;                 // time for one round (milliseconds)
+    long i;                       // index variable
+    long repeat;                  // number of times file is checked in round
+    double[] results;             // speed for each round
+    int round;                    // index variable for rounds
+    CheckPlainTrim2Scan scanner;  // same scanner for all rounds
+    long start;                   // starting time of round
+
+    scanner = new CheckPlainTrim2Scan(); // new buffers, default options
+    repeat = 1;                   // find how many checks fill one round
+    while (true)                  // this is also the warm-up round
+    {
+      start = System.currentTimeMillis();
+      for (i = 0; i < repeat; i ++)
+        scanFile(scanner, file, path);
+      elapsed = System.currentTimeMillis() - start;
+      if (elapsed >= ROUND_TIME)
+        break;
+      repeat *= 2;
+    }
+
+    results = new double[roundCount];
+    for (round = 0; round < roundCount; round ++)
+    {
+      start = System.currentTimeMillis();
+      for (i = 0; i < repeat; i ++)
+        scanFile(scanner, file, path);
+      elapsed = Math.max((System.currentTimeMillis() - start), 1);
+      results[round] = ((double) file.length() * repeat * 1000.0)
+        / ((double) elapsed * 1048576.0);
+    }
+    return(median(results));
+  }
+
+
+/*
+  timeSort() method
+
+  Return the median time in milliseconds for sorting a folder with <count>
+  names, of which about one in ten are subfolders.  Small folders are sorted
+  many times in each round, so that each round takes at least <ROUND_TIME>
+  milliseconds.  Each sort starts from the same unsorted names; copying them
+  is timed too, but costs little next to the sort.
+*/
+  static double timeSort(int count)
+  {
+    long elapsed;                 // time for one round (milliseconds)
+    boolean[] flags;              // true for each subfolder
+    String[] names;               // names to sort
+    String[] original;            // same names in their original order
+    long repeat;                  // number of sorts in round
+    double[] results;             // time for each round
+    int round;                    // index variable for rounds
+    long start;                   // starting time of round
+
+    original = makeNames(count);
+    flags = new boolean[count];
+    names = new String[count];
+    repeat = 1;                   // find how many sorts fill one round
+    while (true)                  // this is also the warm-up round
+    {
+      start = System.currentTimeMillis();
+      sortMany(original, names, flags, repeat);
+      elapsed = System.currentTimeMillis() - start;
+      if (elapsed >= ROUND_TIME)
+        break;
+      repeat *= 2;
+    }
+
+    results = new double[roundCount];
+    for (round = 0; round < roundCount; round ++)
+    {
+      start = System.currentTimeMillis();
+      sortMany(original, names, flags, repeat);
+      elapsed = Math.max((System.currentTimeMillis() - start), 1);
+      results[round] = (double) elapsed / (double) repeat;
+    }
+    return(median(results));
+  }
+
+
+/*
+  timeSuffix() method
+
+  Return the median time in nanoseconds per name for matching <count> names
+  against a list of file types.  Names are matched many times in each round.
+*/
+  static double timeSuffix(int count, String list)
+  {
+    long elapsed;                 // time for one round (milliseconds)
+    int found;                    // number of names that match
+    int i;                        // index variable
+    String[] names;               // names to match
+    long pass;                    // index variable for passes over names
+    long repeat;                  // number of passes over names in round
+    double[] results;             // time for each round
+    int round;                    // index variable for rounds
+    long start;                   // starting time of round
+
+    CheckPlainTrim2.parseSuffixList(list); // same as -f option
+    CheckPlainTrim2.suffixFlag = true;
+    names = makeNames(count);
+    found = 0;                    // keep the compiler from skipping work
+    repeat = 1;                   // find how many passes fill one round
+    while (true)                  // this is also the warm-up round
+    {
+      start = System.currentTimeMillis();
+      for (pass = 0; pass < repeat; pass ++)
+        for (i = 0; i < count; i ++)
+          if (CheckPlainTrim2.hasCorrectSuffix(names[i])) found ++;
+      elapsed = System.currentTimeMillis() - start;
+      if (elapsed >= ROUND_TIME)
+        break;
+      repeat *= 2;
+    }
+
+    results = new double[roundCount];
+    for (round = 0; round < roundCount; round ++)
+    {
+      start = System.currentTimeMillis();
+      for (pass = 0; pass < repeat; pass ++)
+        for (i = 0; i < count; i ++)
+          if (CheckPlainTrim2.hasCorrectSuffix(names[i])) found ++;
+      elapsed = Math.max((System.currentTimeMillis() - start), 1);
+      results[round] = (elapsed * 1000000.0) / ((double) count * repeat);
+    }
+    if (found < 0) System.err.println(found); // never true
+    return(median(results));
+  }
+
+
+/*
+  writeProfile() method
+
+  Write a test file with one of the content profiles in <PROFILES>.  A block
+  of generated text is written over and over, up to the file size.  For the
+  "late" profile, one bad byte is put near the end of the file.
+*/
+  static void writeProfile(File file, String profile, long size)
+    throws IOException
+  {
+    byte[] block;                 // generated block of text
+    ByteArrayOutputStream buffer; // for building <block>
+    int i;                        // index variable
+    int length;                   // characters in current line
+    int lineLength;               // characters wanted in current line
+    FileOutputStream output;      // output stream for test file
+    long position;                // bytes written so far
+    Random random;                // generator for contents
+    RandomAccessFile update;      // for putting bad byte near end of file
+
+    buffer = new ByteArrayOutputStream(BLOCK_SIZE + 100);
+    random = new Random(SEED);
+    while (buffer.size() < BLOCK_SIZE)
+    {
+      lineLength = random.nextInt(80); // some lines are empty
+      length = 0;
+      while (length < lineLength)
+      {
+        if (profile.equals("utf8") && (random.nextInt(4) != 0))
+        {
+          byte[] bytes = UTF8_TEXT[random.nextInt(UTF8_TEXT.length)]
+            .getBytes("UTF-8");
+          buffer.write(bytes, 0, bytes.length);
+        }
+        else if ((length > 0) && (length < (lineLength - 1))
+          && (random.nextInt(8) == 0)) // spaces between words, not at end
+        {
+          buffer.write(' ');
+        }
+        else
+          buffer.write(0x21 + random.nextInt(0x5E)); // printable US-ASCII
+        length ++;
+      }
+      if (profile.equals("spaces") && (random.nextInt(10) == 0))
+        buffer.write(' ');        // trailing space on some lines
+      buffer.write('\n');
+    }
+    block = buffer.toByteArray();
+
+    output = new FileOutputStream(file);
+    try
+    {
+      for (position = 0; position < size; position += block.length)
+        output.write(block, 0, (int) Math.min(block.length,
+          (size - position)));
+    }
+    finally
+    {
+      output.close();
+    }
+
+    if (profile.equals("late"))   // one bad byte near the end
+    {
+      update = new RandomAccessFile(file, "rw");
+      try
+      {
+        update.seek(Math.max((size - 64), 0));
+        update.write(0x01);
+      }
+      finally
+      {
+        update.close();
+      }
+    }
+  }
+
+} // end of CheckPlainTrim2Bench class
+
+/* Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL. */
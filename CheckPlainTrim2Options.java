@@ -0,0 +1,47 @@
+/*
+  Check Plain Trim #2 - Settings for the Scanning Engine
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Java class name: CheckPlainTrim2Options
+  Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL.
+
+  This class is part of the scanning engine in CheckPlainTrim2Scan.java, and
+  may be used by other Java programs in the same way.  It has no imports.
+*/
+
+/*
+  CheckPlainTrim2Options class
+
+  This class holds the settings for checking files, given by the caller.  The
+  defaults are the same as for the CheckPlainTrim2 application.  Scanners read
+  these settings at the start of each file (or each block of data), so they
+  should only be changed between files, except for <cancelFlag>.
+*/
+
+public class CheckPlainTrim2Options
+{
+  /* instance variables */
+
+  public boolean asciiFlag;       // true if US-ASCII bytes may skip decoding
+  public volatile boolean cancelFlag; // true if caller wants checking to stop
+  public int detailLimit;         // most findings kept per file, or zero
+  public boolean plainFlag;       // true if we are looking for plain text
+  public int scanEngine;          // which loops check raw data bytes
+  public boolean sniffFlag;       // true if we skip files that look binary
+  public boolean trimFlag;        // true if we are looking for trimmed text
+
+  /* constructor */
+
+  public CheckPlainTrim2Options()
+  {
+    asciiFlag = true;             // by default, decode only non-ASCII bytes
+    cancelFlag = false;           // don't cancel unless caller complains
+    detailLimit = 0;              // by default, only the first of each finding
+    plainFlag = true;             // by default, look for plain text
+    scanEngine = CheckPlainTrim2Scan.ENGINE_WORD; // our fastest loops
+    sniffFlag = false;            // by default, check all files as text
+    trimFlag = true;              // by default, look for trimmed text
+  }
+
+} // end of CheckPlainTrim2Options class
+
+/* Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL. */
@@ -0,0 +1,57 @@
+/*
+  Check Plain Trim #2 - Result from the Scanning Engine
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Java class name: CheckPlainTrim2Result
+  Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL.
+
+  This class is part of the scanning engine in CheckPlainTrim2Scan.java, and
+  may be used by other Java programs in the same way.  It has no imports.
+*/
+
+/*
+  CheckPlainTrim2Result class
+
+  This class holds what a scanner found in one file.  The arrays are only
+  created when findings are kept with line and column (<detailLimit>), and are
+  never changed after the result is returned, so they may be shared.
+*/
+
+public class CheckPlainTrim2Result
+{
+  /* instance variables */
+
+  public boolean binaryFlag;      // true if file looks binary, wasn't checked
+  public boolean cancelFlag;      // true if checking was cancelled
+  public int[] detailChars;       // bad character, or -1 for trailing spaces
+  public long[] detailColumns;    // column of each finding, from one
+  public long[] detailLines;      // line of each finding, from one
+  public int foundChar;           // first bad character found, or -1
+  public boolean foundSpace;      // true if trailing white space found
+  public boolean moreFlag;        // true if findings were dropped after limit
+
+  /* constructor */
+
+  public CheckPlainTrim2Result()
+  {
+    binaryFlag = cancelFlag = false; // nothing has been checked yet
+    detailChars = null;           // positions are only kept if asked for
+    detailColumns = detailLines = null;
+    foundChar = -1;               // no bad characters found yet
+    foundSpace = false;           // no white space found yet
+    moreFlag = false;             // no findings dropped yet
+  }
+
+/*
+  isCorrect() method
+
+  Return true if the file was checked and nothing bad was found.
+*/
+  public boolean isCorrect()
+  {
+    return((binaryFlag == false) && (cancelFlag == false) && (foundChar < 0)
+      && (foundSpace == false));
+  }
+
+} // end of CheckPlainTrim2Result class
+
+/* Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL. */
@@ -0,0 +1,946 @@
+/*
+  Check Plain Trim #2 - Scanning Engine for File Contents
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Java class name: CheckPlainTrim2Scan
+  Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL.
+
+  This class checks the contents of files for CheckPlainTrim2, without any
+  graphical interface, folder searching, report, or totals.  With its settings
+  (CheckPlainTrim2Options.java) and results (CheckPlainTrim2Result.java), it
+  only needs java.io and java.nio, so these three public classes can be
+  compiled by themselves and used by other Java programs in the same process,
+  for example, a build tool that checks a list of files:
+
+      CheckPlainTrim2Options options = new CheckPlainTrim2Options();
+      CheckPlainTrim2Scan scanner = new CheckPlainTrim2Scan(options);
+      CheckPlainTrim2Result result = scanner.scanFile(file, charset);
+      if (result.isCorrect() == false) ...
+
+  A scanner has reusable buffers, and must only be used by one thread at a
+  time.  Many scanners may share one options object, so that setting its
+  <cancelFlag> stops all of them.  Nothing here is static except constants,
+  so separate callers with separate options never affect each other.
+*/
+
+import java.io.*;                 // standard I/O
+import java.nio.*;                // byte buffers for bulk reading
+import java.nio.channels.*;       // file channels and memory-mapped files
+import java.nio.charset.*;        // character set decoders
+
+/*
+  CheckPlainTrim2Scan class
+
+  This class holds the reusable buffers and the running state for checking the
+  contents of one file at a time.  Raw data bytes are read in large blocks and
+  checked with a tight loop over a byte array, instead of calling read() once
+  for each byte.  Characters are decoded in large blocks the same way.  Big
+  files are mapped into memory with FileChannel.map(), one window at a time,
+  so that reading them needs few (if any) system calls.
+
+  Java has no method to release a memory-mapped buffer.  The mapping remains
+  until the garbage collector finds the buffer, which on Windows will also keep
+  the file locked for a short while.  Windows are limited in size for the same
+  reason.
+*/
+
+public class CheckPlainTrim2Scan
+{
+  /* constants */
+
+  static final int BUFFER_SIZE = 0x10000; // bytes per bulk read (64 KB)
+  static final long HASH_MIX = 0xC2B2AE3D27D4EB4FL; // odd constants for ...
+  static final long HASH_PRIME = 0x9E3779B97F4A7C15L; // ... mixing hash bits
+  static final long MAP_MINIMUM = 0x400000; // smallest file to map (4 MB)
+  static final long MAP_WINDOW = 0x4000000; // biggest mapped region (64 MB)
+  static final int[][] MAGIC_NUMBERS = {
+    {0x89, 'P', 'N', 'G'},        // PNG image
+    {0xFF, 0xD8, 0xFF},           // JPEG image
+    {'G', 'I', 'F', '8'},         // GIF image
+    {'I', 'I', '*', 0x00},        // TIFF image, little-endian
+    {'M', 'M', 0x00, '*'},        // TIFF image, big-endian
+    {'R', 'I', 'F', 'F'},         // WAV audio, AVI video, WebP image
+    {'O', 'g', 'g', 'S'},         // Ogg audio or video
+    {'I', 'D', '3'},              // MP3 audio with ID3 tags
+    {'%', 'P', 'D', 'F', '-'},    // PDF document
+    {'P', 'K', 0x03, 0x04},       // ZIP archive, JAR, Office documents
+    {0x1F, 0x8B},                 // gzip compressed
+    {'B', 'Z', 'h'},              // bzip2 compressed
+    {0xFD, '7', 'z', 'X', 'Z', 0x00}, // xz compressed
+    {'7', 'z', 0xBC, 0xAF, 0x27, 0x1C}, // 7-Zip archive
+    {0x28, 0xB5, 0x2F, 0xFD},     // Zstandard compressed
+    {'R', 'a', 'r', '!', 0x1A, 0x07}, // RAR archive
+    {0x7F, 'E', 'L', 'F'},        // ELF executable (Linux, etc)
+    {0xCA, 0xFE, 0xBA, 0xBE},     // Java class file, Mach-O universal
+    {0xCF, 0xFA, 0xED, 0xFE},     // Mach-O executable, 64-bit
+    {0xCE, 0xFA, 0xED, 0xFE},     // Mach-O executable, 32-bit
+    {0x00, 'a', 's', 'm'},        // WebAssembly module
+    {'S', 'Q', 'L', 'i', 't', 'e', ' ', 'f', 'o', 'r', 'm', 'a', 't'}};
+                                  // SQLite database, and list ends
+  static final long SAMPLE_SIZE = 0x10000; // bytes hashed at each end (64 KB)
+  static final int SNIFF_SIZE = 0x1000; // bytes to look at for binary (4 KB)
+  static final long WORD_HIGH = 0x8080808080808080L; // high bit of each byte
+  static final long WORD_LOW = 0x7F7F7F7F7F7F7F7FL; // low seven bits of each
+  static final long WORD_ONES = 0x0101010101010101L; // one in each byte
+  static final long WORD_SPACE = 0x6060606060606060L; // 0x80 minus 0x20
+  static final long WORD_TABS = 0x0909090909090909L; // tab in each byte
+
+  public static final int ENGINE_BYTE = 1; // scan raw data one byte at a time
+  public static final int ENGINE_WORD = 2; // scan raw data eight bytes at once
+
+  /* instance variables */
+
+  byte[] byteArray;               // reusable buffer for raw data bytes
+  ByteBuffer byteView;            // same buffer for "long" words, decoding
+  char[] charArray;               // reusable buffer for decoded characters
+  CharBuffer charView;            // same buffer for decoder output
+  boolean asciiFlag;              // true if <decoder> is ASCII-compatible
+  boolean binaryFlag;             // true if file looks binary, wasn't checked
+  long crPosition;                // text position of last carriage return
+  CharsetDecoder decoder;         // reusable decoder for one character set
+  int detailLimit;                // local copy of <options.detailLimit>
+  int[] findChars;                // bad character, or -1 for trailing spaces
+  long[] findColumns;             // column of each finding, from one
+  int findCount;                  // number of findings with positions
+  long[] findLines;               // line of each finding, from one
+  int foundChar;                  // first bad character found, if any
+  boolean foundSpace;             // true if trailing white space found
+  long lineNumber;                // current line number, from one
+  long lineStart;                 // text position where current line starts
+  boolean moreFlag;               // true if findings were dropped after limit
+  public CheckPlainTrim2Options options; // settings, maybe shared by scanners
+  long textBase;                  // text position of index zero in buffer
+  long whiteStart;                // text position where pending white starts
+  boolean whitePending;           // true if pending white space
+
+  /* constructors */
+
+  public CheckPlainTrim2Scan()
+  {
+    this(new CheckPlainTrim2Options()); // default settings
+  }
+
+  public CheckPlainTrim2Scan(CheckPlainTrim2Options givenOptions)
+  {
+    byteArray = new byte[BUFFER_SIZE]; // allocate buffers only once
+    byteView = ByteBuffer.wrap(byteArray); // shares bytes with <byteArray>
+    byteView.order(ByteOrder.nativeOrder()); // byte order doesn't matter here
+    charArray = new char[BUFFER_SIZE];
+    charView = CharBuffer.wrap(charArray); // shares chars with <charArray>
+    asciiFlag = false;            // there is no character set yet
+    binaryFlag = false;           // no binary files found yet
+    decoder = null;               // decoder is created for each character set
+    findChars = new int[16];      // positions are only kept with -v option
+    findColumns = new long[16];   // ... and arrays grow as needed
+    findLines = new long[16];
+    options = givenOptions;       // caller may change settings between files
+    resetDetail();                // no positions yet
+    foundChar = -1;               // no bad characters found yet
+    foundSpace = whitePending = false; // no white space found yet
+  }
+
+/*
+  addFinding() method
+
+  Remember the line and column of one finding, if we don't have too many
+  already.  Otherwise, only remember that there were more.  <position> is where the finding is in the file, in bytes for raw
+  data, or in characters after decoding.  The arrays are reused for all files
+  checked by this scanner, so there is no allocation for each line.
+*/
+  void addFinding(long position, int ch)
+  {
+    int[] moreChars;              // larger array for <findChars>
+    long[] moreColumns;           // larger array for <findColumns>
+    long[] moreLines;             // larger array for <findLines>
+
+    if (findCount >= detailLimit) // do we have enough findings?
+    {
+      moreFlag = true;            // yes, report is missing some findings
+      return;
+    }
+    if (findCount == findLines.length) // is there room for another?
+    {
+      moreChars = new int[findCount * 2];
+      System.arraycopy(findChars, 0, moreChars, 0, findCount);
+      findChars = moreChars;
+      moreColumns = new long[findCount * 2];
+      System.arraycopy(findColumns, 0, moreColumns, 0, findCount);
+      findColumns = moreColumns;
+      moreLines = new long[findCount * 2];
+      System.arraycopy(findLines, 0, moreLines, 0, findCount);
+      findLines = moreLines;
+    }
+    findChars[findCount] = ch;    // bad character, or -1 for white space
+    findColumns[findCount] = position - lineStart + 1; // columns from one
+    findLines[findCount] = lineNumber;
+    findCount ++;
+  }
+
+
+/*
+  checkByteFile() method
+
+  Read and check an entire file as raw data bytes, stopping early if we find
+  everything we are looking for.  The result is in <foundChar> and <foundSpace>
+  when we return, or <binaryFlag> is true if the file wasn't checked.  The
+  caller catches I/O errors.
+*/
+  void checkByteFile(File givenFile) throws IOException
+  {
+    FileChannel channel;          // file channel for mapping big files
+    int count;                    // number of bytes in buffer
+    boolean doneFlag;             // true if we have found everything
+    long length;                  // size of current mapped window in bytes
+    MappedByteBuffer mapped;      // current mapped window into file
+    long position;                // starting byte offset of mapped window
+    long size;                    // total size of file in bytes
+    FileInputStream stream;       // input stream for raw data bytes
+
+    binaryFlag = false;           // file hasn't been looked at yet
+    resetDetail();                // start at first line, no findings
+    foundChar = -1;               // no bad characters found yet
+    foundSpace = whitePending = false; // no white space found yet
+    doneFlag = isFinished();      // done before we begin if nothing to check
+
+    stream = new FileInputStream(givenFile);
+    try                           // always close file, even after errors
+    {
+      if (sniffBinary(stream, true)) // does file look like binary data?
+        return;                   // yes, don't read any more
+      channel = stream.getChannel(); // get channel for size and mapping
+      size = channel.size();      // size of file when we opened it
+      if (size >= MAP_MINIMUM)    // is this file big enough to map?
+      {
+        position = 0;             // start mapping at beginning of file
+        while ((doneFlag == false) && (options.cancelFlag == false)
+          && (position < size))
+        {
+          length = Math.min(MAP_WINDOW, (size - position));
+          mapped = channel.map(FileChannel.MapMode.READ_ONLY, position,
+            length);              // map next window into memory
+          while ((doneFlag == false) && (options.cancelFlag == false)
+            && mapped.hasRemaining())
+          {
+            count = Math.min(mapped.remaining(), byteArray.length);
+            mapped.get(byteArray, 0, count); // copy without system calls
+            checkBytes(0, count, false); // check all bytes in buffer
+            textBase += count;    // position of next buffer in file
+            doneFlag = isFinished(); // have we found everything?
+          }
+          position += length;     // advance to next window, if any
+        }
+      }
+      else                        // small files are read in one or more blocks
+      {
+        while ((doneFlag == false) && (options.cancelFlag == false)
+          && ((count = stream.read(byteArray, 0, byteArray.length)) > 0))
+        {
+          checkBytes(0, count, false); // check all bytes in buffer
+          textBase += count;      // position of next buffer in file
+          doneFlag = isFinished(); // have we found everything?
+        }
+      }
+    }
+    finally
+    {
+      stream.close();             // close byte file
+    }
+    if (whitePending && (detailLimit > 0)) // some files end with white space
+      addFinding(whiteStart, -1);
+    foundSpace |= whitePending;
+
+  } // end of checkByteFile() method
+
+
+/*
+  checkAsciiFile() method
+
+  Read and check an entire file in an ASCII-compatible character set, where
+  every byte from 0x00 to 0x7F is always the same US-ASCII character, and is
+  never part of a longer sequence.  Bytes are checked with the same fast loops
+  as raw data.  Only runs of bytes from 0x80 to 0xFF are decoded, so that we
+  report the real character (code point).  Each run is decoded separately,
+  which gives the same characters as decoding the whole file, because these
+  decoders have no state between characters.  A run that reaches the end of
+  the buffer is decoded as far as possible, and any partial character is moved
+  to the front of the buffer for the next read.
+*/
+  void checkAsciiFile(File givenFile) throws IOException
+  {
+    int carry;                    // bytes saved at front of buffer for next read
+    int count;                    // number of bytes read, or -1 at end-of-file
+    boolean doneFlag;             // true if we have found everything
+    int end;                      // number of bytes in buffer
+    boolean endFlag;              // true after end-of-file on input
+    int i;                        // index variable
+    int run;                      // index of first byte after non-ASCII run
+    boolean runFlag;              // true if run is followed by ASCII or EOF
+    FileInputStream stream;       // input stream for raw data bytes
+
+    binaryFlag = false;           // file hasn't been looked at yet
+    resetDetail();                // start at first line, no findings
+    foundChar = -1;               // no bad characters found yet
+    foundSpace = whitePending = false; // no white space found yet
+    carry = 0;                    // no partial characters yet
+    doneFlag = isFinished();      // done before we begin if nothing to check
+    endFlag = false;              // haven't read anything yet
+
+    stream = new FileInputStream(givenFile);
+    try                           // always close file, even after errors
+    {
+      if (sniffBinary(stream, true)) // does file look like binary data?
+        return;                   // yes, don't read any more
+      while ((doneFlag == false) && (options.cancelFlag == false)
+        && (endFlag == false))
+      {
+        count = stream.read(byteArray, carry, (byteArray.length - carry));
+        endFlag = (count < 0);    // remember if we reached end-of-file
+        end = carry + Math.max(count, 0); // total bytes in buffer
+        carry = 0;                // nothing saved for next read yet
+        i = 0;                    // start with first byte in buffer
+        while ((doneFlag == false) && (i < end))
+        {
+          i = checkBytes(i, end, true); // ASCII bytes, stop before others
+          doneFlag = isFinished(); // have we found everything?
+          if (doneFlag || (i >= end)) // stop at end of buffer
+            break;
+
+          run = i;                // find end of non-ASCII bytes
+          while ((run < end) && (byteArray[run] < 0)) // high bit set?
+            run ++;
+          runFlag = (run < end) || endFlag; // is this the entire run?
+
+          decoder.reset();        // each run starts with a clean decoder
+          byteView.limit(run);    // decode only this run of bytes
+          byteView.position(i);
+          textBase += i;          // characters start at first byte of run
+          doneFlag = decodeBytes(runFlag); // decode and check characters
+          if (runFlag)            // did we decode the whole run?
+          {
+            i = run;              // yes, continue with next ASCII byte
+            textBase -= run;      // so that <run> is the next position
+          }
+          else                    // no, save partial character for next read
+          {
+            carry = run - byteView.position(); // bytes that weren't decoded
+            System.arraycopy(byteArray, byteView.position(), byteArray, 0,
+              carry);
+            i = end;              // nothing more in this buffer
+          }
+          byteView.clear();       // restore full buffer for fast loops
+        }
+        if (carry == 0)           // position of next buffer in file
+          textBase += end;        // ... unless partial character is saved
+      }
+    }
+    finally
+    {
+      stream.close();             // close byte file
+    }
+    if (whitePending && (detailLimit > 0)) // some files end with white space
+      addFinding(whiteStart, -1);
+    foundSpace |= whitePending;
+
+  } // end of checkAsciiFile() method
+
+
+/*
+  checkCharFile() method
+
+  Read and check an entire file as characters in the caller's character set.
+  Bytes are read in large blocks and decoded into a character buffer with a
+  reusable decoder, so there is no synchronized read() call per character.  We
+  replace bad input the same way as an InputStreamReader, with U+FFFD.  The
+  result is in <foundChar> and <foundSpace> when we return.  The caller catches
+  I/O errors.
+*/
+  void checkCharFile(File givenFile, Charset charset) throws IOException
+  {
+    boolean doneFlag;             // true if we have found everything
+    boolean endFlag;              // true after end-of-file on input
+    boolean flushFlag;            // true after decoder has been flushed
+    CoderResult result;           // result from decoder or flush
+    FileInputStream stream;       // input stream for raw data bytes
+
+    if ((decoder == null) || (decoder.charset().equals(charset) == false))
+    {
+      decoder = charset.newDecoder(); // create a new decoder only as needed
+      decoder.onMalformedInput(CodingErrorAction.REPLACE);
+      decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+      asciiFlag = isAsciiCompatible(charset); // can we skip decoding ASCII?
+    }
+    else
+      decoder.reset();            // same decoder, clear any previous state
+
+    if (asciiFlag && options.asciiFlag) // US-ASCII bytes the same chars?
+    {
+      checkAsciiFile(givenFile);  // yes, decode only non-ASCII bytes
+      return;
+    }
+
+    binaryFlag = false;           // file hasn't been looked at yet
+    resetDetail();                // start at first line, no findings
+    foundChar = -1;               // no bad characters found yet
+    foundSpace = whitePending = false; // no white space found yet
+    doneFlag = isFinished();      // done before we begin if nothing to check
+    endFlag = flushFlag = false;  // haven't read anything yet
+
+    stream = new FileInputStream(givenFile);
+    try                           // always close file, even after errors
+    {
+      if (sniffBinary(stream, false)) // only magic numbers, UTF-16 has zeros
+        return;                   // file looks like binary data
+      byteView.clear();           // byte buffer is empty and ready for filling
+      while ((doneFlag == false) && (options.cancelFlag == false)
+        && (flushFlag == false))
+      {
+        if ((endFlag == false) && byteView.hasRemaining()) // room to read?
+        {
+          int count = stream.read(byteArray, byteView.position(),
+            byteView.remaining()); // read as many bytes as will fit
+          if (count < 0)          // end-of-file?
+            endFlag = true;       // yes, decode whatever is left
+          else                    // no, more bytes are in the buffer
+            byteView.position(byteView.position() + count);
+        }
+
+        byteView.flip();          // switch from filling to decoding
+        charView.clear();         // character buffer starts empty
+        result = decoder.decode(byteView, charView, endFlag);
+        byteView.compact();       // keep partial characters for next time
+        if (endFlag && result.isUnderflow()) // all input has been decoded?
+          flushFlag = decoder.flush(charView).isUnderflow(); // done if fits
+
+        doneFlag = checkChars(charView.position());
+        textBase += charView.position(); // position of next characters
+      }
+    }
+    finally
+    {
+      stream.close();             // close byte file
+    }
+    if (whitePending && (detailLimit > 0)) // some files end with white space
+      addFinding(whiteStart, -1);
+    foundSpace |= whitePending;
+
+  } // end of checkCharFile() method
+
+
+/*
+  decodeBytes() method
+
+  Decode all bytes remaining in <byteView> and check the characters.  The
+  caller has already reset the decoder.  If <endFlag> is true, then these are
+  the last bytes of a run, and any partial character is replaced.  Otherwise,
+  a partial character is left in <byteView> for the caller.  Return true if we
+  have found everything that we are looking for.
+*/
+  boolean decodeBytes(boolean endFlag)
+  {
+    boolean doneFlag;             // true if we have found everything
+    CoderResult result;           // result from decoder or flush
+
+    while (true)
+    {
+      charView.clear();           // character buffer starts empty
+      result = decoder.decode(byteView, charView, endFlag);
+      if (endFlag && result.isUnderflow()) // all input has been decoded?
+        result = decoder.flush(charView); // and anything left in decoder
+      doneFlag = checkChars(charView.position());
+      textBase += charView.position(); // position of next characters
+      if (doneFlag || result.isUnderflow()) // found everything or need input?
+        return(doneFlag);
+    }
+  }
+
+
+/*
+  checkChars() method
+
+  Check a block of decoded characters in <charArray>, continuing with the
+  state left from any previous blocks in the same file.  Return true if we
+  have found everything that we are looking for, and the caller can stop
+  reading.  With the -v option, <textBase> is the position of the first
+  character in the file, for finding lines and columns.
+*/
+  boolean checkChars(int end)
+  {
+    int ch;                       // one input character (as integer)
+    boolean detail;               // true if we keep positions of findings
+//  boolean firstFlag;            // true only for the first byte/character
+    int i;                        // index variable
+    boolean plainFlag;            // local copy of <options.plainFlag>
+    boolean trimFlag;             // local copy of <options.trimFlag>
+
+    detail = (detailLimit > 0);   // local variables are faster
+    plainFlag = options.plainFlag;
+    trimFlag = options.trimFlag;
+
+    for (i = 0; i < end; i ++)
+    {
+      ch = charArray[i];          // get one character as integer
+      if ((ch == 0x0A) || (ch == 0x0D)) // check for newlines before spaces
+      {
+        if (whitePending)         // was there white space before newline?
+        {
+          if (detail) addFinding(whiteStart, -1); // where white space starts
+          foundSpace = true;      // remember trailing white space
+          whitePending = false;   // cancel pending white space
+          if (isFinished()) return(true); // stop if nothing more to find
+        }
+        if (detail) nextLine(textBase + i, ch); // count lines
+      }
+      else if ((ch == 0x09) || (ch == 0x20) || (ch == 0x3000))
+                                  // short list of Unicode spaces, tabs
+                                  // see also: isSpaceChar() isWhitespace()
+      {
+        if (detail && (whitePending == false)) // first of white space?
+          whiteStart = textBase + i;
+        whitePending = trimFlag;  // there is pending white space
+      }
+      else if ((ch >= 0x21) && (ch <= 0x7E)) // printable US-ASCII text?
+      {
+        whitePending = false;     // cancel pending white space, if any
+      }
+//    else if ((ch == 0xFEFF) && firstFlag) // Unicode "byte order mark"
+//    {
+        /* Ignore Unicode "byte order mark" (BOM, U+FEFF), but only at the
+        beginning of a file. */
+//    }
+      else                        // character is not plain text
+      {
+        if (plainFlag && ((foundChar < 0) || detail)) // first, or every?
+        {
+          if (foundChar < 0)      // first not plain character?
+            foundChar = ch;       // yes, remember first bad character
+          if (detail) addFinding((textBase + i), ch); // keep every position
+          if (isFinished()) return(true); // stop if nothing more to find
+        }
+        if ((ch != 0x00) && (ch != 0x7F)) // for all but NUL and DEL ...
+          whitePending = false;   // cancel pending white space, if any
+      }
+//    firstFlag = false;          // not the first byte/character anymore
+    }
+    return(false);                // keep reading, haven't found everything
+
+  } // end of checkChars() method
+
+
+/*
+  checkBytes() method
+
+  Check a block of raw data bytes in <byteArray>, continuing with the state
+  left from any previous blocks in the same file.  Return the index of the
+  first byte that was not checked: <end> if all bytes were checked, or less if
+  we found everything that we are looking for.  This is the same state machine
+  as for characters, except that a byte can't be U+3000.  If <highStop> is true,
+  then we also stop before any byte from 0x80 to 0xFF, so that the caller can
+  decode non-ASCII characters in an ASCII-compatible character set.
+
+  Most files are clean, so we first look at eight bytes at a time as a "long"
+  integer.  If all eight bytes are printable US-ASCII text, spaces, or tabs,
+  then nothing can be found inside the word, and only the last byte decides if
+  there is pending white space.  Words with newlines or bad bytes fall back to
+  checking one byte at a time.  The <scanEngine> option selects eight bytes at
+  a time (the default) or one byte at a time, for comparison.
+
+  With the -v option, lines and columns are counted in the same loops.  Words
+  skipped by the fast loops never have newlines or bad bytes, so only the
+  start of trailing white space needs any extra work there.
+*/
+  int checkBytes(int start, int end, boolean highStop)
+  {
+    long base;                    // local copy of <textBase>
+    int ch;                       // one input byte (as unsigned integer)
+    boolean detail;               // true if we keep positions of findings
+    int engine;                   // local copy of <options.scanEngine>
+    int first;                    // index of first word in fast loop
+    int i;                        // index variable
+    int limit;                    // end of bytes for slow (per-byte) loop
+    boolean plainFlag;            // local copy of <options.plainFlag>
+    boolean trimFlag;             // local copy of <options.trimFlag>
+    ByteBuffer view;              // local copy of <byteView>
+
+    base = textBase;              // local variables are faster
+    detail = (detailLimit > 0);
+    engine = options.scanEngine;
+    plainFlag = options.plainFlag;
+    trimFlag = options.trimFlag;
+
+    view = byteView;              // local variables are faster
+    i = start;                    // start with first byte in caller's block
+    while (i < end)
+    {
+      first = i;                  // remember where the fast loop starts
+      if (engine >= ENGINE_WORD) // eight bytes at a time?
+      {
+        while (((end - i) >= 8) && (wordMask(view.getLong(i)) == 0))
+          i += 8;                 // skip this word, which is all plain text
+      }
+      if (i > first)              // did we skip any words?
+      {
+        ch = byteArray[i - 1];    // last byte decides pending white space
+        if (detail && trimFlag && ((ch == 0x09) || (ch == 0x20)))
+          findWhiteStart(first, i); // where does white space start?
+        whitePending = trimFlag && ((ch == 0x09) || (ch == 0x20));
+      }
+      if (engine == ENGINE_BYTE) // one byte at a time?
+        limit = end;              // yes, never go back to the fast loops
+      else
+        limit = Math.min((i + 8), end); // check one word one byte at a time
+
+      while (i < limit)
+      {
+        ch = byteArray[i] & 0xFF; // convert signed byte to unsigned integer
+        if ((ch >= 0x80) && highStop) // caller will decode this byte?
+          return(i);              // yes, stop before the byte
+        i ++;                     // this byte has been consumed
+        if ((ch >= 0x21) && (ch <= 0x7E)) // printable US-ASCII text?
+        {
+          whitePending = false;   // cancel pending white space, if any
+        }
+        else if ((ch == 0x0A) || (ch == 0x0D)) // newlines before spaces
+        {
+          if (whitePending)       // was there white space before newline?
+          {
+            if (detail) addFinding(whiteStart, -1); // where white starts
+            foundSpace = true;    // remember trailing white space
+            whitePending = false; // cancel pending white space
+            if (isFinished()) return(i); // stop if nothing more to find
+          }
+          if (detail) nextLine((base + i - 1), ch); // count lines
+        }
+        else if ((ch == 0x09) || (ch == 0x20)) // tabs and spaces
+        {
+          if (detail && (whitePending == false)) // first of white space?
+            whiteStart = base + i - 1;
+          whitePending = trimFlag; // there is pending white space
+        }
+        else                      // byte is not plain text
+        {
+          if (plainFlag && ((foundChar < 0) || detail)) // first, or every?
+          {
+            if (foundChar < 0)    // first not plain character?
+              foundChar = ch;     // yes, remember first bad character
+            if (detail) addFinding((base + i - 1), ch); // every position
+            if (isFinished()) return(i); // stop if nothing more to find
+          }
+          if ((ch != 0x00) && (ch != 0x7F)) // for all but NUL and DEL ...
+            whitePending = false; // cancel pending white space, if any
+        }
+      }
+    }
+    return(end);                  // all bytes were checked
+
+  } // end of checkBytes() method
+
+
+/*
+  wordMask() method
+
+  Given eight bytes as a "long" integer, return a mask with the high bit set
+  for each byte that is not printable US-ASCII text, a space, or a tab.  The
+  result is zero if all bytes are plain text on the same line.  The bit tricks
+  work on each byte as if it were a separate small integer, without carries
+  between bytes, because the high bit of each byte is cleared before adding.
+*/
+  static long wordMask(long word)
+  {
+    long low;                     // <word> with high bit of each byte cleared
+    long notTab;                  // high bit set in each byte that isn't a tab
+
+    low = word & WORD_LOW;        // clear high bit in each byte
+    notTab = word ^ WORD_TABS;    // tab bytes become zero
+    notTab = ((notTab & WORD_LOW) + WORD_LOW) | notTab;
+    return(((~(low + WORD_SPACE) & notTab) // below space, but not a tab
+      | (low + WORD_ONES)         // DEL (0x7F) with high bit cleared
+      | word)                     // anything from 0x80 to 0xFF
+      & WORD_HIGH);               // keep only the high bit of each byte
+  }
+
+
+/*
+  hashFile() method
+
+  Return a 128-bit hash of a file's contents, as two long integers, for finding
+  duplicate files.  This is not a cryptographic hash, only a fast one, and the
+  caller also compares file sizes.  Eight bytes at a time are mixed into two
+  running hashes with different constants, and each result is mixed again so
+  that all bits depend on all input.
+
+  If <sample> is true, then only the first and last <SAMPLE_SIZE> bytes are
+  hashed.  That finds most files with the same size but different contents,
+  without reading all of either file.  Files no bigger than two samples are
+  hashed completely either way.
+*/
+  long[] hashFile(File givenFile, long size, boolean sample)
+    throws IOException
+  {
+    long[] hash;                  // two running hash values
+    long skip;                    // bytes not hashed between samples
+    FileInputStream stream;       // input stream for raw data bytes
+
+    hash = new long[2];
+    hash[0] = size * HASH_PRIME;  // start with size of file
+    hash[1] = size * HASH_MIX;
+    stream = new FileInputStream(givenFile);
+    try                           // always close file, even after errors
+    {
+      if (sample && (size > (2 * SAMPLE_SIZE))) // only both ends of file?
+      {
+        hashStream(stream, SAMPLE_SIZE, hash);
+        skip = size - (2 * SAMPLE_SIZE); // skip() may do less than asked
+        while ((skip > 0) && (options.cancelFlag == false))
+        {
+          long count = stream.skip(skip);
+          if (count <= 0) break;  // end of file, maybe file is shorter now
+          skip -= count;
+        }
+        hashStream(stream, SAMPLE_SIZE, hash);
+      }
+      else                        // whole file
+        hashStream(stream, Long.MAX_VALUE, hash);
+    }
+    finally
+    {
+      stream.close();             // close byte file
+    }
+    hash[0] ^= hash[0] >>> 33;    // final mixing of all bits
+    hash[0] *= HASH_MIX;
+    hash[0] ^= hash[0] >>> 29;
+    hash[1] ^= hash[1] >>> 29;
+    hash[1] *= HASH_PRIME;
+    hash[1] ^= hash[1] >>> 32;
+    return(hash);
+
+  } // end of hashFile() method
+
+
+/*
+  hashStream() method
+
+  Mix up to <limit> bytes from an input stream into the two running hashes for
+  hashFile().  <limit> is a multiple of eight, or unlimited, so that words are
+  aligned the same way in each part of a file.
+*/
+  void hashStream(InputStream stream, long limit, long[] hash)
+    throws IOException
+  {
+    int count;                    // number of bytes in buffer
+    long hashA, hashB;            // local copies of <hash>
+    int i;                        // index variable
+    long word;                    // eight bytes from buffer
+
+    hashA = hash[0];              // local variables are faster
+    hashB = hash[1];
+    while ((limit > 0) && (options.cancelFlag == false)
+      && ((count = stream.read(byteArray, 0, (int) Math.min(byteArray.length,
+      limit))) > 0))
+    {
+      limit -= count;
+      for (i = 0; (count - i) >= 8; i += 8) // whole words
+      {
+        word = byteView.getLong(i);
+        hashA ^= word * HASH_PRIME;
+        hashA = ((hashA << 31) | (hashA >>> 33)) * HASH_MIX;
+        hashB ^= word * HASH_MIX;
+        hashB = ((hashB << 27) | (hashB >>> 37)) * HASH_PRIME;
+      }
+      for ( ; i < count; i ++)    // remaining bytes
+      {
+        hashA = (hashA ^ (byteArray[i] & 0xFF)) * HASH_PRIME;
+        hashB = (hashB ^ (byteArray[i] & 0xFF)) * HASH_MIX;
+      }
+    }
+    hash[0] = hashA;
+    hash[1] = hashB;
+  }
+
+
+/*
+  isAsciiCompatible() method
+
+  Return true if a character set always decodes bytes from 0x00 to 0x7F as the
+  same US-ASCII characters, no matter what comes before or after, and false
+  otherwise.  We only accept character sets that we know to be safe, because
+  some multi-byte sets (Shift_JIS, Big5, GBK) use ASCII bytes as the second
+  byte of a character.
+*/
+  static boolean isAsciiCompatible(Charset charset)
+  {
+    String name;                  // canonical name of character set
+
+    name = charset.name();        // Java's canonical name, not an alias
+    return(name.equals("US-ASCII") || name.equals("UTF-8")
+      || name.startsWith("ISO-8859-") || name.startsWith("KOI8-")
+      || name.startsWith("windows-125"));
+  }
+
+
+/*
+  isFinished() method
+
+  Return true if we have found everything that we are looking for, and false
+  if we should keep reading.  At least one of <plainFlag> or <trimFlag> should
+  be true; otherwise, there is nothing to find and we are always finished.
+  With the -v option, we keep reading until one finding more than the most for
+  one file (so we know that some weren't recorded), and then until we have the
+  first of each kind, so that the result is the same as without -v.  Findings
+  after the most allowed are not recorded.
+*/
+  boolean isFinished()
+  {
+    if ((detailLimit > 0) && (moreFlag == false)) // want more findings?
+      return(false);
+    return(((options.plainFlag == false) || (foundChar >= 0))
+      && ((options.trimFlag == false) || foundSpace));
+  }
+
+
+/*
+  findWhiteStart() method
+
+  Find where white space starts, when the last byte skipped by the fast loops
+  in checkBytes() is a space or tab.  We look backwards through the skipped
+  bytes, from <end> to no earlier than <first>.  If all of them are white
+  space, and white space was already pending, then it started even earlier.
+*/
+  void findWhiteStart(int first, int end)
+  {
+    int ch;                       // one byte (as unsigned integer)
+    int i;                        // index variable
+
+    i = end - 1;                  // last byte skipped is white space
+    while (i > first)             // look back for first white byte in run
+    {
+      ch = byteArray[i - 1];
+      if ((ch != 0x09) && (ch != 0x20))
+        break;
+      i --;
+    }
+    if ((i > first) || (whitePending == false)) // does run start here?
+      whiteStart = textBase + i;
+  }
+
+
+/*
+  nextLine() method
+
+  Count a newline character at a position in the file.  A carriage return
+  (CR) or line feed (LF) alone ends a line, and so does CR followed by LF.
+*/
+  void nextLine(long position, int ch)
+  {
+    if ((ch != 0x0A) || (crPosition != (position - 1))) // not LF after CR?
+      lineNumber ++;              // yes, a new line
+    if (ch == 0x0D)               // remember carriage return for next LF
+      crPosition = position;
+    lineStart = position + 1;     // next line starts after newline
+  }
+
+
+/*
+  resetDetail() method
+
+  Start counting lines and columns at the beginning of a file.
+*/
+  void resetDetail()
+  {
+    crPosition = -2;              // no carriage return yet
+    detailLimit = options.detailLimit; // may change between files
+    findCount = 0;                // no findings yet
+    moreFlag = false;             // no findings dropped yet
+    lineNumber = 1;               // first line is line one
+    lineStart = textBase = whiteStart = 0; // start at beginning of file
+  }
+
+
+/*
+  scanFile() method
+
+  Check one file and return a new result object.  <charset> is the character
+  set for decoding, or null to check raw data bytes.  The result doesn't share
+  any arrays with this scanner, so the scanner may be used for the next file
+  while the caller keeps the result.  I/O errors are thrown to the caller.
+*/
+  public CheckPlainTrim2Result scanFile(File givenFile, Charset charset)
+    throws IOException
+  {
+    CheckPlainTrim2Result result; // what we found in this file
+
+    if (charset == null)          // use raw bytes as characters?
+      checkByteFile(givenFile);   // yes, check bytes in large blocks
+    else                          // must decode bytes into characters
+      checkCharFile(givenFile, charset);
+
+    result = new CheckPlainTrim2Result();
+    result.binaryFlag = binaryFlag; // true if not checked as text
+    result.cancelFlag = options.cancelFlag; // result may not be complete
+    result.foundChar = foundChar; // first bad character, if any
+    result.foundSpace = foundSpace; // true if trailing white space
+    result.moreFlag = moreFlag;   // true if some findings weren't recorded
+    if (findCount > 0)            // copy line and column of each finding
+    {
+      result.detailChars = new int[findCount];
+      System.arraycopy(findChars, 0, result.detailChars, 0, findCount);
+      result.detailColumns = new long[findCount];
+      System.arraycopy(findColumns, 0, result.detailColumns, 0, findCount);
+      result.detailLines = new long[findCount];
+      System.arraycopy(findLines, 0, result.detailLines, 0, findCount);
+    }
+    return(result);
+
+  } // end of scanFile() method
+
+
+/*
+  sniffBinary() method
+
+  Return true if the first few kilobytes of a file look like binary data: a
+  known magic number (images, archives, executables, databases) at the start,
+  or a zero byte (NUL) anywhere, which text files almost never have.  Zero
+  bytes are not checked for character sets like UTF-16, where they are normal
+  text.  We read with the file channel at an absolute position, so the caller's
+  stream is still at the beginning of the file.  Nothing is done unless the
+  user asked for binary files to be skipped.
+*/
+  boolean sniffBinary(FileInputStream stream, boolean nulFlag)
+    throws IOException
+  {
+    int count;                    // number of bytes in buffer
+    int i, k;                     // index variables
+
+    if (options.sniffFlag == false) // did user ask for this?
+      return(false);              // no, every file is checked as text
+    byteView.clear();             // read into start of shared buffer
+    byteView.limit(SNIFF_SIZE);
+    count = Math.max(stream.getChannel().read(byteView, 0), 0);
+    byteView.clear();             // restore full buffer for other methods
+
+    for (i = 0; i < MAGIC_NUMBERS.length; i ++) // for each magic number
+    {
+      if (MAGIC_NUMBERS[i].length > count) // is the file even that long?
+        continue;
+      for (k = 0; k < MAGIC_NUMBERS[i].length; k ++)
+        if ((byteArray[k] & 0xFF) != MAGIC_NUMBERS[i][k])
+          break;                  // this magic number doesn't match
+      if (k == MAGIC_NUMBERS[i].length) // did every byte match?
+      {
+        binaryFlag = true;        // yes, known binary file type
+        return(true);
+      }
+    }
+    if (nulFlag)                  // do zero bytes mean binary data?
+    {
+      for (i = 0; i < count; i ++)
+        if (byteArray[i] == 0x00)
+        {
+          binaryFlag = true;      // text files don't have NUL bytes
+          return(true);
+        }
+    }
+    return(false);                // looks like text, check as usual
+  }
+
+} // end of CheckPlainTrim2Scan class
+
+/* Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL. */
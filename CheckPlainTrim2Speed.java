@@ -0,0 +1,859 @@
+/*
+  Check Plain Trim #2 - Test Folders and End-to-End Speed Check
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Java class name: CheckPlainTrim2Speed
+  Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL.
+
+  This is a console program that creates a tree of test folders and files, and
+  then runs the CheckPlainTrim2 console application on that tree to measure how
+  fast it is from start to finish.  It must be compiled in the same folder as
+  CheckPlainTrim2:
+
+      javac  CheckPlainTrim2*.java
+
+  To create a tree of test files (the folder must be new or empty):
+
+      java  CheckPlainTrim2Speed  -make  d:\temp\corpus  -d3 -w4 -f20
+
+  The tree is the same every time for the same options, because all names and
+  contents come from a random number generator with a fixed seed.  Options are:
+
+    -b# = percent of files with a bad character or trailing spaces; default -b10
+    -d# = depth of subfolders below the top folder; default -d3
+    -f# = number of files in each folder; default -f20
+    -h# = percent of files and folders that are hidden; default -h5
+    -m# = largest file size in KB; sizes are spread evenly on a logarithmic
+          scale from 64 bytes to this size; default -m256
+    -w# = number of subfolders in each folder (fan-out); default -w4
+    -x# = seed for the random number generator; default -x1
+
+  To check the tree and report the speed:
+
+      java  CheckPlainTrim2Speed  -run  d:\temp\corpus  -c"speed.txt"  -t10
+
+  Each run starts a new Java virtual machine, because CheckPlainTrim2 calls
+  System.exit() when it's done.  Inside that machine, the application's main()
+  method is called with "-s" and the folder name, after any -a options.  The
+  time is measured from just before main() until the program exits, so Java's
+  startup isn't counted.  Options are:
+
+    -a"option" = give one option to CheckPlainTrim2, such as -a-p4 for four
+          threads; may be repeated
+    -c"file" = baseline file with the speed of an earlier run
+    -j"option" = give one option to the Java virtual machine, such as -j-Xmx1g;
+          may be repeated
+    -r# = number of runs; the median is reported; default -r3
+    -t# = fail if speed in MB per second is more than # percent below the
+          baseline; default -t10
+    -u = save this run as the new baseline, instead of comparing
+
+  The report has files per second, megabytes per second, peak memory for the
+  process (resident set size, Linux only), and time spent in garbage
+  collection.  The exit status is 1 for success and -1 for failure, the same as
+  CheckPlainTrim2, so scripts can stop when the speed has dropped.
+
+  To measure how long the console application takes to start, check a few
+  files, and exit, as in a pre-commit hook:
+
+      java  CheckPlainTrim2Speed  -start  d:\temp\corpus  -pCheckPlainTrim2.jar
+
+  The first -f visible files in the tree (sorted by name) are given to the
+  application by name.  Here the time includes Java's startup, measured from
+  starting the process until it ends.  One untimed run comes first, so that
+  the files are in the system's cache.  Options are:
+
+    -a"option" = give one option to CheckPlainTrim2; may be repeated
+    -c"file" = baseline file with the startup time of an earlier run; use a
+          different file than for -run
+    -f# = number of files to check; default -f10
+    -j"option" = give one option to the Java virtual machine; may be repeated
+    -n"file" = run this native executable instead of Java (see the GraalVM
+          notes in CheckPlainTrim2.java); -j and -p are ignored
+    -p"path" = class path for the application, usually the JAR file; default
+          is the class path of this program
+    -r# = number of runs; the median is reported; default -r10
+    -s"file" = use this shared class archive (AppCDS, Java 13 or later); if
+          the file doesn't exist, it is created by the untimed run; the class
+          path must be a JAR file, not a folder
+    -t# = fail if time is more than # percent above the baseline; default -t20
+    -u = save this run as the new baseline, instead of comparing
+
+  Hidden files are only hidden on systems where a leading dot means hidden
+  (Linux, macOS, and other Unix systems), and are not checked by the
+  application, so they aren't counted in the speed.  This program needs Java 5
+  or later, for the management interface that reports garbage collection; the
+  application itself doesn't.
+
+  THIS PROGRAM IS NOT PART OF THE APPLICATION.  It doesn't need to be included
+  in the JAR file.
+*/
+
+import java.io.*;                 // standard I/O
+import java.lang.management.*;    // garbage collection times
+import java.util.*;               // calendars, dates, lists, maps, vectors
+
+public class CheckPlainTrim2Speed
+{
+  /* constants */
+
+  static final String CHILD_OPTION = "-child"; // run application in this JVM
+  static final int EXIT_FAILURE = -1; // incorrect request or errors found
+  static final int EXIT_SUCCESS = 1; // request completed successfully
+  static final String RESULT_PREFIX = "#speed "; // result line from child
+  static final int SIZE_MINIMUM = 64; // smallest generated file (bytes)
+
+  /* class variables */
+
+  static long childStart;         // time when child called main() (millis)
+  static long totalBytes;         // bytes in files that will be checked
+  static long totalFiles;         // number of files that will be checked
+
+/*
+  main() method
+
+  Decide between creating a tree, checking a tree, or being the child process
+  that runs the application.
+*/
+  public static void main(String[] args)
+  {
+    if ((args.length > 0) && args[0].equals(CHILD_OPTION))
+      runChild(args);             // never returns
+    else if ((args.length > 1) && args[0].equalsIgnoreCase("-make"))
+      makeTree(args);
+    else if ((args.length > 1) && args[0].equalsIgnoreCase("-run"))
+      runTree(args);
+    else if ((args.length > 1) && args[0].equalsIgnoreCase("-start"))
+      runStart(args);
+    else
+    {
+      System.err.println("Usage: java CheckPlainTrim2Speed -make folder"
+        + " [-b#] [-d#] [-f#] [-h#] [-m#] [-w#] [-x#]");
+      System.err.println("   or: java CheckPlainTrim2Speed -run folder"
+        + " [-a\"option\"] [-c\"file\"] [-j\"option\"] [-r#] [-t#] [-u]");
+      System.err.println("   or: java CheckPlainTrim2Speed -start folder"
+        + " [-a\"option\"] [-c\"file\"] [-f#] [-j\"option\"] [-n\"file\"]");
+      System.err.println("         [-p\"path\"] [-r#] [-s\"file\"] [-t#] [-u]");
+      System.err.println("See the comments at the start of"
+        + " CheckPlainTrim2Speed.java for details.");
+      System.exit(EXIT_FAILURE);
+    }
+    System.exit(EXIT_SUCCESS);
+
+  } // end of main() method
+
+// ------------------------------------------------------------------------- //
+
+/*
+  checkBaseline() method
+
+  Save this run as the new baseline, or compare it to the baseline from an
+  earlier run, for both -run and -start.  The properties for this run have the
+  measured value under <valueKey>, and a count under <countKey> that should be
+  the same in the baseline.  When <higherFlag> is true, bigger values are
+  better (speed); otherwise smaller values are better (time).  Exit with a
+  failure if the value is worse than the baseline by more than <tolerance>
+  percent.
+*/
+  static void checkBaseline(File baseFile, boolean updateFlag,
+    Properties current, String countKey, String valueKey, String name,
+    String units, boolean higherFlag, int tolerance)
+  {
+    double baseValue;             // measured value in baseline
+    Properties baseline;          // contents of baseline file
+    InputStream input;            // reading baseline file
+    OutputStream output;          // writing baseline file
+    double value;                 // measured value for this run
+
+    value = Double.parseDouble(current.getProperty(valueKey));
+    try
+    {
+      if (updateFlag)             // save this run as the new baseline
+      {
+        output = new FileOutputStream(baseFile);
+        try { current.store(output, "CheckPlainTrim2Speed " + name
+          + " baseline"); }
+        finally { output.close(); }
+        System.out.println("Saved baseline in " + baseFile.getPath());
+        return;
+      }
+      baseline = new Properties();
+      input = new FileInputStream(baseFile);
+      try { baseline.load(input); }
+      finally { input.close(); }
+      baseValue = Double.parseDouble(baseline.getProperty(valueKey, "x"));
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't use baseline file: " + ioe.getMessage());
+      System.exit(EXIT_FAILURE);
+      return;
+    }
+    catch (NumberFormatException nfe)
+    {
+      System.err.println("Invalid " + name + " in baseline file: "
+        + baseFile.getPath());
+      System.exit(EXIT_FAILURE);
+      return;
+    }
+    if (current.getProperty(countKey).equals(baseline.getProperty(countKey))
+      == false)
+    {
+      System.out.println("Warning: baseline was measured with a different"
+        + " number of " + countKey + ".");
+    }
+    if (higherFlag ? (value < (baseValue * (100 - tolerance) / 100.0))
+      : (value > (baseValue * (100 + tolerance) / 100.0)))
+    {
+      System.out.println("FAILED: " + name + " is more than " + tolerance
+        + "% " + (higherFlag ? "below" : "above") + " baseline of "
+        + (Math.round(baseValue * 10.0) / 10.0) + " " + units + ".");
+      System.exit(EXIT_FAILURE);
+    }
+    System.out.println("Passed: baseline is " + (Math.round(baseValue * 10.0)
+      / 10.0) + " " + units + ", tolerance " + tolerance + "%.");
+  }
+
+
+/*
+  countTree() method
+
+  Count the files and bytes that the application will check in a folder and
+  its subfolders: everything except hidden files and folders.
+*/
+  static void countTree(File folder)
+  {
+    File[] contents;              // files and subfolders in <folder>
+    int i;                        // index variable
+
+    contents = folder.listFiles();
+    if (contents == null)         // not a folder, or can't be read
+      return;
+    for (i = 0; i < contents.length; i ++)
+    {
+      if (contents[i].isHidden()) // application skips hidden by default
+        continue;
+      if (contents[i].isDirectory())
+        countTree(contents[i]);
+      else
+      {
+        totalFiles ++;
+        totalBytes += contents[i].length();
+      }
+    }
+  }
+
+
+/*
+  findFiles() method
+
+  Add up to <limit> visible files from a folder and its subfolders to a list,
+  in order by name, so that the same files are chosen every time.
+*/
+  static void findFiles(File folder, List list, int limit)
+  {
+    File[] contents;              // files and subfolders in <folder>
+    int i;                        // index variable
+
+    contents = folder.listFiles();
+    if (contents == null)         // not a folder, or can't be read
+      return;
+    Arrays.sort(contents);        // system order isn't always the same
+    for (i = 0; (i < contents.length) && (list.size() < limit); i ++)
+    {
+      if (contents[i].isHidden()) // application skips hidden by default
+        continue;
+      if (contents[i].isDirectory())
+        findFiles(contents[i], list, limit);
+      else
+        list.add(contents[i].getPath());
+    }
+  }
+
+
+/*
+  makeFile() method
+
+  Write one test file of lines with printable US-ASCII text.  A bad file has
+  either one control character or one line with trailing spaces, somewhere in
+  the file.
+*/
+  static void makeFile(File file, Random random, long size, boolean bad)
+    throws IOException
+  {
+    long badPosition;             // where the problem goes, if <bad>
+    boolean badSpace;             // true for trailing spaces, false for byte
+    byte[] buffer;                // contents of file
+    int ch;                       // one generated byte
+    int i;                        // index variable
+    int lineLength;               // bytes wanted in current line
+    int length;                   // bytes in current line so far
+    FileOutputStream output;      // output stream for test file
+
+    buffer = new byte[(int) size]; // all files are small enough for memory
+    badPosition = bad ? (long) (random.nextDouble() * size) : -1;
+    badSpace = random.nextBoolean();
+    i = 0;                        // start with first byte in file
+    while (i < size)
+    {
+      lineLength = random.nextInt(100); // some lines are empty
+      for (length = 0; (length < lineLength) && (i < size); length ++)
+      {
+        if ((length > 0) && (length < (lineLength - 1)) && (i < (size - 1))
+          && (random.nextInt(7) == 0))
+        {
+          ch = ' ';               // spaces between words, not at end of line
+        }
+        else
+          ch = 0x21 + random.nextInt(0x5E); // printable US-ASCII
+        buffer[i ++] = (byte) ch;
+      }
+      if ((badPosition >= 0) && (i >= badPosition) && (i < size))
+      {
+        buffer[i ++] = (byte) (badSpace ? ' ' : 0x01); // one problem only
+        badPosition = -1;
+      }
+      if (i < size)
+        buffer[i ++] = '\n';
+    }
+    if ((badPosition >= 0) && (size > 0)) // problem didn't fit before end?
+      buffer[(int) size - 1] = 0x01;
+
+    output = new FileOutputStream(file);
+    try { output.write(buffer); }
+    finally { output.close(); }
+  }
+
+
+/*
+  makeFolder() method
+
+  Create the files and subfolders in one folder of the test tree, and then in
+  each subfolder until the depth reaches zero.
+*/
+  static void makeFolder(File folder, Random random, int depth, int fanOut,
+    int fileCount, int maxSize, int badPercent, int hiddenPercent)
+    throws IOException
+  {
+    int i;                        // index variable
+    String name;                  // name of new file or subfolder
+    long size;                    // size of new file in bytes
+    File sub;                     // new subfolder
+
+    if ((folder.isDirectory() == false) && (folder.mkdir() == false))
+      throw new IOException("can't create folder " + folder.getPath());
+    for (i = 0; i < fileCount; i ++)
+    {
+      name = ((random.nextInt(100) < hiddenPercent) ? "." : "") + "file"
+        + i + "-" + Integer.toString(random.nextInt(1000000), 36) + ".txt";
+      size = Math.round(SIZE_MINIMUM * Math.pow(((double) maxSize * 1024.0
+        / SIZE_MINIMUM), random.nextDouble())); // logarithmic scale
+      makeFile(new File(folder, name), random, size,
+        (random.nextInt(100) < badPercent));
+    }
+    if (depth <= 0)               // no more subfolders?
+      return;
+    for (i = 0; i < fanOut; i ++)
+    {
+      name = ((random.nextInt(100) < hiddenPercent) ? "." : "") + "folder"
+        + i;
+      sub = new File(folder, name);
+      makeFolder(sub, random, (depth - 1), fanOut, fileCount, maxSize,
+        badPercent, hiddenPercent);
+    }
+  }
+
+
+/*
+  makeTree() method
+
+  Parse the options for -make and create the test tree.
+*/
+  static void makeTree(String[] args)
+  {
+    int badPercent;               // percent of files with problems
+    int depth;                    // depth of subfolders
+    int fanOut;                   // subfolders in each folder
+    int fileCount;                // files in each folder
+    File folder;                  // top folder of tree
+    int hiddenPercent;            // percent of hidden files and folders
+    int i;                        // index variable
+    int maxSize;                  // largest file in KB
+    String[] names;               // existing contents of <folder>
+    long seed;                    // seed for random numbers
+    String word;                  // one parameter from command line
+
+    badPercent = 10;              // default options, see header
+    depth = 3;
+    fanOut = 4;
+    fileCount = 20;
+    hiddenPercent = 5;
+    maxSize = 256;
+    seed = 1;
+    folder = new File(args[1]);
+    for (i = 2; i < args.length; i ++)
+    {
+      word = args[i].toLowerCase(); // easier to process if consistent case
+      if (word.startsWith("-b")) badPercent = parseNumber(args[i], 0, 100);
+      else if (word.startsWith("-d")) depth = parseNumber(args[i], 0, 20);
+      else if (word.startsWith("-f")) fileCount = parseNumber(args[i], 0, 99999);
+      else if (word.startsWith("-h")) hiddenPercent = parseNumber(args[i], 0, 100);
+      else if (word.startsWith("-m")) maxSize = parseNumber(args[i], 1, 99999);
+      else if (word.startsWith("-w")) fanOut = parseNumber(args[i], 0, 999);
+      else if (word.startsWith("-x")) seed = parseNumber(args[i], 0, 999999999);
+      else usageError(args[i]);
+    }
+
+    names = folder.list();        // don't mix test files with real files
+    if ((names != null) && (names.length > 0))
+    {
+      System.err.println("Folder must be new or empty: " + folder.getPath());
+      System.exit(EXIT_FAILURE);
+    }
+    try
+    {
+      makeFolder(folder, new Random(seed), depth, fanOut, fileCount, maxSize,
+        badPercent, hiddenPercent);
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't create test files: " + ioe.getMessage());
+      System.exit(EXIT_FAILURE);
+    }
+    totalBytes = totalFiles = 0;
+    countTree(folder);
+    System.out.println("Created " + folder.getPath() + " with " + totalFiles
+      + " visible files and " + totalBytes + " bytes.");
+  }
+
+
+/*
+  median() method
+
+  Return the median of an array of results.  The array is sorted.
+*/
+  static double median(double[] values)
+  {
+    Arrays.sort(values);
+    if ((values.length % 2) == 1)
+      return(values[values.length / 2]);
+    return((values[(values.length / 2) - 1] + values[values.length / 2])
+      / 2.0);
+  }
+
+
+/*
+  parseNumber() method
+
+  Return the number after a two-letter option, or exit with an error if it
+  isn't a number from <low> to <high>.
+*/
+  static int parseNumber(String option, int low, int high)
+  {
+    int value;                    // parsed number
+
+    try { value = Integer.parseInt(option.substring(2)); }
+    catch (NumberFormatException nfe) { value = low - 1; }
+    if ((value < low) || (value > high))
+    {
+      System.err.println("Number must be from " + low + " to " + high + ": "
+        + option);
+      System.exit(EXIT_FAILURE);
+    }
+    return(value);
+  }
+
+
+/*
+  peakMemory() method
+
+  Return the peak resident set size of this process in kilobytes, from the
+  Linux "/proc" file system, or -1 if we can't find out.
+*/
+  static long peakMemory()
+  {
+    BufferedReader input;         // reader for status file
+    String line;                  // one line from status file
+
+    try
+    {
+      input = new BufferedReader(new FileReader("/proc/self/status"));
+      try
+      {
+        while ((line = input.readLine()) != null)
+          if (line.startsWith("VmHWM:")) // "high water mark" for memory
+            return(Long.parseLong(line.substring(6).trim().split("\\s+")[0]));
+      }
+      finally { input.close(); }
+    }
+    catch (IOException ioe) { /* not Linux */ }
+    catch (NumberFormatException nfe) { /* unknown format */ }
+    return(-1);
+  }
+
+
+/*
+  runChild() method
+
+  Called in the child process.  Run the application's main() method with the
+  remaining arguments, and when the application exits, write one result line
+  with the elapsed time, garbage collection time, and peak memory.
+*/
+  static void runChild(String[] args)
+  {
+    String[] appArgs;             // arguments for the application
+
+    appArgs = new String[args.length - 1];
+    System.arraycopy(args, 1, appArgs, 0, appArgs.length);
+    Runtime.getRuntime().addShutdownHook(new Thread()
+    {
+      public void run()
+      {
+        Iterator list;            // for looping over garbage collectors
+        long gcTime;              // total time in garbage collection (millis)
+
+        gcTime = 0;
+        list = ManagementFactory.getGarbageCollectorMXBeans().iterator();
+        while (list.hasNext())
+          gcTime += Math.max(((GarbageCollectorMXBean) list.next())
+            .getCollectionTime(), 0);
+        System.err.println(RESULT_PREFIX + (System.currentTimeMillis()
+          - childStart) + " " + gcTime + " " + peakMemory());
+      }
+    });
+    childStart = System.currentTimeMillis();
+    CheckPlainTrim2.main(appArgs); // calls System.exit()
+  }
+
+
+/*
+  runOnce() method
+
+  Start a child process to check the tree, and return its result line as three
+  numbers: elapsed time, garbage collection time, and peak memory.  The
+  application's report is read and thrown away.
+*/
+  static long[] runOnce(List command) throws IOException
+  {
+    BufferedReader input;         // child's output and errors, merged
+    String line;                  // one line from child
+    Process process;              // child process
+    long[] result;                // numbers from result line
+
+    process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    result = null;
+    input = new BufferedReader(new InputStreamReader(
+      process.getInputStream()));
+    try
+    {
+      while ((line = input.readLine()) != null)
+      {
+        if (line.startsWith(RESULT_PREFIX))
+        {
+          String[] words = line.substring(RESULT_PREFIX.length()).split(" ");
+          result = new long[] {Long.parseLong(words[0]),
+            Long.parseLong(words[1]), Long.parseLong(words[2])};
+        }
+      }
+    }
+    finally { input.close(); }
+    try { process.waitFor(); }
+    catch (InterruptedException ie) { /* do nothing */ }
+    if (result == null)
+      throw new IOException("no result from child process, exit status "
+        + process.exitValue());
+    return(result);
+  }
+
+
+/*
+  runStart() method
+
+  Parse the options for -start, run the application on a few files several
+  times, report the median time from process start to exit, and compare it to
+  the baseline.
+*/
+  static void runStart(String[] args)
+  {
+    File archive;                 // shared class archive, or null
+    File baseFile;                // baseline file, or null
+    String classPath;             // class path for application
+    List command;                 // command line for timed runs
+    Properties current;           // results of this run, for baseline
+    int fileCount;                // number of files to check
+    List files;                   // names of files to check
+    File folder;                  // top folder of tree
+    int i;                        // index variable
+    List javaOptions;             // options for application's virtual machine
+    double millis;                // median elapsed time
+    String nativeFile;            // native executable, or null
+    List options;                 // options for application
+    int runCount;                 // number of runs
+    double[] times;               // elapsed time for each run (millis)
+    int tolerance;                // percent rise allowed from baseline
+    List training;                // command line for untimed run
+    boolean updateFlag;           // true if we save a new baseline
+    String word;                  // one parameter from command line
+
+    archive = baseFile = null;    // default options, see header
+    classPath = System.getProperty("java.class.path");
+    fileCount = 10;
+    javaOptions = new ArrayList();
+    nativeFile = null;
+    options = new ArrayList();
+    runCount = 10;
+    tolerance = 20;
+    updateFlag = false;
+    folder = new File(args[1]);
+    for (i = 2; i < args.length; i ++)
+    {
+      word = args[i].toLowerCase(); // easier to process if consistent case
+      if (word.startsWith("-a") && (word.length() > 2))
+        options.add(args[i].substring(2));
+      else if (word.startsWith("-c") && (word.length() > 2))
+        baseFile = new File(args[i].substring(2));
+      else if (word.startsWith("-f")) fileCount = parseNumber(args[i], 1, 9999);
+      else if (word.startsWith("-j") && (word.length() > 2))
+        javaOptions.add(args[i].substring(2));
+      else if (word.startsWith("-n") && (word.length() > 2))
+        nativeFile = args[i].substring(2);
+      else if (word.startsWith("-p") && (word.length() > 2))
+        classPath = args[i].substring(2);
+      else if (word.startsWith("-r")) runCount = parseNumber(args[i], 1, 999);
+      else if (word.startsWith("-s") && (word.length() > 2))
+        archive = new File(args[i].substring(2));
+      else if (word.startsWith("-t")) tolerance = parseNumber(args[i], 0, 1000);
+      else if (word.equals("-u")) updateFlag = true;
+      else usageError(args[i]);
+    }
+    files = new ArrayList();
+    findFiles(folder, files, fileCount);
+    if (files.isEmpty())
+    {
+      System.err.println("No visible files found in: " + folder.getPath());
+      System.exit(EXIT_FAILURE);
+    }
+
+    command = new ArrayList();    // native executable, or Java and class path
+    if (nativeFile != null)
+      command.add(nativeFile);
+    else
+    {
+      command.add(System.getProperty("java.home") + File.separator + "bin"
+        + File.separator + "java");
+      command.addAll(javaOptions);
+    }
+    training = new ArrayList(command); // untimed run may create the archive
+    if ((nativeFile == null) && (archive != null))
+    {
+      if (archive.exists() == false)
+        training.add("-XX:ArchiveClassesAtExit=" + archive.getPath());
+      else
+        training.add("-XX:SharedArchiveFile=" + archive.getPath());
+      command.add("-XX:SharedArchiveFile=" + archive.getPath());
+    }
+    if (nativeFile == null)
+    {
+      training.add("-cp");
+      training.add(classPath);
+      training.add("CheckPlainTrim2");
+      command.add("-cp");
+      command.add(classPath);
+      command.add("CheckPlainTrim2");
+    }
+    training.addAll(options);
+    training.addAll(files);
+    command.addAll(options);
+    command.addAll(files);
+
+    times = new double[runCount];
+    try
+    {
+      runTimed(training);         // fill system cache, maybe create archive
+      if ((nativeFile == null) && (archive != null))
+      {
+        if (archive.exists() == false)
+          throw new IOException("shared archive not created: "
+            + archive.getPath());
+        System.out.println("Using shared archive " + archive.getPath() + " ("
+          + archive.length() + " bytes).");
+      }
+      for (i = 0; i < runCount; i ++)
+        times[i] = runTimed(command);
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't run CheckPlainTrim2: " + ioe.getMessage());
+      System.exit(EXIT_FAILURE);
+    }
+    millis = median(times);       // also sorts <times>
+
+    System.out.println("Started and checked " + files.size() + " files in "
+      + (Math.round(millis * 10.0) / 10.0) + " ms (median of " + runCount
+      + ", fastest " + (Math.round(times[0] * 10.0) / 10.0) + " ms).");
+
+    if (baseFile == null)         // nothing to compare against?
+      return;
+    current = new Properties();
+    current.setProperty("files", String.valueOf(files.size()));
+    current.setProperty("startMillis", String.valueOf(millis));
+    checkBaseline(baseFile, updateFlag, current, "files", "startMillis",
+      "startup time", "ms", false, tolerance);
+  }
+
+
+/*
+  runTimed() method
+
+  Start one process, throw away its output, and return the time in
+  milliseconds from just before starting it until it ends.  The application
+  exits with 1, 0, or -1; anything else means that it didn't run.
+*/
+  static double runTimed(List command) throws IOException
+  {
+    byte[] buffer;                // output from process, not used
+    InputStream input;            // process's output and errors, merged
+    Process process;              // child process
+    long start;                   // time before starting (nanoseconds)
+    int status;                   // exit status from process
+
+    buffer = new byte[8192];
+    start = System.nanoTime();
+    process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    input = process.getInputStream();
+    try { while (input.read(buffer) > 0) { /* do nothing */ } }
+    finally { input.close(); }
+    try { status = process.waitFor(); }
+    catch (InterruptedException ie) { status = -99; }
+    if ((status != 0) && (status != 1) && (status != -1) && (status != 255))
+      throw new IOException("exit status " + status + " from "
+        + command.get(0));
+    return((System.nanoTime() - start) / 1000000.0);
+  }
+
+
+/*
+  runTree() method
+
+  Parse the options for -run, check the tree several times, report the median
+  speed, and compare it to the baseline.
+*/
+  static void runTree(String[] args)
+  {
+    File baseFile;                // baseline file, or null
+    List command;                 // command line for child process
+    Properties current;           // results of this run, for baseline
+    File folder;                  // top folder of tree
+    double[] gcTimes;             // garbage collection time for each run
+    int i;                        // index variable
+    List javaOptions;             // options for child's virtual machine
+    double[] memory;              // peak memory for each run
+    List options;                 // options for application
+    long[] result;                // numbers from one run
+    int runCount;                 // number of runs
+    double seconds;               // median elapsed time
+    double[] times;               // elapsed time for each run (seconds)
+    int tolerance;                // percent drop allowed from baseline
+    boolean updateFlag;           // true if we save a new baseline
+    String word;                  // one parameter from command line
+
+    baseFile = null;              // default options, see header
+    javaOptions = new ArrayList();
+    options = new ArrayList();
+    runCount = 3;
+    tolerance = 10;
+    updateFlag = false;
+    folder = new File(args[1]);
+    for (i = 2; i < args.length; i ++)
+    {
+      word = args[i].toLowerCase(); // easier to process if consistent case
+      if (word.startsWith("-a") && (word.length() > 2))
+        options.add(args[i].substring(2));
+      else if (word.startsWith("-c") && (word.length() > 2))
+        baseFile = new File(args[i].substring(2));
+      else if (word.startsWith("-j") && (word.length() > 2))
+        javaOptions.add(args[i].substring(2));
+      else if (word.startsWith("-r")) runCount = parseNumber(args[i], 1, 99);
+      else if (word.startsWith("-t")) tolerance = parseNumber(args[i], 0, 100);
+      else if (word.equals("-u")) updateFlag = true;
+      else usageError(args[i]);
+    }
+    if (folder.isDirectory() == false)
+    {
+      System.err.println("Folder not found: " + folder.getPath());
+      System.exit(EXIT_FAILURE);
+    }
+    totalBytes = totalFiles = 0;
+    countTree(folder);
+
+    command = new ArrayList();    // same Java, same class path as this one
+    command.add(System.getProperty("java.home") + File.separator + "bin"
+      + File.separator + "java");
+    command.addAll(javaOptions);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add("CheckPlainTrim2Speed");
+    command.add(CHILD_OPTION);
+    command.addAll(options);
+    command.add("-s");            // search all subfolders
+    command.add(folder.getPath());
+
+    gcTimes = new double[runCount];
+    memory = new double[runCount];
+    times = new double[runCount];
+    try
+    {
+      for (i = 0; i < runCount; i ++)
+      {
+        result = runOnce(command);
+        times[i] = Math.max(result[0], 1) / 1000.0;
+        gcTimes[i] = result[1];
+        memory[i] = result[2];
+        System.out.println("Run " + (i + 1) + ": " + result[0] + " ms, "
+          + result[1] + " ms in garbage collection, " + ((result[2] < 0)
+          ? "unknown" : (result[2] + " KB")) + " peak memory");
+      }
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't run CheckPlainTrim2: " + ioe.getMessage());
+      System.exit(EXIT_FAILURE);
+    }
+    seconds = median(times);
+
+    System.out.println("Checked " + totalFiles + " files and " + totalBytes
+      + " bytes in " + seconds + " seconds (median of " + runCount + ").");
+    System.out.println("files/sec = " + Math.round(totalFiles / seconds));
+    System.out.println("MB/sec = " + (Math.round(totalBytes / seconds
+      / 1048576.0 * 10.0) / 10.0));
+    System.out.println("peak RSS = " + ((median(memory) < 0) ? "unknown"
+      : (Math.round(median(memory)) + " KB")));
+    System.out.println("GC time = " + Math.round(median(gcTimes)) + " ms");
+
+    if (baseFile == null)         // nothing to compare against?
+      return;
+    current = new Properties();
+    current.setProperty("bytes", String.valueOf(totalBytes));
+    current.setProperty("files", String.valueOf(totalFiles));
+    current.setProperty("mbPerSecond", String.valueOf(totalBytes / seconds
+      / 1048576.0));
+    checkBaseline(baseFile, updateFlag, current, "bytes", "mbPerSecond",
+      "speed", "MB/sec", true, tolerance);
+  }
+
+
+/*
+  usageError() method
+
+  Tell the user about an option that we don't know, and exit.
+*/
+  static void usageError(String option)
+  {
+    System.err.println("Option not recognized: " + option);
+    System.err.println("See the comments at the start of"
+      + " CheckPlainTrim2Speed.java for details.");
+    System.exit(EXIT_FAILURE);
+  }
+
+} // end of CheckPlainTrim2Speed class
+
+/* Copyright (c) 2017 by Keith Fenske.  Apache License or GNU GPL. */